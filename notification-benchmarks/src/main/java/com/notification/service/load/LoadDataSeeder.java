@@ -0,0 +1,139 @@
+package com.notification.service.load;
+
+import com.notification.service.model.Message;
+import com.notification.service.model.Notification;
+import com.notification.service.model.User;
+import com.notification.service.model.enums.BitMasks;
+import com.notification.service.model.enums.Category;
+import com.notification.service.model.enums.Channel;
+import com.notification.service.repository.MessageRepository;
+import com.notification.service.repository.NotificationRepository;
+import com.notification.service.repository.UserRepository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Fills the database the load test runs against. Data is derived from a seed, so runs against
+ * a fresh database are repeatable.
+ */
+final class LoadDataSeeder {
+
+    private static final int USER_BATCH_SIZE = 1_000;
+    private static final int NOTIFICATION_BATCH_SIZE = 10_000;
+
+    private final UserRepository userRepository;
+    private final MessageRepository messageRepository;
+    private final NotificationRepository notificationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Random random;
+
+    LoadDataSeeder(UserRepository userRepository, MessageRepository messageRepository,
+                   NotificationRepository notificationRepository, TransactionTemplate transactionTemplate, long seed) {
+        this.userRepository = userRepository;
+        this.messageRepository = messageRepository;
+        this.notificationRepository = notificationRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Adds users until there are at least the given number. Each user is subscribed to a random,
+     * non-empty set of categories and reachable on a random, non-empty set of channels.
+     *
+     * @param count The number of users wanted
+     * @return The number of subscribers of each category
+     */
+    Map<Category, Long> seedUsers(int count) {
+        long existing = userRepository.count();
+
+        for (long next = existing; next < count; next += USER_BATCH_SIZE) {
+            List<User> users = new ArrayList<>(USER_BATCH_SIZE);
+            for (long i = next; i < Math.min(next + USER_BATCH_SIZE, count); i++) {
+                users.add(User.builder()
+                        .name("Load User " + i)
+                        .email("load-" + i + "@example.com")
+                        .phoneNumber("+1555" + String.format("%07d", i))
+                        .subscriptions(randomSubset(Category.class))
+                        .channels(randomSubset(Channel.class))
+                        .build());
+            }
+            transactionTemplate.executeWithoutResult(status -> userRepository.saveAll(users));
+        }
+
+        Map<Category, Long> audiences = new TreeMap<>();
+        for (UserRepository.SubscriptionsChecksum subscriptions : userRepository.checksumUsersBySubscriptions()) {
+            for (Category category : BitMasks.fromMask(Category.class, subscriptions.getSubscriptions())) {
+                audiences.merge(category, subscriptions.getUsers(), Long::sum);
+            }
+        }
+        return audiences;
+    }
+
+    /**
+     * Adds delivered and failed notifications, created over the past 30 days, until the notifications table
+     * holds at least the given number of rows. The rows are written directly and do not go through delivery,
+     * so the notification statistics do not count them.
+     *
+     * @param rows The number of rows wanted
+     * @return The number of rows in the table
+     */
+    long growNotifications(long rows) {
+        long existing = notificationRepository.count();
+        if (existing >= rows) {
+            return existing;
+        }
+
+        List<Long> userIds = userRepository.findAll().stream().map(User::getId).toList();
+        Message message = messageRepository.save(Message.builder()
+                .category(Category.SPORTS)
+                .content("Load test backfill")
+                .createdAt(LocalDateTime.now().minusDays(30))
+                .build());
+        LocalDateTime now = LocalDateTime.now();
+        Channel[] channels = Channel.values();
+
+        for (long written = existing; written < rows; written += NOTIFICATION_BATCH_SIZE) {
+            int batch = (int) Math.min(NOTIFICATION_BATCH_SIZE, rows - written);
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Notification> notifications = new ArrayList<>(batch);
+                for (int i = 0; i < batch; i++) {
+                    LocalDateTime createdAt = now.minusSeconds(random.nextInt(30 * 24 * 3600));
+                    boolean sent = random.nextInt(20) != 0;
+                    notifications.add(Notification.builder()
+                            .message(message)
+                            .user(userRepository.getReferenceById(userIds.get(random.nextInt(userIds.size()))))
+                            .channel(channels[random.nextInt(channels.length)])
+                            .sent(sent)
+                            .createdAt(createdAt)
+                            .sentAt(sent ? createdAt : null)
+                            .attempts(1)
+                            .build());
+                }
+                notificationRepository.saveAll(notifications);
+            });
+        }
+
+        return notificationRepository.count();
+    }
+
+    private <E extends Enum<E>> Set<E> randomSubset(Class<E> type) {
+        Set<E> subset = EnumSet.noneOf(type);
+        E[] values = type.getEnumConstants();
+        while (subset.isEmpty()) {
+            for (E value : values) {
+                if (random.nextBoolean()) {
+                    subset.add(value);
+                }
+            }
+        }
+        return subset;
+    }
+}
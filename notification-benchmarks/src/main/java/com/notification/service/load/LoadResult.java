@@ -0,0 +1,62 @@
+package com.notification.service.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of one load phase. Latencies are recorded in microseconds and reported in milliseconds.
+ *
+ * @param scenario The name of the phase
+ * @param targetRate The requests per second the phase was scheduled to send
+ * @param scheduled The number of requests scheduled
+ * @param succeeded The number of requests answered with a 2xx or 3xx status
+ * @param failed The number of requests that failed or were answered with an error status
+ * @param shed The number of requests not sent because too many were outstanding
+ * @param elapsedNanos The time from the first request being scheduled to the last one completing
+ * @param latencies The latency of every completed request, and the highest trackable latency for every shed one
+ */
+record LoadResult(String scenario, double targetRate, long scheduled, long succeeded, long failed, long shed,
+                  long elapsedNanos, Histogram latencies) {
+
+    static final String HEADER = String.format(Locale.ROOT, "%-58s %8s %9s %7s %7s %10s %9s %9s %9s %9s",
+            "Scenario", "Rate/s", "Requests", "Errors", "Shed", "Done/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+
+    /**
+     * Returns the completed requests per second
+     */
+    double throughput() {
+        return (succeeded + failed) / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * Formats the result as a row of the summary table
+     */
+    String summary() {
+        return String.format(Locale.ROOT, "%-58s %8.1f %9d %7d %7d %10.1f %9.2f %9.2f %9.2f %9.2f",
+                scenario, targetRate, scheduled, failed, shed, throughput(),
+                millis(50), millis(99), millis(99.9), latencies.getMaxValue() / 1000.0);
+    }
+
+    /**
+     * Writes the full latency distribution in HdrHistogram's percentile format, which can be plotted
+     * and compared between runs
+     *
+     * @param file The file to write
+     * @throws IOException If the file cannot be written
+     */
+    void writeDistribution(Path file) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, "UTF-8")) {
+            latencies.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    private double millis(double percentile) {
+        return latencies.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
@@ -0,0 +1,175 @@
+package com.notification.service.load;
+
+import com.notification.service.NotificationServiceApplication;
+import com.notification.service.model.enums.Category;
+import com.notification.service.repository.MessageRepository;
+import com.notification.service.repository.NotificationRepository;
+import com.notification.service.repository.UserRepository;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * End-to-end load test of a single node. Boots the application on a random port, against an in-memory
+ * H2 database unless {@code --spring.datasource.url} points it at another one, seeds users, then:
+ * <ol>
+ *     <li>sends {@code POST /api/messages} at each of the rates in {@code load.post-rates}</li>
+ *     <li>grows the notifications table to each of the sizes in {@code load.table-sizes}, and at each size
+ *     sends each of the requests in {@code load.get-paths} at {@code load.get-rate}</li>
+ * </ol>
+ * Every phase reports throughput and p50/p99/p99.9 latency, and writes its full latency distribution
+ * to {@code load.output}. Options are passed as {@code --name=value}; all other arguments go to the application.
+ */
+public final class LoadTest {
+
+    private static final Map<String, String> H2_DATABASE = Map.of(
+            "spring.datasource.url", "jdbc:h2:mem:load;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+            "spring.datasource.username", "sa",
+            "spring.datasource.password", "",
+            "spring.datasource.driver-class-name", "org.h2.Driver",
+            "spring.jpa.hibernate.ddl-auto", "create",
+            "spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect",
+            "spring.flyway.enabled", "false");
+
+    // Logging every SQL statement and delivery would measure the console rather than the service
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "server.port", "0",
+            "spring.jpa.show-sql", "false",
+            "logging.level.com.notification.service", "WARN",
+            "logging.level.delivery.audit", "WARN",
+            "logging.level.org.springframework", "WARN");
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        if (!isSet(arguments, "spring.datasource.url")) {
+            addDefaults(arguments, H2_DATABASE);
+        }
+        addDefaults(arguments, DEFAULTS);
+
+        try (ConfigurableApplicationContext context =
+                     SpringApplication.run(NotificationServiceApplication.class, arguments.toArray(String[]::new))) {
+            new LoadTest().run(context);
+        }
+    }
+
+    private void run(ConfigurableApplicationContext context) throws InterruptedException, IOException {
+        Environment environment = context.getEnvironment();
+        double[] postRates = environment.getProperty("load.post-rates", double[].class, new double[]{10, 25, 50});
+        double getRate = environment.getProperty("load.get-rate", Double.class, 100.0);
+        long[] tableSizes = environment.getProperty("load.table-sizes", long[].class, new long[]{100_000, 1_000_000});
+        String[] getPaths = environment.getProperty("load.get-paths", String[].class,
+                new String[]{"/api/notifications?page=0&size=20", "/api/notifications?cursor=&size=20"});
+        int users = environment.getProperty("load.users", Integer.class, 1_000);
+        long seed = environment.getProperty("load.seed", Long.class, 42L);
+        Duration warmup = environment.getProperty("load.warmup", Duration.class, Duration.ofSeconds(10));
+        Duration duration = environment.getProperty("load.duration", Duration.class, Duration.ofSeconds(30));
+        int maxInFlight = environment.getProperty("load.max-in-flight", Integer.class, 512);
+        Duration requestTimeout = environment.getProperty("load.request-timeout", Duration.class, Duration.ofSeconds(30));
+        Path output = Path.of(environment.getProperty("load.output", "load-results"));
+
+        LoadDataSeeder seeder = new LoadDataSeeder(context.getBean(UserRepository.class),
+                context.getBean(MessageRepository.class), context.getBean(NotificationRepository.class),
+                context.getBean(TransactionTemplate.class), seed);
+        Map<Category, Long> audiences = seeder.seedUsers(users);
+
+        URI baseUri = URI.create("http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort());
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        OpenLoadGenerator generator = new OpenLoadGenerator(httpClient, maxInFlight, requestTimeout);
+
+        PrintStream out = System.out;
+        out.printf(Locale.ROOT, "Java %s, %d processors, %d MB heap; database %s%n",
+                Runtime.version(), Runtime.getRuntime().availableProcessors(),
+                Runtime.getRuntime().maxMemory() / (1024 * 1024), environment.getProperty("spring.datasource.url"));
+        out.printf(Locale.ROOT, "Subscribers per category: %s; warmup %s, %s per phase%n", audiences, warmup, duration);
+
+        List<LoadResult> results = new ArrayList<>();
+        Category[] categories = Category.values();
+
+        generator.run("warmup", postRates[0], warmup, i -> postMessage(baseUri, categories, i, requestTimeout));
+        for (double rate : postRates) {
+            results.add(report(out, generator.run("POST /api/messages", rate, duration,
+                    i -> postMessage(baseUri, categories, i, requestTimeout))));
+        }
+
+        for (long tableSize : tableSizes) {
+            long rows = seeder.growNotifications(tableSize);
+            for (String path : getPaths) {
+                HttpRequest request = HttpRequest.newBuilder(baseUri.resolve(path)).timeout(requestTimeout).GET().build();
+                generator.run("warmup", getRate, warmup, i -> request);
+                results.add(report(out, generator.run("GET " + path + " (" + rows + " rows)", getRate, duration,
+                        i -> request)));
+            }
+        }
+
+        writeResults(output, results);
+        out.println();
+        out.println(LoadResult.HEADER);
+        results.forEach(result -> out.println(result.summary()));
+        out.println("Latency distributions written to " + output.toAbsolutePath());
+    }
+
+    private static HttpRequest postMessage(URI baseUri, Category[] categories, long sequence, Duration timeout) {
+        String body = "{\"category\":\"" + categories[(int) (sequence % categories.length)]
+                + "\",\"content\":\"Load test message " + sequence + "\"}";
+        return HttpRequest.newBuilder(baseUri.resolve("/api/messages"))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+                .build();
+    }
+
+    private static LoadResult report(PrintStream out, LoadResult result) {
+        out.println(result.summary());
+        return result;
+    }
+
+    private static void writeResults(Path output, List<LoadResult> results) throws IOException {
+        Files.createDirectories(output);
+
+        List<String> summary = new ArrayList<>();
+        summary.add(LoadResult.HEADER);
+        for (int i = 0; i < results.size(); i++) {
+            LoadResult result = results.get(i);
+            String name = result.scenario().replaceAll("[^A-Za-z0-9]+", "-").replaceAll("^-|-$", "");
+            result.writeDistribution(output.resolve(String.format(Locale.ROOT, "%02d-%s.hgrm", i + 1,
+                    name.toLowerCase(Locale.ROOT))));
+            summary.add(result.summary());
+        }
+        Files.write(output.resolve("summary.txt"), summary, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isSet(List<String> arguments, String property) {
+        return arguments.stream().anyMatch(argument -> argument.startsWith("--" + property + "="));
+    }
+
+    private static void addDefaults(List<String> arguments, Map<String, String> defaults) {
+        defaults.forEach((property, value) -> {
+            if (!isSet(arguments, property)) {
+                arguments.add("--" + property + "=" + value);
+            }
+        });
+    }
+}
@@ -0,0 +1,95 @@
+package com.notification.service.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongFunction;
+
+/**
+ * Sends requests at a fixed rate, whether or not earlier ones have completed (an open workload model),
+ * and records their latencies in an HdrHistogram.
+ * Latency is measured from the time each request was scheduled to be sent, not from when it actually was,
+ * so a server that falls behind shows up in the percentiles instead of silently slowing down the load.
+ * Requests shed because too many are outstanding are recorded at the highest trackable latency, as if they
+ * never completed, so shedding cannot hide the slowest requests from the percentiles.
+ */
+final class OpenLoadGenerator {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final HttpClient httpClient;
+    private final int maxInFlight;
+    private final Duration requestTimeout;
+
+    OpenLoadGenerator(HttpClient httpClient, int maxInFlight, Duration requestTimeout) {
+        this.httpClient = httpClient;
+        this.maxInFlight = maxInFlight;
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * Runs one load phase and waits for all its requests to complete
+     *
+     * @param scenario The name of the phase in the report
+     * @param rate The number of requests to send per second
+     * @param duration How long to send requests for
+     * @param requests Builds the request with a given sequence number
+     * @return The latencies and outcomes of the requests
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    LoadResult run(String scenario, double rate, Duration duration, LongFunction<HttpRequest> requests)
+            throws InterruptedException {
+        Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        AtomicLong succeeded = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        long shed = 0;
+
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long count = Math.max(1, (long) (rate * duration.toNanos() / TimeUnit.SECONDS.toNanos(1)));
+        long start = System.nanoTime();
+
+        for (long i = 0; i < count; i++) {
+            long scheduled = start + i * intervalNanos;
+            long wait;
+            while ((wait = scheduled - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            // Past this many outstanding requests the server is saturated; count the rest instead of queueing them
+            if (!inFlight.tryAcquire()) {
+                recorder.recordValue(HIGHEST_TRACKABLE_MICROS);
+                shed++;
+                continue;
+            }
+
+            httpClient.sendAsync(requests.apply(i), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduled);
+                        recorder.recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+                        if (failure == null && response.statusCode() < 400) {
+                            succeeded.incrementAndGet();
+                        } else {
+                            failed.incrementAndGet();
+                        }
+                        inFlight.release();
+                    });
+        }
+
+        if (!inFlight.tryAcquire(maxInFlight, requestTimeout.toMillis() * 2, TimeUnit.MILLISECONDS)) {
+            throw new IllegalStateException("Requests of " + scenario + " did not complete");
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        Histogram latencies = recorder.getIntervalHistogram();
+        return new LoadResult(scenario, rate, count, succeeded.get(), failed.get(), shed, elapsedNanos, latencies);
+    }
+}
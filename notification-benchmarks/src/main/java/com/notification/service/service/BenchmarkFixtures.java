@@ -0,0 +1,215 @@
+package com.notification.service.service;
+
+import com.notification.service.config.NotificationProperties;
+import com.notification.service.model.Message;
+import com.notification.service.model.Notification;
+import com.notification.service.model.Recipient;
+import com.notification.service.model.User;
+import com.notification.service.model.enums.BitMasks;
+import com.notification.service.model.enums.Category;
+import com.notification.service.model.enums.Channel;
+import com.notification.service.repository.MessageRepository;
+import com.notification.service.repository.NotificationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Builds the services under benchmark with in-memory stand-ins for the database,
+ * and synthetic audiences
+ */
+final class BenchmarkFixtures {
+
+    /**
+     * Discards the delivery audit. A real sink drops records under a benchmark's load anyway.
+     */
+    static final DeliveryAuditSink NO_AUDIT = (channel, messageId, userId, recipient, sent) -> { };
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Creates a strategy service whose deliveries run on the calling thread and whose repositories
+     * keep nothing, so the benchmarks measure the fan-out itself rather than the database
+     *
+     * @return The strategy service
+     */
+    static NotificationStrategyService strategyService() {
+        NotificationProperties properties = new NotificationProperties();
+
+        return new NotificationStrategyService(
+                new EmailNotificationService(NO_AUDIT),
+                new SmsNotificationService(NO_AUDIT),
+                new PushNotificationService(NO_AUDIT),
+                notificationRepository(),
+                messageRepository(),
+                properties,
+                null,
+                new ChannelBulkheads(channel -> Runnable::run),
+                new ChannelRateLimiter(properties),
+                new RetryPolicy(properties),
+                new NotificationStatistics(null, null),
+                new DeliveryMetrics(new SimpleMeterRegistry()),
+                null);
+    }
+
+    /**
+     * Creates a message of a category
+     *
+     * @param category The category of the message
+     * @return The message, with an ID as if it was saved
+     */
+    static Message message(Category category) {
+        return Message.builder()
+                .id(1L)
+                .category(category)
+                .content("Benchmark message for " + category)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    /**
+     * Creates a synthetic audience. The same size and mix always give the same users.
+     *
+     * @param size The number of users
+     * @param mix The channels of the users
+     * @param category The category the users are subscribed to
+     * @return The users
+     */
+    static List<User> audience(int size, ChannelMix mix, Category category) {
+        Random random = new Random(size);
+        Channel[] channels = Channel.values();
+        List<User> users = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            Set<Channel> userChannels;
+            Set<Category> subscriptions = EnumSet.of(category);
+            String phoneNumber = "+1555" + i;
+
+            switch (mix) {
+                case EMAIL_ONLY -> userChannels = EnumSet.of(Channel.EMAIL);
+                case ALL_CHANNELS -> userChannels = EnumSet.allOf(Channel.class);
+                default -> {
+                    userChannels = EnumSet.noneOf(Channel.class);
+                    while (userChannels.isEmpty()) {
+                        for (Channel channel : channels) {
+                            if (random.nextBoolean()) {
+                                userChannels.add(channel);
+                            }
+                        }
+                    }
+                    if (random.nextInt(10) == 0) {
+                        subscriptions = EnumSet.complementOf(EnumSet.of(category));
+                    }
+                    if (random.nextInt(20) == 0) {
+                        phoneNumber = null;
+                    }
+                }
+            }
+
+            users.add(User.builder()
+                    .id((long) i + 1)
+                    .name("User " + i)
+                    .email("user" + i + "@example.com")
+                    .phoneNumber(phoneNumber)
+                    .subscriptions(subscriptions)
+                    .channels(userChannels)
+                    .build());
+        }
+
+        return users;
+    }
+
+    /**
+     * Splits the subscribers of an audience into the chunks of {@link Recipient} projections
+     * the {@link AudienceReader} would read from the database
+     *
+     * @param users The audience
+     * @param category The category of the message
+     * @param chunkSize The number of recipients per chunk
+     * @return The chunks, ordered by user ID
+     */
+    static List<List<Recipient>> recipientChunks(List<User> users, Category category, int chunkSize) {
+        List<List<Recipient>> chunks = new ArrayList<>();
+        List<Recipient> chunk = new ArrayList<>(chunkSize);
+
+        for (User user : users) {
+            if (!user.getSubscriptions().contains(category)) {
+                continue;
+            }
+            chunk.add(new Recipient(user.getId(), user.getEmail(), user.getPhoneNumber(),
+                    BitMasks.toMask(user.getChannels())));
+            if (chunk.size() == chunkSize) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Creates a notification as the fan-out would
+     *
+     * @param message The message
+     * @param user The recipient
+     * @param channel The channel
+     * @return The notification
+     */
+    static Notification notification(Message message, User user, Channel channel) {
+        return Notification.builder()
+                .id(user.getId())
+                .message(message)
+                .user(user)
+                .channel(channel)
+                .sent(false)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    /**
+     * A notification repository that accepts writes and keeps nothing
+     */
+    private static NotificationRepository notificationRepository() {
+        return inMemory(NotificationRepository.class, (method, args) -> switch (method) {
+            case "saveAllAndFlush", "saveAll" -> args[0];
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    /**
+     * A message repository that accepts counter updates and keeps nothing
+     */
+    private static MessageRepository messageRepository() {
+        return inMemory(MessageRepository.class, (method, args) -> switch (method) {
+            case "addNotificationCounts" -> 1;
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    private static <T> T inMemory(Class<T> repositoryType, RepositoryMethod handler) {
+        Object repository = Proxy.newProxyInstance(repositoryType.getClassLoader(), new Class<?>[]{repositoryType},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "toString" -> "in-memory " + repositoryType.getSimpleName();
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> handler.invoke(method.getName(), args);
+                });
+        return repositoryType.cast(repository);
+    }
+
+    @FunctionalInterface
+    private interface RepositoryMethod {
+
+        Object invoke(String method, Object[] args);
+    }
+}
@@ -0,0 +1,98 @@
+package com.notification.service.service;
+
+import com.notification.service.model.Message;
+import com.notification.service.model.Notification;
+import com.notification.service.model.User;
+import com.notification.service.model.enums.Category;
+import com.notification.service.model.enums.Channel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-notification costs of the dispatch path: the channel lookup built for every fan-out call,
+ * and the eligibility check and send of each channel service
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChannelDispatchBenchmark {
+
+    // NotificationStrategyService#createServiceMap is private; it is called through a handle bound to the service
+    private MethodHandle createServiceMap;
+    private EmailNotificationService emailNotificationService;
+    private SmsNotificationService smsNotificationService;
+    private PushNotificationService pushNotificationService;
+    private User user;
+    private Notification emailNotification;
+    private Notification smsNotification;
+    private Notification pushNotification;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ReflectiveOperationException {
+        createServiceMap = MethodHandles.privateLookupIn(NotificationStrategyService.class, MethodHandles.lookup())
+                .findVirtual(NotificationStrategyService.class, "createServiceMap", MethodType.methodType(Map.class))
+                .bindTo(BenchmarkFixtures.strategyService());
+        emailNotificationService = new EmailNotificationService(BenchmarkFixtures.NO_AUDIT);
+        smsNotificationService = new SmsNotificationService(BenchmarkFixtures.NO_AUDIT);
+        pushNotificationService = new PushNotificationService(BenchmarkFixtures.NO_AUDIT);
+
+        Message message = BenchmarkFixtures.message(Category.SPORTS);
+        user = BenchmarkFixtures.audience(1, ChannelMix.ALL_CHANNELS, Category.SPORTS).get(0);
+        emailNotification = BenchmarkFixtures.notification(message, user, Channel.EMAIL);
+        smsNotification = BenchmarkFixtures.notification(message, user, Channel.SMS);
+        pushNotification = BenchmarkFixtures.notification(message, user, Channel.PUSH_NOTIFICATION);
+    }
+
+    @Benchmark
+    public Object createServiceMap() throws Throwable {
+        return createServiceMap.invoke();
+    }
+
+    @Benchmark
+    public boolean emailCanSendToUser() {
+        return emailNotificationService.canSendToUser(user);
+    }
+
+    @Benchmark
+    public boolean smsCanSendToUser() {
+        return smsNotificationService.canSendToUser(user);
+    }
+
+    @Benchmark
+    public boolean pushCanSendToUser() {
+        return pushNotificationService.canSendToUser(user);
+    }
+
+    @Benchmark
+    public boolean emailSend() {
+        return emailNotificationService.send(emailNotification);
+    }
+
+    @Benchmark
+    public boolean smsSend() {
+        return smsNotificationService.send(smsNotification);
+    }
+
+    @Benchmark
+    public boolean pushSend() {
+        return pushNotificationService.send(pushNotification);
+    }
+}
@@ -0,0 +1,23 @@
+package com.notification.service.service;
+
+/**
+ * Which channels the users of a synthetic benchmark audience have
+ */
+public enum ChannelMix {
+
+    /**
+     * Every user only has email
+     */
+    EMAIL_ONLY,
+
+    /**
+     * Every user has every channel
+     */
+    ALL_CHANNELS,
+
+    /**
+     * Users have a random, non-empty subset of the channels; some have no phone number
+     * and some are not subscribed to the message's category
+     */
+    MIXED
+}
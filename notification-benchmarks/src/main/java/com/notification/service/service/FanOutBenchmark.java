@@ -0,0 +1,63 @@
+package com.notification.service.service;
+
+import com.notification.service.config.NotificationProperties;
+import com.notification.service.model.Message;
+import com.notification.service.model.Recipient;
+import com.notification.service.model.enums.Category;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to fan a message out to a whole audience with {@link NotificationStrategyService#processRecipients},
+ * one chunk of {@link Recipient} projections at a time as {@link NotificationStrategyService#processAudience} does:
+ * building the notifications, the provider batches, the retry bookkeeping and the batched writes.
+ * Deliveries run on the calling thread, and the repositories and the delivery audit keep nothing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class FanOutBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int audienceSize;
+
+    @Param({"EMAIL_ONLY", "ALL_CHANNELS", "MIXED"})
+    private ChannelMix channelMix;
+
+    private NotificationStrategyService notificationStrategyService;
+    private Message message;
+    private List<List<Recipient>> chunks;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        notificationStrategyService = BenchmarkFixtures.strategyService();
+        message = BenchmarkFixtures.message(Category.SPORTS);
+        chunks = BenchmarkFixtures.recipientChunks(BenchmarkFixtures.audience(audienceSize, channelMix, Category.SPORTS),
+                Category.SPORTS, new NotificationProperties().getFanOut().getChunkSize());
+    }
+
+    @Benchmark
+    public int processRecipients() {
+        int sent = 0;
+        for (List<Recipient> recipients : chunks) {
+            sent += notificationStrategyService.processRecipients(message, recipients).size();
+        }
+        return sent;
+    }
+}
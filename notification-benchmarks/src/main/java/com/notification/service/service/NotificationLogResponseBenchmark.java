@@ -0,0 +1,50 @@
+package com.notification.service.service;
+
+import com.notification.service.dto.NotificationLogResponse;
+import com.notification.service.model.Message;
+import com.notification.service.model.Notification;
+import com.notification.service.model.User;
+import com.notification.service.model.enums.Category;
+import com.notification.service.model.enums.Channel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning a notification into a log entry
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotificationLogResponseBenchmark {
+
+    private Notification notification;
+
+    @Setup
+    public void setUp() {
+        Message message = BenchmarkFixtures.message(Category.FINANCE);
+        User user = BenchmarkFixtures.audience(1, ChannelMix.ALL_CHANNELS, Category.FINANCE).get(0);
+
+        notification = BenchmarkFixtures.notification(message, user, Channel.EMAIL);
+        notification.setSent(true);
+        notification.setSentAt(LocalDateTime.now());
+    }
+
+    @Benchmark
+    public NotificationLogResponse fromNotification() {
+        return NotificationLogResponse.fromNotification(notification);
+    }
+}
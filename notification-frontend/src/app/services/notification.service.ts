@@ -16,6 +16,11 @@ export interface MessageResponse {
   notificationsSent: number;
 }
 
+export interface MessagePage {
+  messages: MessageResponse[];
+  nextCursor: string | null;
+}
+
 export interface NotificationLogResponse {
   id: number;
   messageId: number;
@@ -38,6 +43,11 @@ export interface NotificationPage {
   totalPages: number;
 }
 
+export interface NotificationCursorPage {
+  notifications: NotificationLogResponse[];
+  nextCursor: string | null;
+}
+
 export interface NotificationStats {
   totalNotifications: number;
   sentNotifications: number;
@@ -63,12 +73,19 @@ export class NotificationService {
   }
 
   /**
-   * Gets all messages
+   * Gets messages newest first, one page at a time
    * 
-   * @returns An observable of all messages
+   * @param cursor The nextCursor of the previous page, omitted for the first page
+   * @param size The page size
+   * @returns An observable of the message page; its nextCursor is null on the last page
    */
-  getMessages(): Observable<MessageResponse[]> {
-    return this.http.get<MessageResponse[]>(`${this.apiUrl}/messages`);
+  getMessages(cursor?: string, size: number = 50): Observable<MessagePage> {
+    // An empty cursor asks for the first page; without one the newest messages come back as a plain array
+    const params = new HttpParams()
+      .set('cursor', cursor ?? '')
+      .set('size', size.toString());
+    
+    return this.http.get<MessagePage>(`${this.apiUrl}/messages`, { params });
   }
 
   /**
@@ -106,12 +123,19 @@ export class NotificationService {
   }
 
   /**
-   * Gets notifications by sent status
+   * Gets notifications by sent status, newest first, one page at a time
    * 
    * @param sent The sent status to filter by
-   * @returns An observable of the notifications
+   * @param cursor The nextCursor of the previous page, omitted for the first page
+   * @param size The page size
+   * @returns An observable of the notification page; its nextCursor is null on the last page
    */
-  getNotificationsBySentStatus(sent: boolean): Observable<NotificationLogResponse[]> {
-    return this.http.get<NotificationLogResponse[]>(`${this.apiUrl}/notifications/status/${sent}`);
+  getNotificationsBySentStatus(sent: boolean, cursor?: string, size: number = 50): Observable<NotificationCursorPage> {
+    let params = new HttpParams().set('size', size.toString());
+    if (cursor) {
+      params = params.set('cursor', cursor);
+    }
+    
+    return this.http.get<NotificationCursorPage>(`${this.apiUrl}/notifications/status/${sent}`, { params });
   }
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.notification.service.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Bounded in-memory caches in front of the lookups of rows that rarely change
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    /**
+     * Messages by ID
+     */
+    public static final String MESSAGES = "messages";
+
+    /**
+     * Creates the caches. Each is bounded by size and time to live and records hit and miss statistics, which the
+     * actuator's cache metrics publish as {@code cache_gets_total}, {@code cache_size} and {@code cache_evictions_total}.
+     * Puts and evictions made inside a transaction are applied once it commits, so a reader
+     * can't cache a row again between an eviction and the commit of the change that caused it.
+     *
+     * @param properties The cache settings
+     * @return The cache manager
+     */
+    @Bean
+    public CacheManager cacheManager(NotificationProperties properties) {
+        NotificationProperties.Cache cache = properties.getCache();
+
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(cache.getMaximumSize())
+                .expireAfterWrite(Duration.ofMillis(cache.getExpireAfterWriteMs()))
+                .recordStats());
+        cacheManager.setCacheNames(List.of(MESSAGES));
+
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
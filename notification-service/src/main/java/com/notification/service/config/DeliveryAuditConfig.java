@@ -0,0 +1,27 @@
+package com.notification.service.config;
+
+import com.notification.service.service.DeliveryAuditSink;
+import com.notification.service.service.RingBufferDeliveryAuditSink;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Where the channel services record their delivery attempts
+ */
+@Configuration
+public class DeliveryAuditConfig {
+
+    /**
+     * Creates the default sink, which logs the records from a background thread. A {@link DeliveryAuditSink}
+     * bean defined by the application, such as one writing to a message broker, replaces it.
+     *
+     * @param properties The audit settings
+     * @return The sink
+     */
+    @Bean
+    @ConditionalOnMissingBean(DeliveryAuditSink.class)
+    public RingBufferDeliveryAuditSink deliveryAuditSink(NotificationProperties properties) {
+        return new RingBufferDeliveryAuditSink(properties);
+    }
+}
@@ -0,0 +1,306 @@
+package com.notification.service.config;
+
+import com.notification.service.model.enums.Channel;
+import com.notification.service.model.enums.FanOutMode;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tuning knobs for message dispatch, bound from the {@code notification.*} properties
+ */
+@Data
+@ConfigurationProperties(prefix = "notification")
+public class NotificationProperties {
+
+    private Dispatch dispatch = new Dispatch();
+
+    private Outbox outbox = new Outbox();
+
+    private FanOut fanOut = new FanOut();
+
+    private SubscriptionIndex subscriptionIndex = new SubscriptionIndex();
+
+    private Bulkhead bulkhead = new Bulkhead();
+
+    private RateLimit rateLimit = new RateLimit();
+
+    private Retry retry = new Retry();
+
+    private Stats stats = new Stats();
+
+    private Cache cache = new Cache();
+
+    private Audit audit = new Audit();
+
+    private Partitions partitions = new Partitions();
+
+    private Export export = new Export();
+
+    @Data
+    public static class Dispatch {
+
+        /**
+         * When true, POST /api/messages only persists the message and returns 202;
+         * the fan-out runs on the dispatch worker pool
+         */
+        private boolean async = false;
+
+        /**
+         * Number of worker threads performing fan-out
+         */
+        private int workerThreads = 4;
+
+        /**
+         * Maximum number of messages waiting for a free worker
+         */
+        private int queueCapacity = 1000;
+    }
+
+    @Data
+    public static class Outbox {
+
+        /**
+         * Delay between two polls of the outbox table, in milliseconds
+         */
+        private long pollIntervalMs = 1000;
+
+        /**
+         * Maximum number of pending entries handed to the workers per poll
+         */
+        private int batchSize = 100;
+    }
+
+    @Data
+    public static class FanOut {
+
+        /**
+         * How asynchronously dispatched messages expand their audience
+         */
+        private FanOutMode mode = FanOutMode.ENTITY;
+
+        /**
+         * Number of subscribers (or pending rows, in set-based mode) processed per fan-out transaction
+         */
+        private int chunkSize = 500;
+
+        /**
+         * Number of notifications sent before they are written in one batched flush
+         */
+        private int writeBatchSize = 500;
+    }
+
+    @Data
+    public static class SubscriptionIndex {
+
+        /**
+         * When true, audiences are read from an in-memory index of the subscriptions
+         * instead of being queried for every chunk
+         */
+        private boolean enabled = false;
+
+        /**
+         * Delay between two checks of the index against the users table, in milliseconds
+         */
+        private long checkIntervalMs = 60000;
+    }
+
+    @Data
+    public static class Bulkhead {
+
+        /**
+         * Limits applied to every channel without its own entry in {@link #channels}
+         */
+        private Lane defaults = new Lane();
+
+        /**
+         * Per-channel limits, e.g. {@code notification.bulkhead.channels.sms.max-concurrent=4}
+         */
+        private Map<Channel, Lane> channels = new EnumMap<>(Channel.class);
+
+        public Lane lane(Channel channel) {
+            return channels.getOrDefault(channel, defaults);
+        }
+    }
+
+    @Data
+    public static class Lane {
+
+        /**
+         * Maximum number of deliveries (single notifications or batches) in progress at once on the channel
+         */
+        private int maxConcurrent = 16;
+
+        /**
+         * Maximum number of deliveries waiting for the channel; further ones are left for a retry
+         */
+        private int queueCapacity = 500;
+
+        /**
+         * Maximum number of notifications handed to the channel's provider in one call
+         */
+        private int batchSize = 100;
+    }
+
+    @Data
+    public static class RateLimit {
+
+        /**
+         * Per-channel quotas, e.g. {@code notification.rate-limit.channels.sms.permits-per-second=10}
+         */
+        private Map<Channel, Limit> channels = new EnumMap<>(Channel.class);
+
+        /**
+         * Quotas of provider accounts shared by several channels, referenced by {@link Limit#getAccount()}
+         */
+        private Map<String, Limit> accounts = new HashMap<>();
+
+        /**
+         * Longest time the fan-out waits for a channel's permits before parking the group for the retry scheduler
+         */
+        private long maxWaitMs = 30000;
+    }
+
+    @Data
+    public static class Limit {
+
+        /**
+         * Sustained number of notifications per second; 0 or less means unlimited
+         */
+        private double permitsPerSecond = 0;
+
+        /**
+         * Number of notifications that can be sent at once after an idle period; defaults to one second's worth
+         */
+        private int burst = 0;
+
+        /**
+         * Provider account whose quota the channel also counts against, if any
+         */
+        private String account;
+    }
+
+    @Data
+    public static class Retry {
+
+        /**
+         * When false, failed notifications are kept but never retried
+         */
+        private boolean enabled = true;
+
+        /**
+         * Delay between two scans for notifications due for a retry, in milliseconds
+         */
+        private long pollIntervalMs = 5000;
+
+        /**
+         * Maximum number of notifications claimed and retried per batch
+         */
+        private int batchSize = 200;
+
+        /**
+         * Maximum number of batches retried per scan, so a large backlog does not hold the scheduling thread
+         */
+        private int maxBatchesPerRun = 10;
+
+        /**
+         * Total number of delivery attempts, the first one included, before a notification is given up
+         */
+        private int maxAttempts = 5;
+
+        /**
+         * Delay before the first retry, in milliseconds; doubled on every further attempt
+         */
+        private long initialBackoffMs = 30000;
+
+        /**
+         * Upper bound of the delay between two attempts, in milliseconds
+         */
+        private long maxBackoffMs = 3600000;
+
+        /**
+         * How long the committed notifications of a fan-out chunk are left to the node sending them, in milliseconds.
+         * If that node stops before writing their outcome, the retry scheduler sends them once the lease expires.
+         */
+        private long deliveryLeaseMs = 600000;
+    }
+
+    @Data
+    public static class Stats {
+
+        /**
+         * Delay between two checkpoints of the in-memory statistics to the database, in milliseconds
+         */
+        private long checkpointIntervalMs = 10000;
+    }
+
+    @Data
+    public static class Cache {
+
+        /**
+         * Maximum number of entries per cache; the least recently used beyond it are evicted
+         */
+        private long maximumSize = 10000;
+
+        /**
+         * Time after which a cached entry is reloaded, in milliseconds
+         */
+        private long expireAfterWriteMs = 600000;
+    }
+
+    @Data
+    public static class Audit {
+
+        /**
+         * Number of delivery records the audit buffer holds before dropping new ones, rounded up to a power of two
+         */
+        private int bufferSize = 8192;
+    }
+
+    @Data
+    public static class Partitions {
+
+        /**
+         * When false, the monthly partitions of the notifications table are neither created nor dropped
+         * by the application
+         */
+        private boolean enabled = true;
+
+        /**
+         * Number of months ahead of the current one whose partitions are kept created. The next month's
+         * partition is created even when this is 0.
+         */
+        private int premakeMonths = 3;
+
+        /**
+         * Number of past months whose notifications are kept besides the current month's;
+         * the partitions of older months are dropped. 0 or less keeps all of them.
+         */
+        private int retentionMonths = 0;
+
+        /**
+         * Delay between two maintenance runs, in milliseconds
+         */
+        private long maintenanceIntervalMs = 3600000;
+
+        /**
+         * Maximum time creating or dropping a partition waits for its lock on the notifications table,
+         * in milliseconds. A waiting lock blocks the queries queued behind it, so on timeout the
+         * partition is left for the next run instead.
+         */
+        private long lockTimeoutMs = 5000;
+    }
+
+    @Data
+    public static class Export {
+
+        /**
+         * Longest time an export may stream before its request is timed out, in milliseconds.
+         * Other async requests keep the {@code spring.mvc.async.request-timeout} default.
+         */
+        private long timeoutMs = 3600000;
+    }
+}
@@ -1,17 +1,26 @@
 package com.notification.service.controller;
 
+import com.notification.service.dto.DispatchStatusResponse;
 import com.notification.service.dto.MessageRequest;
 import com.notification.service.dto.MessageResponse;
+import com.notification.service.dto.PageCursor;
 import com.notification.service.model.Message;
-import com.notification.service.repository.NotificationRepository;
+import com.notification.service.model.MessageSnapshot;
+import com.notification.service.model.OutboxEntry;
+import com.notification.service.model.enums.Category;
+import com.notification.service.service.MessageDispatch;
 import com.notification.service.service.MessageService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -20,49 +29,86 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class MessageController {
 
+    private static final int MAX_PAGE_SIZE = 500;
+
     private final MessageService messageService;
-    private final NotificationRepository notificationRepository;
 
     /**
-     * Creates a new message and sends notifications to eligible users
+     * Creates a new message and sends notifications to eligible users.
+     * With async dispatch enabled the message is accepted with 202 and a dispatch ID instead.
      *
      * @param request The message request containing category and content
-     * @return The created message with notification count
+     * @return The created message with notification count, or the accepted message with its dispatch ID
      */
     @PostMapping
     public ResponseEntity<MessageResponse> createMessage(@Valid @RequestBody MessageRequest request) {
+        if (messageService.isAsyncDispatch()) {
+            MessageDispatch dispatch = messageService.submitMessage(request.getCategory(), request.getContent());
+            return new ResponseEntity<>(MessageResponse.fromDispatch(dispatch), HttpStatus.ACCEPTED);
+        }
+
         Message message = messageService.createMessage(request.getCategory(), request.getContent());
         
-        // Count the number of notifications sent for this message
-        long notificationsSent = notificationRepository.findAll().stream()
-                .filter(n -> n.getMessage().getId().equals(message.getId()) && n.isSent())
-                .count();
-        
-        MessageResponse response = MessageResponse.fromMessage(message, (int) notificationsSent);
+        MessageResponse response = MessageResponse.fromMessage(message);
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
 
     /**
-     * Retrieves all messages
+     * Retrieves the newest messages, newest first, at most {@value #MAX_PAGE_SIZE} of them.
+     * Callers that need older messages page with a {@code cursor} parameter instead, see {@link #getMessagePage}.
      *
-     * @return A list of all messages
+     * @param category The category of the messages, or all if omitted
+     * @param from The start of the time range, inclusive; the beginning of time if omitted
+     * @param to The end of the time range, exclusive; no end if omitted
+     * @return The messages
      */
-    @GetMapping
-    public ResponseEntity<List<MessageResponse>> getAllMessages() {
-        List<Message> messages = messageService.getAllMessages();
+    @GetMapping(params = "!cursor")
+    public ResponseEntity<List<MessageResponse>> getMessages(
+            @RequestParam(required = false) Category category,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
         
-        List<MessageResponse> responses = messages.stream()
-                .map(message -> {
-                    // Count the number of notifications sent for this message
-                    long notificationsSent = notificationRepository.findAll().stream()
-                            .filter(n -> n.getMessage().getId().equals(message.getId()) && n.isSent())
-                            .count();
-                    
-                    return MessageResponse.fromMessage(message, (int) notificationsSent);
-                })
-                .collect(Collectors.toList());
+        return ResponseEntity.ok(page(category, from, to, PageCursor.FIRST, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * Retrieves one page of messages, newest first, with the cursor of the next one.
+     * Selected by the {@code cursor} parameter, empty for the first page.
+     *
+     * @param category The category of the messages, or all if omitted
+     * @param from The start of the time range, inclusive; the beginning of time if omitted
+     * @param to The end of the time range, exclusive; no end if omitted
+     * @param cursor The nextCursor of the previous page, or empty for the first page
+     * @param size The page size (default 50, at most {@value #MAX_PAGE_SIZE})
+     * @return The page of messages and the cursor of the next page (null on the last page),
+     * or 400 if the cursor is malformed
+     */
+    @GetMapping(params = "cursor")
+    public ResponseEntity<Map<String, Object>> getMessagePage(
+            @RequestParam(required = false) Category category,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        
+        PageCursor after;
+        try {
+            after = PageCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
         
-        return ResponseEntity.ok(responses);
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<MessageResponse> page = page(category, from, to, after, pageSize);
+        
+        String nextCursor = page.size() == pageSize
+                ? PageCursor.after(page.get(page.size() - 1)).encode()
+                : null;
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("messages", page);
+        response.put("nextCursor", nextCursor);
+        return ResponseEntity.ok(response);
     }
 
     /**
@@ -73,18 +119,40 @@ public class MessageController {
      */
     @GetMapping("/{id}")
     public ResponseEntity<MessageResponse> getMessageById(@PathVariable Long id) {
-        Message message = messageService.getMessageById(id);
+        MessageSnapshot message = messageService.getMessageById(id);
         
         if (message == null) {
             return ResponseEntity.notFound().build();
         }
         
-        // Count the number of notifications sent for this message
-        long notificationsSent = notificationRepository.findAll().stream()
-                .filter(n -> n.getMessage().getId().equals(message.getId()) && n.isSent())
-                .count();
-        
-        MessageResponse response = MessageResponse.fromMessage(message, (int) notificationsSent);
+        MessageResponse response = MessageResponse.fromSnapshot(message);
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * Retrieves the fan-out progress of an asynchronously dispatched message
+     *
+     * @param dispatchId The dispatch ID returned when the message was created
+     * @return The dispatch status, or 404 if not found
+     */
+    @GetMapping("/dispatches/{dispatchId}")
+    public ResponseEntity<DispatchStatusResponse> getDispatch(@PathVariable String dispatchId) {
+        OutboxEntry entry = messageService.getDispatch(dispatchId);
+        
+        if (entry == null) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        return ResponseEntity.ok(DispatchStatusResponse.fromOutboxEntry(entry));
+    }
+
+    private List<MessageResponse> page(Category category, LocalDateTime from, LocalDateTime to,
+                                       PageCursor after, int size) {
+        LocalDateTime start = from != null ? from : LocalDateTime.of(1970, 1, 1, 0, 0);
+        
+        // The counts are kept on the messages, no notification row is read
+        return messageService.getMessages(category, start, to, after, size).stream()
+                .map(MessageResponse::fromMessage)
+                .collect(Collectors.toList());
+    }
 }
\ No newline at end of file
@@ -1,16 +1,37 @@
 package com.notification.service.controller;
 
+import com.notification.service.config.NotificationProperties;
+import com.notification.service.dto.PageCursor;
 import com.notification.service.dto.NotificationLogResponse;
-import com.notification.service.model.Notification;
+import com.notification.service.dto.RateLimitStatusResponse;
+import com.notification.service.model.enums.Channel;
+import com.notification.service.model.enums.ExportFormat;
+import com.notification.service.service.ChannelRateLimiter;
+import com.notification.service.service.NotificationExportService;
 import com.notification.service.service.NotificationLogService;
+import com.notification.service.service.NotificationStatistics;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
 
 @RestController
@@ -19,28 +40,50 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class NotificationLogController {
 
+    private static final int MAX_PAGE_SIZE = 500;
+
     private final NotificationLogService notificationLogService;
+    private final ChannelRateLimiter channelRateLimiter;
+    private final NotificationStatistics notificationStatistics;
+    private final NotificationExportService notificationExportService;
+    private final NotificationProperties notificationProperties;
 
     /**
-     * Retrieves all notifications with pagination
+     * Retrieves all notifications, newest first, with pagination.
+     * With a {@code cursor} parameter (empty for the first page) pages are read by seeking from the previous
+     * page's cursor instead of by number: deep pages cost the same as the first one and no count is run;
+     * the total is an approximation from the notification statistics.
      *
-     * @param page The page number (0-based)
-     * @param size The page size
-     * @return A page of notifications
+     * @param page The page number (0-based), ignored in cursor mode
+     * @param size The page size, at most {@value #MAX_PAGE_SIZE} in cursor mode
+     * @param cursor The cursor returned with the previous page, to page by cursor
+     * @return A page of notifications, or 400 if the cursor is malformed
      */
     @GetMapping
     public ResponseEntity<Map<String, Object>> getAllNotifications(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor) {
         
-        Page<Notification> notificationsPage = notificationLogService.getAllNotifications(page, size);
+        if (cursor != null) {
+            PageCursor after;
+            try {
+                after = PageCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+            
+            int pageSize = pageSize(size);
+            Map<String, Object> response = cursorPage(notificationLogService.getNotificationsAfter(after, pageSize), pageSize);
+            response.put("approximateTotalItems", notificationStatistics.snapshot().total());
+            
+            return ResponseEntity.ok(response);
+        }
         
-        List<NotificationLogResponse> notifications = notificationsPage.getContent().stream()
-                .map(NotificationLogResponse::fromNotification)
-                .collect(Collectors.toList());
+        Page<NotificationLogResponse> notificationsPage = notificationLogService.getAllNotifications(page, size);
         
         Map<String, Object> response = new HashMap<>();
-        response.put("notifications", notifications);
+        response.put("notifications", notificationsPage.getContent());
         response.put("currentPage", notificationsPage.getNumber());
         response.put("totalItems", notificationsPage.getTotalElements());
         response.put("totalPages", notificationsPage.getTotalPages());
@@ -49,34 +92,147 @@ public class NotificationLogController {
     }
 
     /**
-     * Retrieves notification statistics
+     * Retrieves notification statistics, overall and per channel and category.
+     * Served from in-memory counters; deliveries made on other nodes show up once they are checkpointed.
      *
      * @return Statistics about notifications
      */
     @GetMapping("/stats")
     public ResponseEntity<Map<String, Object>> getNotificationStats() {
+        NotificationStatistics.Snapshot snapshot = notificationStatistics.snapshot();
+        
         Map<String, Object> stats = new HashMap<>();
-        stats.put("totalNotifications", notificationLogService.countNotifications());
-        stats.put("sentNotifications", notificationLogService.countSentNotifications());
-        stats.put("failedNotifications", notificationLogService.countNotifications() - notificationLogService.countSentNotifications());
+        stats.put("totalNotifications", snapshot.total());
+        stats.put("sentNotifications", snapshot.sent());
+        stats.put("failedNotifications", snapshot.failed());
+        stats.put("byChannel", snapshot.byChannel());
+        stats.put("byCategory", snapshot.byCategory());
         
         return ResponseEntity.ok(stats);
     }
 
     /**
-     * Retrieves notifications by sent status
+     * Exports the notifications created in a time range, oldest first, as NDJSON or CSV.
+     * The response is streamed while the notifications are read, so exports of any size use constant memory,
+     * and is timed out after {@code notification.export.timeout-ms} rather than the default async timeout.
      *
-     * @param sent The sent status to filter by
-     * @return A list of notifications with the specified sent status
+     * @param format ndjson (default) or csv
+     * @param from The start of the time range, inclusive; the beginning of time if omitted
+     * @param to The end of the time range, exclusive; now if omitted
+     * @param channel The channel to export, or all if omitted
+     * @param sent The sent status to export, or both if omitted
+     * @return The streamed export, or 400 if the format is unknown
      */
-    @GetMapping("/status/{sent}")
-    public ResponseEntity<List<NotificationLogResponse>> getNotificationsBySentStatus(@PathVariable boolean sent) {
-        List<Notification> notifications = notificationLogService.getNotificationsBySentStatus(sent);
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportNotifications(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Channel channel,
+            @RequestParam(required = false) Boolean sent,
+            HttpServletRequest request) {
         
-        List<NotificationLogResponse> responses = notifications.stream()
-                .map(NotificationLogResponse::fromNotification)
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        LocalDateTime start = from != null ? from : LocalDateTime.of(1970, 1, 1, 0, 0);
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        
+        StreamingResponseBody body = out -> notificationExportService.export(start, end, channel, sent, exportFormat, out);
+        setAsyncTimeout(request, notificationProperties.getExport().getTimeoutMs());
+        
+        return ResponseEntity.ok()
+                .contentType(exportFormat == ExportFormat.CSV
+                        ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                        : new MediaType("application", "x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("notifications." + exportFormat.name().toLowerCase(Locale.ROOT))
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
+    /**
+     * Retrieves the state of the delivery rate limits: permits available now and time spent waiting for them
+     *
+     * @return One entry per rate-limited channel and provider account
+     */
+    @GetMapping("/rate-limits")
+    public ResponseEntity<List<RateLimitStatusResponse>> getRateLimits() {
+        List<RateLimitStatusResponse> responses = channelRateLimiter.getBuckets().stream()
+                .map(RateLimitStatusResponse::fromTokenBucket)
                 .collect(Collectors.toList());
         
         return ResponseEntity.ok(responses);
     }
-}
\ No newline at end of file
+
+    /**
+     * Retrieves notifications by sent status, newest first, one page at a time.
+     * Each page returns the cursor of the next one, which is null after the last page.
+     *
+     * @param sent The sent status to filter by
+     * @param cursor The cursor returned with the previous page, or none for the first page
+     * @param size The page size, at most {@value #MAX_PAGE_SIZE}
+     * @return A page of notifications with the specified sent status, or 400 if the cursor is malformed
+     */
+    @GetMapping("/status/{sent}")
+    public ResponseEntity<Map<String, Object>> getNotificationsBySentStatus(
+            @PathVariable boolean sent,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        
+        PageCursor after;
+        try {
+            after = PageCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        int pageSize = pageSize(size);
+        List<NotificationLogResponse> page = notificationLogService.getNotificationsBySentStatus(sent, after, pageSize);
+        
+        return ResponseEntity.ok(cursorPage(page, pageSize));
+    }
+    
+    /**
+     * Sets the timeout of the async processing a streamed response is about to start for this request only:
+     * the interceptor runs just before the async request starts, once the default timeout has been applied
+     */
+    private static void setAsyncTimeout(HttpServletRequest request, long timeoutMs) {
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(AsyncTimeout.class.getName(),
+                new AsyncTimeout(timeoutMs));
+    }
+    
+    private static int pageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+    
+    /**
+     * Builds the response of a cursor-paged list: the notifications and the cursor of the next page,
+     * null when the page is not full and so is the last one
+     */
+    private static Map<String, Object> cursorPage(List<NotificationLogResponse> page, int pageSize) {
+        String nextCursor = page.size() == pageSize
+                ? PageCursor.after(page.get(page.size() - 1)).encode()
+                : null;
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("notifications", page);
+        response.put("nextCursor", nextCursor);
+        return response;
+    }
+    
+    private record AsyncTimeout(long timeoutMs) implements CallableProcessingInterceptor {
+        
+        @Override
+        public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+            if (request instanceof AsyncWebRequest asyncRequest) {
+                asyncRequest.setTimeout(timeoutMs);
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.notification.service.dto;
+
+import com.notification.service.model.OutboxEntry;
+import com.notification.service.model.enums.FanOutMode;
+import com.notification.service.model.enums.OutboxStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DispatchStatusResponse {
+
+    private String dispatchId;
+    private Long messageId;
+    private OutboxStatus status;
+    private FanOutMode fanOutMode;
+    private long lastUserId;
+    private long lastNotificationId;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    public static DispatchStatusResponse fromOutboxEntry(OutboxEntry entry) {
+        return DispatchStatusResponse.builder()
+                .dispatchId(entry.getDispatchId())
+                .messageId(entry.getMessage().getId())
+                .status(entry.getStatus())
+                .fanOutMode(entry.getFanOutMode())
+                .lastUserId(entry.getLastUserId())
+                .lastNotificationId(entry.getLastNotificationId())
+                .createdAt(entry.getCreatedAt())
+                .updatedAt(entry.getUpdatedAt())
+                .build();
+    }
+}
@@ -1,7 +1,9 @@
 package com.notification.service.dto;
 
 import com.notification.service.model.Message;
+import com.notification.service.model.MessageSnapshot;
 import com.notification.service.model.enums.Category;
+import com.notification.service.service.MessageDispatch;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -20,14 +22,34 @@ public class MessageResponse {
     private String content;
     private LocalDateTime createdAt;
     private int notificationsSent;
+    private int notificationsFailed;
+    private String dispatchId;
 
-    public static MessageResponse fromMessage(Message message, int notificationsSent) {
+    public static MessageResponse fromMessage(Message message) {
         return MessageResponse.builder()
                 .id(message.getId())
                 .category(message.getCategory())
                 .content(message.getContent())
                 .createdAt(message.getCreatedAt())
-                .notificationsSent(notificationsSent)
+                .notificationsSent(message.getSentCount())
+                .notificationsFailed(message.getFailedCount())
                 .build();
     }
+
+    public static MessageResponse fromSnapshot(MessageSnapshot message) {
+        return MessageResponse.builder()
+                .id(message.id())
+                .category(message.category())
+                .content(message.content())
+                .createdAt(message.createdAt())
+                .notificationsSent(message.sentCount())
+                .notificationsFailed(message.failedCount())
+                .build();
+    }
+
+    public static MessageResponse fromDispatch(MessageDispatch dispatch) {
+        MessageResponse response = fromMessage(dispatch.message());
+        response.setDispatchId(dispatch.dispatchId());
+        return response;
+    }
 }
\ No newline at end of file
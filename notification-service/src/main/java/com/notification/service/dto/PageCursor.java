@@ -0,0 +1,81 @@
+package com.notification.service.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque position in a list of notifications or messages ordered newest first, by creation date then ID.
+ * The next page starts right after it, so pages stay stable while rows are added.
+ */
+public record PageCursor(LocalDateTime createdAt, long id) {
+
+    /**
+     * Position before the newest row, to read the first page
+     */
+    public static final PageCursor FIRST = new PageCursor(LocalDateTime.of(9999, 12, 31, 0, 0), Long.MAX_VALUE);
+
+    /**
+     * Returns the position of a notification log entry, the next page starts right after it
+     *
+     * @param entry The last entry of a page
+     * @return The cursor of the next page
+     */
+    public static PageCursor after(NotificationLogResponse entry) {
+        return new PageCursor(entry.getCreatedAt(), entry.getId());
+    }
+
+    /**
+     * Returns the position of a message, the next page starts right after it
+     *
+     * @param message The last message of a page
+     * @return The cursor of the next page
+     */
+    public static PageCursor after(MessageResponse message) {
+        return new PageCursor(message.getCreatedAt(), message.getId());
+    }
+
+    /**
+     * Returns the earlier of this position and the one right before a point in time, so a page
+     * starting there only holds rows created before that point
+     *
+     * @param end The exclusive end of the time range
+     * @return The cursor to seek from
+     */
+    public PageCursor before(LocalDateTime end) {
+        return end.isAfter(createdAt) ? this : new PageCursor(end, Long.MIN_VALUE);
+    }
+
+    /**
+     * Decodes a cursor returned by {@link #encode}
+     *
+     * @param cursor The encoded cursor, or null to start from the newest row
+     * @return The decoded cursor
+     * @throws IllegalArgumentException If the cursor is malformed
+     */
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return FIRST;
+        }
+
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf('|');
+            return new PageCursor(LocalDateTime.parse(decoded.substring(0, separator)),
+                    Long.parseLong(decoded.substring(separator + 1)));
+        } catch (IndexOutOfBoundsException | DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor: " + cursor, e);
+        }
+    }
+
+    /**
+     * Encodes the cursor as a URL-safe string
+     *
+     * @return The encoded cursor
+     */
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
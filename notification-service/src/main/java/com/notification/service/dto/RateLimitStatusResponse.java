@@ -0,0 +1,41 @@
+package com.notification.service.dto;
+
+import com.notification.service.service.TokenBucket;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.concurrent.TimeUnit;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RateLimitStatusResponse {
+
+    private String name;
+    private double permitsPerSecond;
+    private int capacity;
+    private int availablePermits;
+    private long acquiredPermits;
+    private long throttledAcquires;
+    private long totalWaitMs;
+    private double averageWaitMs;
+
+    public static RateLimitStatusResponse fromTokenBucket(TokenBucket bucket) {
+        long waitNanos = bucket.getWaitNanos();
+        long throttled = bucket.getThrottledAcquires();
+
+        return RateLimitStatusResponse.builder()
+                .name(bucket.getName())
+                .permitsPerSecond(bucket.getPermitsPerSecond())
+                .capacity(bucket.getCapacity())
+                .availablePermits(bucket.availablePermits())
+                .acquiredPermits(bucket.getAcquiredPermits())
+                .throttledAcquires(throttled)
+                .totalWaitMs(TimeUnit.NANOSECONDS.toMillis(waitNanos))
+                .averageWaitMs(throttled == 0 ? 0 : waitNanos / 1_000_000.0 / throttled)
+                .build();
+    }
+}
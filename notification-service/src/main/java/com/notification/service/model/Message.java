@@ -6,6 +6,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 
@@ -21,7 +22,6 @@ public class Message {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private Category category;
 
@@ -31,8 +31,19 @@ public class Message {
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
+    // Maintained by MessageRepository.addNotificationCounts as notifications are written, never by the entity
+    @ColumnDefault("0")
+    @Column(name = "sent_count", nullable = false, insertable = false, updatable = false)
+    private int sentCount;
+
+    @ColumnDefault("0")
+    @Column(name = "failed_count", nullable = false, insertable = false, updatable = false)
+    private int failedCount;
+
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
     }
 }
\ No newline at end of file
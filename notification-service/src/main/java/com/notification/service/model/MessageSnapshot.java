@@ -0,0 +1,19 @@
+package com.notification.service.model;
+
+import com.notification.service.model.enums.Category;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable copy of a message as it was read, safe to share between threads and to keep in a cache
+ *
+ * @param id The ID of the message
+ * @param category The category of the message
+ * @param content The content of the message
+ * @param createdAt When the message was created
+ * @param sentCount The number of notifications sent for the message
+ * @param failedCount The number of notifications that failed for the message
+ */
+public record MessageSnapshot(Long id, Category category, String content, LocalDateTime createdAt,
+                              int sentCount, int failedCount) {
+}
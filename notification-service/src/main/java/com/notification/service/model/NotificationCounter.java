@@ -0,0 +1,48 @@
+package com.notification.service.model;
+
+import com.notification.service.model.enums.Category;
+import com.notification.service.model.enums.Channel;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+@Entity
+@Table(name = "notification_counters")
+@IdClass(NotificationCounter.Key.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationCounter {
+
+    @Id
+    @Column(nullable = false)
+    private Category category;
+
+    @Id
+    @Column(nullable = false)
+    private Channel channel;
+
+    @Column(name = "sent_count", nullable = false)
+    private long sentCount;
+
+    @Column(name = "failed_count", nullable = false)
+    private long failedCount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private Category category;
+        private Channel channel;
+    }
+}
@@ -0,0 +1,90 @@
+package com.notification.service.model;
+
+import com.notification.service.model.enums.FanOutMode;
+import com.notification.service.model.enums.OutboxStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A message whose fan-out has not finished yet. The entry is written in the same
+ * transaction as the message and records how far the fan-out got, so it can resume after a crash.
+ */
+@Entity
+@Table(name = "notification_outbox")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "dispatch_id", nullable = false, unique = true, length = 36)
+    private String dispatchId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "message_id", nullable = false)
+    private Message message;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private OutboxStatus status;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "fan_out_mode", nullable = false, length = 20)
+    private FanOutMode fanOutMode;
+
+    /**
+     * ID of the last subscriber whose notifications were committed; entity fan-out resumes after it
+     */
+    @Column(name = "last_user_id", nullable = false)
+    private long lastUserId;
+
+    /**
+     * Number of subscribers an entity fan-out has read so far
+     */
+    @Column(name = "audience_size", nullable = false)
+    private int audienceSize;
+
+    /**
+     * Whether the notification rows were already generated by a set-based fan-out
+     */
+    @Column(name = "audience_expanded", nullable = false)
+    private boolean audienceExpanded;
+
+    /**
+     * ID of the last delivered notification; set-based delivery resumes after it
+     */
+    @Column(name = "last_notification_id", nullable = false)
+    private long lastNotificationId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+        if (status == null) {
+            status = OutboxStatus.PENDING;
+        }
+        if (fanOutMode == null) {
+            fanOutMode = FanOutMode.ENTITY;
+        }
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
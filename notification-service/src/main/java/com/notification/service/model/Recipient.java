@@ -0,0 +1,34 @@
+package com.notification.service.model;
+
+import com.notification.service.model.enums.BitMasks;
+import com.notification.service.model.enums.Channel;
+
+/**
+ * Read-only view of a subscriber holding only what fan-out needs
+ *
+ * @param userId The ID of the user
+ * @param email The email address of the user
+ * @param phoneNumber The phone number of the user, may be null
+ * @param channelMask The user's preferred channels, one {@link BitMasks#bit} bit each
+ */
+public record Recipient(Long userId, String email, String phoneNumber, int channelMask) {
+
+    public boolean hasChannel(Channel channel) {
+        return (channelMask & BitMasks.bit(channel)) != 0;
+    }
+
+    /**
+     * Builds a detached, unmanaged user carrying this recipient's contact details, for the
+     * channel services and as the notification's user reference
+     *
+     * @return A lightweight user
+     */
+    public User toUser() {
+        return User.builder()
+                .id(userId)
+                .email(email)
+                .phoneNumber(phoneNumber)
+                .channels(BitMasks.fromMask(Channel.class, channelMask))
+                .build();
+    }
+}
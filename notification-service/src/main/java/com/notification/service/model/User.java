@@ -1,5 +1,7 @@
 package com.notification.service.model;
 
+import com.notification.service.model.converter.CategorySetConverter;
+import com.notification.service.model.converter.ChannelSetConverter;
 import com.notification.service.model.enums.Category;
 import com.notification.service.model.enums.Channel;
 import jakarta.persistence.*;
@@ -31,15 +33,12 @@ public class User {
     @Column(name = "phone_number")
     private String phoneNumber;
 
-    @ElementCollection(fetch = FetchType.EAGER)
-    @CollectionTable(name = "user_subscriptions", joinColumns = @JoinColumn(name = "user_id"))
-    @Enumerated(EnumType.STRING)
-    @Column(name = "category")
+    // Stored as bitmasks, one bit per category or channel code
+    @Convert(converter = CategorySetConverter.class)
+    @Column(nullable = false)
     private Set<Category> subscriptions;
 
-    @ElementCollection(fetch = FetchType.EAGER)
-    @CollectionTable(name = "user_channels", joinColumns = @JoinColumn(name = "user_id"))
-    @Enumerated(EnumType.STRING)
-    @Column(name = "channel")
+    @Convert(converter = ChannelSetConverter.class)
+    @Column(nullable = false)
     private Set<Channel> channels;
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.notification.service.model.converter;
+
+import com.notification.service.model.enums.BitMasks;
+import com.notification.service.model.enums.Category;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores categories as their smallint {@link Category#code()} rather than their name
+ */
+@Converter(autoApply = true)
+public class CategoryConverter implements AttributeConverter<Category, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(Category category) {
+        return category == null ? null : (short) category.code();
+    }
+
+    @Override
+    public Category convertToEntityAttribute(Short code) {
+        return code == null ? null : BitMasks.fromCode(Category.class, code);
+    }
+}
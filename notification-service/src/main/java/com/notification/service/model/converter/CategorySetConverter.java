@@ -0,0 +1,27 @@
+package com.notification.service.model.converter;
+
+import com.notification.service.model.enums.BitMasks;
+import com.notification.service.model.enums.Category;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.hibernate.annotations.Mutability;
+
+import java.util.Set;
+
+/**
+ * Stores a set of categories as a smallint mask with one {@link BitMasks#bit} bit per category
+ */
+@Converter
+@Mutability(EnumSetMutabilityPlan.class)
+public class CategorySetConverter implements AttributeConverter<Set<Category>, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(Set<Category> categories) {
+        return (short) BitMasks.toMask(categories);
+    }
+
+    @Override
+    public Set<Category> convertToEntityAttribute(Short mask) {
+        return BitMasks.fromMask(Category.class, mask == null ? 0 : mask);
+    }
+}
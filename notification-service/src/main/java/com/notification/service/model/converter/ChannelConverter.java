@@ -0,0 +1,23 @@
+package com.notification.service.model.converter;
+
+import com.notification.service.model.enums.BitMasks;
+import com.notification.service.model.enums.Channel;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores channels as their smallint {@link Channel#code()} rather than their name
+ */
+@Converter(autoApply = true)
+public class ChannelConverter implements AttributeConverter<Channel, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(Channel channel) {
+        return channel == null ? null : (short) channel.code();
+    }
+
+    @Override
+    public Channel convertToEntityAttribute(Short code) {
+        return code == null ? null : BitMasks.fromCode(Channel.class, code);
+    }
+}
@@ -0,0 +1,27 @@
+package com.notification.service.model.converter;
+
+import com.notification.service.model.enums.BitMasks;
+import com.notification.service.model.enums.Channel;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.hibernate.annotations.Mutability;
+
+import java.util.Set;
+
+/**
+ * Stores a set of channels as a smallint mask with one {@link BitMasks#bit} bit per channel
+ */
+@Converter
+@Mutability(EnumSetMutabilityPlan.class)
+public class ChannelSetConverter implements AttributeConverter<Set<Channel>, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(Set<Channel> channels) {
+        return (short) BitMasks.toMask(channels);
+    }
+
+    @Override
+    public Set<Channel> convertToEntityAttribute(Short mask) {
+        return BitMasks.fromMask(Channel.class, mask == null ? 0 : mask);
+    }
+}
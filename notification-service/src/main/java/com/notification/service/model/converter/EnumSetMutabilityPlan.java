@@ -0,0 +1,21 @@
+package com.notification.service.model.converter;
+
+import org.hibernate.type.descriptor.java.MutableMutabilityPlan;
+
+import java.io.Serial;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Snapshots sets of enums by copy, so changing a set in place still marks its mask column dirty
+ */
+public class EnumSetMutabilityPlan extends MutableMutabilityPlan<Set<?>> {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected Set<?> deepCopyNotNull(Set<?> value) {
+        return new HashSet<>(value);
+    }
+}
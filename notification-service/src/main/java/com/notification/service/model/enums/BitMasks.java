@@ -0,0 +1,89 @@
+package com.notification.service.model.enums;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Converts between {@link Coded} enums and their codes, and between sets of them and bit masks
+ * with the bit of each code set
+ */
+public final class BitMasks {
+
+    // Codes fit in the smallint columns the masks are stored in
+    private static final int MAX_CODES = 16;
+
+    private static final ClassValue<Enum<?>[]> BY_CODE = new ClassValue<>() {
+        @Override
+        protected Enum<?>[] computeValue(Class<?> type) {
+            Enum<?>[] byCode = new Enum<?>[MAX_CODES];
+            for (Object constant : type.getEnumConstants()) {
+                byCode[((Coded) constant).code()] = (Enum<?>) constant;
+            }
+            return byCode;
+        }
+    };
+
+    private BitMasks() {
+    }
+
+    /**
+     * Returns the bit representing a constant in a mask
+     *
+     * @param value The constant
+     * @return The bit of its code
+     */
+    public static int bit(Coded value) {
+        return 1 << value.code();
+    }
+
+    /**
+     * Returns the constant with a code
+     *
+     * @param type The enum
+     * @param code The code
+     * @return The constant
+     * @throws IllegalArgumentException If no constant has this code
+     */
+    public static <E extends Enum<E> & Coded> E fromCode(Class<E> type, int code) {
+        E value = code >= 0 && code < MAX_CODES ? type.cast(BY_CODE.get(type)[code]) : null;
+        if (value == null) {
+            throw new IllegalArgumentException("Unknown " + type.getSimpleName() + " code " + code);
+        }
+        return value;
+    }
+
+    /**
+     * Expands a mask into the set of constants it contains; bits without a constant are ignored
+     *
+     * @param type The enum
+     * @param mask The mask
+     * @return The constants whose bit is set
+     */
+    public static <E extends Enum<E> & Coded> Set<E> fromMask(Class<E> type, int mask) {
+        Set<E> values = EnumSet.noneOf(type);
+        Enum<?>[] byCode = BY_CODE.get(type);
+        for (int bits = mask & ((1 << MAX_CODES) - 1); bits != 0; bits &= bits - 1) {
+            Enum<?> value = byCode[Integer.numberOfTrailingZeros(bits)];
+            if (value != null) {
+                values.add(type.cast(value));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Combines constants into a mask
+     *
+     * @param values The constants, may be null
+     * @return The mask with the bit of each constant set
+     */
+    public static int toMask(Set<? extends Coded> values) {
+        int mask = 0;
+        if (values != null) {
+            for (Coded value : values) {
+                mask |= bit(value);
+            }
+        }
+        return mask;
+    }
+}
@@ -1,7 +1,22 @@
 package com.notification.service.model.enums;
 
-public enum Category {
-    SPORTS,
-    FINANCE,
-    MOVIES
-}
\ No newline at end of file
+/**
+ * Message category. Each category has a fixed code, stored in the messages table and
+ * as its bit in the users' subscription masks; codes must never change or be reused.
+ */
+public enum Category implements Coded {
+    SPORTS(0),
+    FINANCE(1),
+    MOVIES(2);
+
+    private final int code;
+
+    Category(int code) {
+        this.code = code;
+    }
+
+    @Override
+    public int code() {
+        return code;
+    }
+}
@@ -1,7 +1,22 @@
 package com.notification.service.model.enums;
 
-public enum Channel {
-    SMS,
-    EMAIL,
-    PUSH_NOTIFICATION
-}
\ No newline at end of file
+/**
+ * Delivery channel. Each channel has a fixed code, stored in the notifications table and
+ * as its bit in the users' channel masks; codes must never change or be reused.
+ */
+public enum Channel implements Coded {
+    SMS(0),
+    EMAIL(1),
+    PUSH_NOTIFICATION(2);
+
+    private final int code;
+
+    Channel(int code) {
+        this.code = code;
+    }
+
+    @Override
+    public int code() {
+        return code;
+    }
+}
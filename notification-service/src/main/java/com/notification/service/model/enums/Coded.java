@@ -0,0 +1,15 @@
+package com.notification.service.model.enums;
+
+/**
+ * An enum stored as a fixed code rather than its name or ordinal. The code is also the position of its bit
+ * in the masks {@link BitMasks} builds, so codes must never change or be reused.
+ */
+public interface Coded {
+
+    /**
+     * Returns the code stored for this constant
+     *
+     * @return The code, between 0 and 15
+     */
+    int code();
+}
@@ -0,0 +1,13 @@
+package com.notification.service.model.enums;
+
+public enum ExportFormat {
+    /**
+     * One JSON object per line
+     */
+    NDJSON,
+
+    /**
+     * Comma-separated values with a header row
+     */
+    CSV
+}
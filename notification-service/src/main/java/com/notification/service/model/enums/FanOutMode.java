@@ -0,0 +1,14 @@
+package com.notification.service.model.enums;
+
+public enum FanOutMode {
+    /**
+     * Subscribers are loaded as entities and notifications are built in Java
+     */
+    ENTITY,
+
+    /**
+     * Notification rows are generated in the database with a single INSERT ... SELECT
+     * and then delivered in chunks
+     */
+    SET_BASED
+}
@@ -0,0 +1,6 @@
+package com.notification.service.model.enums;
+
+public enum OutboxStatus {
+    PENDING,
+    COMPLETED
+}
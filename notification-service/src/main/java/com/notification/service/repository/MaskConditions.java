@@ -0,0 +1,41 @@
+package com.notification.service.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+/**
+ * Renders the SQL conditions testing bits of the users' subscription and channel masks.
+ * PostgreSQL gets the {@code &} operator: with a literal mask the planner matches the condition against
+ * the per-bit partial indexes on users. Other databases, such as H2, get BITAND.
+ */
+final class MaskConditions {
+
+    private final EntityManager entityManager;
+    private volatile Boolean postgres;
+
+    MaskConditions(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Returns a condition that holds when a mask column shares at least one bit with a mask
+     *
+     * @param column The mask column
+     * @param mask A literal mask or an SQL expression; masks that should use an index must be literals
+     * @return The SQL condition
+     */
+    String anyBitSet(String column, String mask) {
+        return isPostgres()
+                ? "(" + column + " & " + mask + ") <> 0"
+                : "BITAND(" + column + ", " + mask + ") <> 0";
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            postgres = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                    .getJdbcServices().getDialect() instanceof PostgreSQLDialect;
+        }
+        return postgres;
+    }
+}
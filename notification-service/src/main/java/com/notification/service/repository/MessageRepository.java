@@ -1,19 +1,106 @@
 package com.notification.service.repository;
 
+import com.notification.service.config.CacheConfig;
 import com.notification.service.model.Message;
+import com.notification.service.model.MessageSnapshot;
 import com.notification.service.model.enums.Category;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface MessageRepository extends JpaRepository<Message, Long> {
     
+    /**
+     * Looks a message up in the message cache, loading it on a miss. Concurrent misses for the same
+     * message wait for a single load. The cache holds immutable snapshots rather than entities,
+     * so no caller can change what the others read.
+     */
+    @Cacheable(cacheNames = CacheConfig.MESSAGES, sync = true)
+    @Query("SELECT new com.notification.service.model.MessageSnapshot(m.id, m.category, m.content, m.createdAt, " +
+           "m.sentCount, m.failedCount) FROM Message m WHERE m.id = :id")
+    Optional<MessageSnapshot> findSnapshotById(@Param("id") Long id);
+    
+    // Writes drop the messages they change from the message cache once the transaction commits,
+    // including a cached miss for a message created after it was looked up
+    
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.MESSAGES, key = "#result.id")
+    <S extends Message> S save(S message);
+    
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.MESSAGES, key = "#result.id")
+    <S extends Message> S saveAndFlush(S message);
+    
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.MESSAGES, allEntries = true)
+    <S extends Message> List<S> saveAll(Iterable<S> messages);
+    
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.MESSAGES, allEntries = true)
+    <S extends Message> List<S> saveAllAndFlush(Iterable<S> messages);
+    
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.MESSAGES, key = "#id")
+    void deleteById(Long id);
+    
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.MESSAGES, key = "#message.id")
+    void delete(Message message);
+    
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.MESSAGES, allEntries = true)
+    void deleteAll(Iterable<? extends Message> messages);
+    
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.MESSAGES, allEntries = true)
+    void deleteAll();
+    
     List<Message> findByCategory(Category category);
     
     List<Message> findByCreatedAtAfter(LocalDateTime dateTime);
     
     List<Message> findByCategoryAndCreatedAtBetween(Category category, LocalDateTime start, LocalDateTime end);
+    
+    /**
+     * Returns the messages created since a point in time that follow a (createdAt, id) position, newest first.
+     * The keyset condition seeks the (created_at, id) index; the redundant bound on created_at gives the seek its start key.
+     */
+    @Query("SELECT m FROM Message m " +
+           "WHERE m.createdAt >= :from AND m.createdAt <= :createdAt " +
+           "AND (m.createdAt < :createdAt OR (m.createdAt = :createdAt AND m.id < :id)) " +
+           "ORDER BY m.createdAt DESC, m.id DESC")
+    List<Message> findPageAfter(@Param("from") LocalDateTime from, @Param("createdAt") LocalDateTime createdAt,
+                                @Param("id") long id, Pageable pageable);
+    
+    /**
+     * Same as {@link #findPageAfter} for a single category, seeking the (category, created_at, id) index
+     */
+    @Query("SELECT m FROM Message m " +
+           "WHERE m.category = :category AND m.createdAt >= :from AND m.createdAt <= :createdAt " +
+           "AND (m.createdAt < :createdAt OR (m.createdAt = :createdAt AND m.id < :id)) " +
+           "ORDER BY m.createdAt DESC, m.id DESC")
+    List<Message> findPageByCategoryAfter(@Param("category") Category category, @Param("from") LocalDateTime from,
+                                          @Param("createdAt") LocalDateTime createdAt, @Param("id") long id,
+                                          Pageable pageable);
+    
+    /**
+     * Adds to the sent and failed notification counters of a message in place, so concurrent
+     * writers of the same message never overwrite each other's counts. The cached message is dropped
+     * once the transaction commits.
+     */
+    @Modifying
+    @CacheEvict(cacheNames = CacheConfig.MESSAGES, key = "#messageId")
+    @Query("UPDATE Message m SET m.sentCount = m.sentCount + :sent, m.failedCount = m.failedCount + :failed " +
+           "WHERE m.id = :messageId")
+    int addNotificationCounts(@Param("messageId") Long messageId, @Param("sent") int sent, @Param("failed") int failed);
 }
\ No newline at end of file
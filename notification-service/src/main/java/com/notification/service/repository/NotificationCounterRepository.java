@@ -0,0 +1,43 @@
+package com.notification.service.repository;
+
+import com.notification.service.model.NotificationCounter;
+import com.notification.service.model.enums.Category;
+import com.notification.service.model.enums.Channel;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface NotificationCounterRepository extends JpaRepository<NotificationCounter, NotificationCounter.Key> {
+    
+    /**
+     * Adds to a counter in place, so the checkpoints of several nodes never overwrite each other
+     * 
+     * @return The number of counters updated, 0 if the counter does not exist yet
+     */
+    @Modifying
+    @Query("UPDATE NotificationCounter c SET c.sentCount = c.sentCount + :sent, c.failedCount = c.failedCount + :failed " +
+           "WHERE c.category = :category AND c.channel = :channel")
+    int addCounts(@Param("category") Category category, @Param("channel") Channel channel,
+                  @Param("sent") long sent, @Param("failed") long failed);
+    
+    /**
+     * Recomputes every counter from the notifications table, in one grouped pass.
+     * The counters must have been deleted first.
+     * 
+     * @return The number of counters created
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO notification_counters (category, channel, sent_count, failed_count)
+            SELECT m.category, n.channel,
+                   SUM(CASE WHEN n.sent THEN 1 ELSE 0 END),
+                   SUM(CASE WHEN NOT n.sent AND n.attempts > 0 THEN 1 ELSE 0 END)
+            FROM notifications n
+            JOIN messages m ON m.id = n.message_id
+            GROUP BY m.category, n.channel
+            """, nativeQuery = true)
+    int insertCountsFromNotifications();
+}
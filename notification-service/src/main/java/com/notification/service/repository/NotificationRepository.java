@@ -1,19 +1,30 @@
 package com.notification.service.repository;
 
+import com.notification.service.dto.NotificationLogResponse;
 import com.notification.service.model.Notification;
 import com.notification.service.model.User;
 import com.notification.service.model.enums.Channel;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface NotificationRepository extends JpaRepository<Notification, Long> {
+public interface NotificationRepository extends JpaRepository<Notification, Long>, NotificationRepositoryCustom {
+    
+    // Constructor expression of the notification log entries, selected from n joined to its message m and user u
+    String LOG_COLUMNS = "new com.notification.service.dto.NotificationLogResponse(" +
+            "n.id, m.id, m.category, m.content, u.id, u.name, u.email, u.phoneNumber, " +
+            "n.channel, n.sent, n.createdAt, n.sentAt)";
     
     List<Notification> findByUser(User user);
     
@@ -23,8 +34,86 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     
     List<Notification> findByChannelAndSent(Channel channel, boolean sent);
     
+    long countBySent(boolean sent);
+    
     @Query("SELECT n FROM Notification n ORDER BY n.createdAt DESC")
     Page<Notification> findAllOrderByCreatedAtDesc(Pageable pageable);
     
     List<Notification> findBySentAndCreatedAtBefore(boolean sent, LocalDateTime dateTime);
-}
\ No newline at end of file
+    
+    /**
+     * Streams the notification log entries created in a time range, oldest first, through a forward-only cursor.
+     * Only the monthly partitions overlapping the range are read. Must be consumed inside a transaction.
+     * 
+     * @param channel The channel to export, or null for all
+     * @param sent The sent status to export, or null for both
+     */
+    @Query("SELECT " + LOG_COLUMNS + " FROM Notification n JOIN n.message m JOIN n.user u " +
+           "WHERE n.createdAt >= :from AND n.createdAt < :to " +
+           "AND (:channel IS NULL OR n.channel = :channel) AND (:sent IS NULL OR n.sent = :sent) " +
+           "ORDER BY n.createdAt, n.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<NotificationLogResponse> streamLog(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                              @Param("channel") Channel channel, @Param("sent") Boolean sent);
+    
+    /**
+     * Reads a page of the notification log, built directly from the joined rows: one select for the page
+     * and one count, whatever the page size, and no entity is loaded
+     */
+    @Query(value = "SELECT " + LOG_COLUMNS + " FROM Notification n JOIN n.message m JOIN n.user u",
+           countQuery = "SELECT COUNT(n) FROM Notification n")
+    Page<NotificationLogResponse> findLogPage(Pageable pageable);
+    
+    /**
+     * Reads the notification log entries that come after a position, newest first, in a single select.
+     * The keyset condition seeks the (created_at, id) index; the redundant bound on created_at gives the seek its start key
+     * and skips the partitions of later months.
+     */
+    @Query("SELECT " + LOG_COLUMNS + " FROM Notification n JOIN n.message m JOIN n.user u " +
+           "WHERE n.createdAt <= :createdAt " +
+           "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id)) " +
+           "ORDER BY n.createdAt DESC, n.id DESC")
+    List<NotificationLogResponse> findLogAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") long id,
+                                               Pageable pageable);
+    
+    /**
+     * Reads the notification log entries with a sent status that come after a position, newest first,
+     * in a single select seeking the (sent, created_at, id) index
+     */
+    @Query("SELECT " + LOG_COLUMNS + " FROM Notification n JOIN n.message m JOIN n.user u " +
+           "WHERE n.sent = :sent AND n.createdAt <= :createdAt " +
+           "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id)) " +
+           "ORDER BY n.createdAt DESC, n.id DESC")
+    List<NotificationLogResponse> findLogBySentAfter(@Param("sent") boolean sent,
+                                                     @Param("createdAt") LocalDateTime createdAt,
+                                                     @Param("id") long id, Pageable pageable);
+
+    
+    @Query("SELECT n FROM Notification n JOIN FETCH n.user JOIN FETCH n.message " +
+           "WHERE n.message.id = :messageId AND n.sent = false AND n.id > :afterId ORDER BY n.id")
+    List<Notification> findUnsentByMessageAfter(@Param("messageId") Long messageId, @Param("afterId") long afterId, Pageable pageable);
+    
+    /**
+     * Locks the next notifications due for a retry, in due order after a keyset cursor.
+     * Rows locked by another node are skipped rather than waited for.
+     * 
+     * @return The IDs of the locked notifications
+     */
+    @Query(value = """
+            SELECT n.id FROM notifications n
+            WHERE n.sent = FALSE
+              AND n.next_attempt_at <= :now
+              AND (n.next_attempt_at > :afterAttemptAt OR (n.next_attempt_at = :afterAttemptAt AND n.id > :afterId))
+            ORDER BY n.next_attempt_at, n.id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<Long> lockDueForRetry(@Param("now") LocalDateTime now,
+                               @Param("afterAttemptAt") LocalDateTime afterAttemptAt,
+                               @Param("afterId") long afterId,
+                               @Param("limit") int limit);
+    
+    @Query("SELECT n FROM Notification n JOIN FETCH n.user JOIN FETCH n.message " +
+           "WHERE n.id IN :ids ORDER BY n.nextAttemptAt, n.id")
+    List<Notification> findWithUserAndMessageByIdIn(@Param("ids") List<Long> ids);
+}
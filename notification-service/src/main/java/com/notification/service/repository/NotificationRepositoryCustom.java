@@ -0,0 +1,37 @@
+package com.notification.service.repository;
+
+import com.notification.service.model.Notification;
+
+import java.util.List;
+
+/**
+ * Statements of {@link NotificationRepository} whose SQL depends on their arguments or that run as JDBC batches,
+ * implemented in {@link NotificationRepositoryImpl}
+ */
+public interface NotificationRepositoryCustom {
+
+    /**
+     * Generates the pending notification rows of a message in one statement, one row per
+     * subscriber and preferred channel: each user's channel mask is expanded against the codes of all channels.
+     * On PostgreSQL the subscribers are read from the partial index of the category's subscription bit.
+     * The contact checks mirror the channel services' canSendToUser.
+     * Row ids come from the column default, which skips a whole pooled block per row; the BIGINT id space absorbs that.
+     *
+     * @param messageId The ID of the message
+     * @param categoryMask The {@link com.notification.service.model.enums.BitMasks#bit bit} of the message's category
+     * @param emailCode The code of the email channel
+     * @param smsCode The code of the SMS channel
+     * @return The number of notification rows created
+     */
+    int insertPendingForMessage(Long messageId, int categoryMask, int emailCode, int smsCode);
+
+    /**
+     * Writes the delivery state of notifications that are not managed by the persistence context, such as those
+     * of a fan-out chunk sent after its transaction committed, in JDBC batches and without loading them first.
+     * Each row is matched on its ID and creation date, so only the partition of its month is read.
+     *
+     * @param notifications The notifications, with the IDs and creation dates they were saved with
+     * @throws IllegalStateException if a notification's row is not found
+     */
+    void updateDeliveryOutcomes(List<Notification> notifications);
+}
@@ -0,0 +1,85 @@
+package com.notification.service.repository;
+
+import com.notification.service.model.Notification;
+import com.notification.service.model.enums.BitMasks;
+import com.notification.service.model.enums.Channel;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class NotificationRepositoryImpl implements NotificationRepositoryCustom {
+
+    // One (code, mask) row per channel
+    private static final String CHANNELS = Arrays.stream(Channel.values())
+            .map(channel -> "(" + channel.code() + ", " + BitMasks.bit(channel) + ")")
+            .collect(Collectors.joining(", ", "(VALUES ", ") AS c(code, mask)"));
+
+    private final EntityManager entityManager;
+    private final MaskConditions maskConditions;
+
+    public NotificationRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+        this.maskConditions = new MaskConditions(entityManager);
+    }
+
+    @Override
+    public int insertPendingForMessage(Long messageId, int categoryMask, int emailCode, int smsCode) {
+        // The category mask is inlined, a bound parameter would not match the partial index predicate
+        String sql = """
+                INSERT INTO notifications (message_id, user_id, channel, sent, created_at)
+                SELECT :messageId, u.id, c.code, FALSE, NOW()
+                FROM users u
+                CROSS JOIN %s
+                WHERE %s
+                  AND %s
+                  AND (c.code <> :emailCode OR u.email <> '')
+                  AND (c.code <> :smsCode OR (u.phone_number IS NOT NULL AND u.phone_number <> ''))
+                """.formatted(CHANNELS,
+                maskConditions.anyBitSet("u.subscriptions", Integer.toString(categoryMask)),
+                maskConditions.anyBitSet("u.channels", "c.mask"));
+
+        return entityManager.createNativeQuery(sql)
+                .setParameter("messageId", messageId)
+                .setParameter("emailCode", emailCode)
+                .setParameter("smsCode", smsCode)
+                .executeUpdate();
+    }
+
+    @Override
+    public void updateDeliveryOutcomes(List<Notification> notifications) {
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("""
+                    UPDATE notifications SET sent = ?, sent_at = ?, attempts = ?, next_attempt_at = ?
+                    WHERE id = ? AND created_at = ?
+                    """)) {
+                for (Notification notification : notifications) {
+                    statement.setBoolean(1, notification.isSent());
+                    statement.setTimestamp(2, timestamp(notification.getSentAt()));
+                    statement.setInt(3, notification.getAttempts());
+                    statement.setTimestamp(4, timestamp(notification.getNextAttemptAt()));
+                    statement.setLong(5, notification.getId());
+                    statement.setTimestamp(6, timestamp(notification.getCreatedAt()));
+                    statement.addBatch();
+                }
+
+                int[] updated = statement.executeBatch();
+                for (int i = 0; i < updated.length; i++) {
+                    // Drivers may also report PreparedStatement.SUCCESS_NO_INFO, which is negative
+                    if (updated[i] == 0) {
+                        throw new IllegalStateException("Notification " + notifications.get(i).getId() + " not found");
+                    }
+                }
+            }
+        });
+    }
+
+    private static Timestamp timestamp(LocalDateTime dateTime) {
+        return dateTime != null ? Timestamp.valueOf(dateTime) : null;
+    }
+}
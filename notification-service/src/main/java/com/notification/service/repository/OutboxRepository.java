@@ -0,0 +1,29 @@
+package com.notification.service.repository;
+
+import com.notification.service.model.OutboxEntry;
+import com.notification.service.model.enums.OutboxStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OutboxRepository extends JpaRepository<OutboxEntry, Long> {
+
+    Optional<OutboxEntry> findByDispatchId(String dispatchId);
+
+    @Query("SELECT o.id FROM OutboxEntry o WHERE o.status = :status ORDER BY o.id")
+    List<Long> findIdsByStatus(@Param("status") OutboxStatus status, Pageable pageable);
+
+    /**
+     * Locks a pending entry for the current transaction. Returns empty when the entry is
+     * completed or another worker already holds the lock.
+     */
+    @Query(value = "SELECT * FROM notification_outbox WHERE id = :id AND status = 'PENDING' FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    Optional<OutboxEntry> lockPendingById(@Param("id") Long id);
+}
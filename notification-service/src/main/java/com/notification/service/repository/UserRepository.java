@@ -1,19 +1,62 @@
 package com.notification.service.repository;
 
 import com.notification.service.model.User;
-import com.notification.service.model.enums.Category;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
-    
-    @Query("SELECT u FROM User u JOIN u.subscriptions s WHERE s = :category")
-    List<User> findBySubscription(@Param("category") Category category);
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
     
     List<User> findByEmail(String email);
-}
\ No newline at end of file
+    
+    /**
+     * Streams the contact details, channels and subscriptions of all users, ordered by user ID.
+     * Must be consumed inside a transaction.
+     */
+    @Query(value = """
+            SELECT u.id AS userId, u.email AS email, u.phone_number AS phoneNumber,
+                   u.channels AS channels, u.subscriptions AS subscriptions
+            FROM users u
+            ORDER BY u.id
+            """, nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<SubscriberRow> streamAllSubscriberRows();
+    
+    /**
+     * Counts the users with each combination of subscriptions and sums their IDs, and their IDs times their
+     * channel masks, in one pass over the users table
+     */
+    @Query(value = """
+            SELECT u.subscriptions AS subscriptions, COUNT(*) AS users,
+                   CAST(SUM(CAST(u.id AS BIGINT)) AS BIGINT) AS userIdSum,
+                   CAST(SUM(CAST(u.id AS BIGINT) * u.channels) AS BIGINT) AS channelSum
+            FROM users u
+            GROUP BY u.subscriptions
+            """, nativeQuery = true)
+    List<SubscriptionsChecksum> checksumUsersBySubscriptions();
+    
+    interface RecipientRow {
+        Long getUserId();
+        String getEmail();
+        String getPhoneNumber();
+        int getChannels();
+    }
+    
+    interface SubscriberRow extends RecipientRow {
+        int getSubscriptions();
+    }
+    
+    interface SubscriptionsChecksum {
+        int getSubscriptions();
+        long getUsers();
+        long getUserIdSum();
+        long getChannelSum();
+    }
+}
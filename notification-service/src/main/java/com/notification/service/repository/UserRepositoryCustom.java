@@ -0,0 +1,20 @@
+package com.notification.service.repository;
+
+import java.util.List;
+
+/**
+ * Queries of {@link UserRepository} whose SQL depends on their arguments, implemented in {@link UserRepositoryImpl}
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * Reads the contact details and channels of the next {@code limit} subscribers after a user ID,
+     * ordered by user ID. On PostgreSQL this walks the partial index of the category's subscription bit.
+     *
+     * @param categoryMask The {@link com.notification.service.model.enums.BitMasks#bit bit} of a single category
+     * @param afterId The last user ID of the previous chunk, or 0 to start from the beginning
+     * @param limit The maximum number of rows to return
+     * @return Up to {@code limit} rows
+     */
+    List<UserRepository.RecipientRow> findRecipientRowsAfter(int categoryMask, long afterId, int limit);
+}
@@ -0,0 +1,66 @@
+package com.notification.service.repository;
+
+import jakarta.persistence.EntityManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class UserRepositoryImpl implements UserRepositoryCustom {
+
+    private final EntityManager entityManager;
+    private final MaskConditions maskConditions;
+
+    public UserRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+        this.maskConditions = new MaskConditions(entityManager);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<UserRepository.RecipientRow> findRecipientRowsAfter(int categoryMask, long afterId, int limit) {
+        // The mask is inlined, a bound parameter would not match the partial index predicate
+        String sql = """
+                SELECT u.id, u.email, u.phone_number, u.channels
+                FROM users u
+                WHERE u.id > :afterId AND %s
+                ORDER BY u.id
+                LIMIT :limit
+                """.formatted(maskConditions.anyBitSet("u.subscriptions", Integer.toString(categoryMask)));
+
+        List<Object[]> results = entityManager.createNativeQuery(sql)
+                .setParameter("afterId", afterId)
+                .setParameter("limit", limit)
+                .getResultList();
+
+        List<UserRepository.RecipientRow> rows = new ArrayList<>(results.size());
+        for (Object[] result : results) {
+            rows.add(new Row(((Number) result[0]).longValue(), (String) result[1], (String) result[2],
+                    ((Number) result[3]).intValue()));
+        }
+        return rows;
+    }
+
+    private record Row(Long userId, String email, String phoneNumber, int channels)
+            implements UserRepository.RecipientRow {
+
+        @Override
+        public Long getUserId() {
+            return userId;
+        }
+
+        @Override
+        public String getEmail() {
+            return email;
+        }
+
+        @Override
+        public String getPhoneNumber() {
+            return phoneNumber;
+        }
+
+        @Override
+        public int getChannels() {
+            return channels;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.notification.service.service;
+
+import com.notification.service.config.NotificationProperties;
+import com.notification.service.model.Recipient;
+import com.notification.service.model.enums.BitMasks;
+import com.notification.service.model.enums.Category;
+import com.notification.service.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the subscribers of a category as {@link Recipient} projections in fixed-size chunks ordered
+ * by user ID, so the audience never has to be loaded at once and no user entities are managed.
+ * Chunks come from the {@link SubscriptionIndex} when it is ready, from the database otherwise.
+ */
+@Component
+@RequiredArgsConstructor
+public class AudienceReader {
+
+    private final UserRepository userRepository;
+    private final SubscriptionIndex subscriptionIndex;
+    private final EntityManager entityManager;
+    private final NotificationProperties notificationProperties;
+
+    /**
+     * Reads the chunk of subscribers that follows a given user ID
+     *
+     * @param category The category the users are subscribed to
+     * @param afterUserId The last user ID of the previous chunk, or 0 to start from the beginning
+     * @return Up to {@code notification.fan-out.chunk-size} recipients, ordered by user ID
+     */
+    public List<Recipient> readChunk(Category category, long afterUserId) {
+        return readChunk(category, afterUserId, getChunkSize());
+    }
+
+    /**
+     * Returns the subscribers of a category as consecutive chunks. Before loading the next chunk
+     * the persistence context is flushed and cleared, so notifications written for earlier chunks
+     * can be garbage collected.
+     * Must be iterated inside a transaction.
+     *
+     * @param category The category the users are subscribed to
+     * @return The audience, one chunk per element
+     */
+    public Iterable<List<Recipient>> readInChunks(Category category) {
+        return () -> new ChunkIterator(category, getChunkSize());
+    }
+
+    /**
+     * Returns the configured number of users per chunk
+     *
+     * @return The chunk size
+     */
+    public int getChunkSize() {
+        return notificationProperties.getFanOut().getChunkSize();
+    }
+
+    private List<Recipient> readChunk(Category category, long afterUserId, int chunkSize) {
+        if (subscriptionIndex.isReady()) {
+            return subscriptionIndex.readChunk(category, afterUserId, chunkSize);
+        }
+
+        List<UserRepository.RecipientRow> rows =
+                userRepository.findRecipientRowsAfter(BitMasks.bit(category), afterUserId, chunkSize);
+
+        List<Recipient> recipients = new ArrayList<>(rows.size());
+        for (UserRepository.RecipientRow row : rows) {
+            recipients.add(new Recipient(row.getUserId(), row.getEmail(), row.getPhoneNumber(), row.getChannels()));
+        }
+
+        return recipients;
+    }
+
+    private class ChunkIterator implements Iterator<List<Recipient>> {
+
+        private final Category category;
+        private final int chunkSize;
+        private long lastUserId;
+        private List<Recipient> nextChunk;
+        private boolean exhausted;
+        private boolean started;
+
+        private ChunkIterator(Category category, int chunkSize) {
+            this.category = category;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextChunk == null && !exhausted) {
+                nextChunk = fetch();
+            }
+            return nextChunk != null;
+        }
+
+        @Override
+        public List<Recipient> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            List<Recipient> chunk = nextChunk;
+            nextChunk = null;
+            return chunk;
+        }
+
+        private List<Recipient> fetch() {
+            if (started) {
+                // The previous chunk has been handled; drop it from the persistence context
+                entityManager.flush();
+                entityManager.clear();
+            }
+            started = true;
+
+            List<Recipient> chunk = readChunk(category, lastUserId, chunkSize);
+
+            // A short chunk is the last one, no need to query again
+            if (chunk.size() < chunkSize) {
+                exhausted = true;
+            }
+            if (chunk.isEmpty()) {
+                return null;
+            }
+
+            lastUserId = chunk.get(chunk.size() - 1).userId();
+            return Collections.unmodifiableList(chunk);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.notification.service.service;
+
+import com.notification.service.config.NotificationProperties;
+import com.notification.service.model.enums.Channel;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs deliveries on one bounded executor per channel, so a slow provider only holds up its own channel.
+ * Each lane runs up to {@code max-concurrent} deliveries on virtual threads and queues up to
+ * {@code queue-capacity} more; beyond that a delivery is rejected rather than run on the submitting thread,
+ * which would hold the fan-out up behind the slowest channel, and its notifications are left for a retry.
+ */
+@Component
+public class ChannelBulkheads {
+
+    private final Map<Channel, Executor> lanes = new EnumMap<>(Channel.class);
+
+    @Autowired
+    public ChannelBulkheads(NotificationProperties properties) {
+        this(channel -> createExecutor(channel, properties.getBulkhead().lane(channel)));
+    }
+
+    ChannelBulkheads(Function<Channel, Executor> executorFactory) {
+        for (Channel channel : Channel.values()) {
+            lanes.put(channel, executorFactory.apply(channel));
+        }
+    }
+
+    /**
+     * Runs a delivery on the lane of its channel
+     *
+     * @param channel The channel the delivery goes through
+     * @param delivery The delivery
+     * @return The outcome of the delivery, failed with a {@link RejectedExecutionException} if the lane is full
+     */
+    public <T> CompletableFuture<T> submit(Channel channel, Supplier<T> delivery) {
+        try {
+            return CompletableFuture.supplyAsync(delivery, lanes.get(channel));
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (Executor executor : lanes.values()) {
+            if (executor instanceof ThreadPoolExecutor pool) {
+                pool.shutdown();
+            }
+        }
+        for (Executor executor : lanes.values()) {
+            if (executor instanceof ThreadPoolExecutor pool) {
+                pool.awaitTermination(30, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    private static ThreadPoolExecutor createExecutor(Channel channel, NotificationProperties.Lane lane) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                lane.getMaxConcurrent(),
+                lane.getMaxConcurrent(),
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(lane.getQueueCapacity()),
+                Thread.ofVirtual().name(channel.name().toLowerCase(Locale.ROOT) + "-", 1).factory(),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        // Virtual threads are cheap to recreate, don't keep idle lanes around
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -0,0 +1,162 @@
+package com.notification.service.service;
+
+import com.notification.service.config.NotificationProperties;
+import com.notification.service.model.enums.Channel;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps deliveries within the providers' quotas with one {@link TokenBucket} per rate-limited channel,
+ * plus one per provider account shared by the channels configured to use it.
+ * Deliveries wait for permits instead of being sent and rejected by the provider. The fan-out waits before handing
+ * each group to its channel's {@link ChannelBulkheads} lane, so a burst above the rate is slowed down to it rather
+ * than failed. Only a group whose permits would take longer than {@code notification.rate-limit.max-wait-ms} is
+ * parked for the retry scheduler, which sends it from the permits left unused.
+ */
+@Component
+public class ChannelRateLimiter {
+
+    private final Map<Channel, TokenBucket> channelBuckets = new EnumMap<>(Channel.class);
+    private final Map<Channel, TokenBucket> accountBuckets = new EnumMap<>(Channel.class);
+    private final List<TokenBucket> buckets = new ArrayList<>();
+
+    public ChannelRateLimiter(NotificationProperties properties) {
+        NotificationProperties.RateLimit rateLimit = properties.getRateLimit();
+
+        Map<String, TokenBucket> accounts = new HashMap<>();
+        rateLimit.getAccounts().forEach((account, limit) -> {
+            if (limit.getPermitsPerSecond() > 0) {
+                accounts.put(account, createBucket("account:" + account, limit));
+            }
+        });
+
+        rateLimit.getChannels().forEach((channel, limit) -> {
+            if (limit.getPermitsPerSecond() > 0) {
+                channelBuckets.put(channel, createBucket("channel:" + channel, limit));
+            }
+            if (limit.getAccount() != null) {
+                TokenBucket account = accounts.get(limit.getAccount());
+                if (account == null) {
+                    throw new IllegalStateException("Channel " + channel + " uses unknown or unlimited provider account "
+                            + limit.getAccount());
+                }
+                accountBuckets.put(channel, account);
+            }
+        });
+
+        buckets.addAll(channelBuckets.values());
+        buckets.addAll(accounts.values());
+    }
+
+    /**
+     * Waits until permits are available on the channel and on its provider account, then takes them,
+     * unless they would not be available within a timeout
+     *
+     * @param channel The channel the notifications go through
+     * @param permits The number of notifications about to be sent
+     * @param timeout The longest time to wait, for both buckets together
+     * @param unit The unit of {@code timeout}
+     * @return true if the permits were taken, false if they would not be available in time; none are taken then
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    public boolean tryAcquire(Channel channel, int permits, long timeout, TimeUnit unit) throws InterruptedException {
+        long start = System.nanoTime();
+        long timeoutNanos = unit.toNanos(timeout);
+
+        TokenBucket channelBucket = channelBuckets.get(channel);
+        if (channelBucket != null && !channelBucket.tryAcquire(permits, timeoutNanos, TimeUnit.NANOSECONDS)) {
+            return false;
+        }
+
+        TokenBucket accountBucket = accountBuckets.get(channel);
+        boolean acquired = false;
+        try {
+            // The account only gets what the channel left of the timeout
+            long remainingNanos = Math.max(0, timeoutNanos - (System.nanoTime() - start));
+            acquired = accountBucket == null
+                    || accountBucket.tryAcquire(permits, remainingNanos, TimeUnit.NANOSECONDS);
+        } finally {
+            if (!acquired && channelBucket != null) {
+                channelBucket.release(permits);
+            }
+        }
+        return acquired;
+    }
+
+    /**
+     * Takes as many permits as are available right now on the channel and its provider account, up to a maximum.
+     * Permits are only available when no delivery is waiting for them, so callers using this
+     * only consume the capacity that regular deliveries leave unused.
+     *
+     * @param channel The channel the notifications go through
+     * @param maxPermits The maximum number of permits to take
+     * @return The number of permits taken, possibly 0
+     */
+    public int tryAcquireUpTo(Channel channel, int maxPermits) {
+        TokenBucket channelBucket = channelBuckets.get(channel);
+        TokenBucket accountBucket = accountBuckets.get(channel);
+
+        int permits = maxPermits;
+        if (channelBucket != null) {
+            permits = Math.min(permits, channelBucket.availablePermits());
+        }
+        if (accountBucket != null) {
+            permits = Math.min(permits, accountBucket.availablePermits());
+        }
+
+        if (permits <= 0) {
+            return 0;
+        }
+        if (channelBucket != null && !channelBucket.tryAcquire(permits)) {
+            return 0;
+        }
+        if (accountBucket != null && !accountBucket.tryAcquire(permits)) {
+            if (channelBucket != null) {
+                channelBucket.release(permits);
+            }
+            return 0;
+        }
+
+        return permits;
+    }
+
+    /**
+     * Gives back permits taken for notifications that ended up not being sent, to the channel and its provider account
+     *
+     * @param channel The channel the permits were taken for
+     * @param permits The number of permits to give back
+     */
+    public void release(Channel channel, int permits) {
+        TokenBucket channelBucket = channelBuckets.get(channel);
+        TokenBucket accountBucket = accountBuckets.get(channel);
+
+        if (channelBucket != null) {
+            channelBucket.release(permits);
+        }
+        if (accountBucket != null) {
+            accountBucket.release(permits);
+        }
+    }
+
+    /**
+     * Returns the buckets of all rate-limited channels and provider accounts
+     *
+     * @return The token buckets
+     */
+    public List<TokenBucket> getBuckets() {
+        return buckets;
+    }
+
+    private static TokenBucket createBucket(String name, NotificationProperties.Limit limit) {
+        int capacity = limit.getBurst() > 0
+                ? limit.getBurst()
+                : (int) Math.max(1, Math.ceil(limit.getPermitsPerSecond()));
+        return new TokenBucket(name, limit.getPermitsPerSecond(), capacity);
+    }
+}
@@ -0,0 +1,17 @@
+package com.notification.service.service;
+
+import com.notification.service.model.enums.Channel;
+
+/**
+ * A delivery attempt, as read back from a {@link RingBufferDeliveryAuditSink}
+ *
+ * @param timestamp When the attempt was recorded, in milliseconds since the epoch
+ * @param channel The channel the notification went through
+ * @param messageId The ID of the message, or null if the notification had none
+ * @param userId The ID of the recipient, or null if the notification had none
+ * @param recipient The address the notification was sent to, or null if it is the user ID
+ * @param sent Whether the provider accepted the notification
+ */
+public record DeliveryAuditRecord(long timestamp, Channel channel, Long messageId, Long userId, String recipient,
+                                  boolean sent) {
+}
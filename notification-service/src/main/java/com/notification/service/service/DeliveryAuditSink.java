@@ -0,0 +1,21 @@
+package com.notification.service.service;
+
+import com.notification.service.model.enums.Channel;
+
+/**
+ * Receives one record per delivery attempt made by the channel services.
+ * Implementations are called on the delivery path, so they must not block or do I/O there.
+ */
+public interface DeliveryAuditSink {
+
+    /**
+     * Records the outcome of a delivery attempt
+     *
+     * @param channel The channel the notification went through
+     * @param messageId The ID of the message
+     * @param userId The ID of the recipient
+     * @param recipient The address the notification was sent to (email, phone number), or null if it is the user ID
+     * @param sent Whether the provider accepted the notification
+     */
+    void record(Channel channel, Long messageId, Long userId, String recipient, boolean sent);
+}
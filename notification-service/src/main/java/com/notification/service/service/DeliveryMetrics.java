@@ -0,0 +1,103 @@
+package com.notification.service.service;
+
+import com.notification.service.model.enums.Category;
+import com.notification.service.model.enums.Channel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters of the delivery path. They are all registered up front, one per channel or category, so recording
+ * is a map lookup and an update of the meter: no registry lookup, tag array or timer sample per call.
+ */
+@Component
+public class DeliveryMetrics {
+
+    private final Map<Channel, Timer> sendTimers = new EnumMap<>(Channel.class);
+    private final Map<Channel, Counter> sentCounters = new EnumMap<>(Channel.class);
+    private final Map<Channel, Counter> failedCounters = new EnumMap<>(Channel.class);
+    private final Map<Category, Timer> fanOutTimers = new EnumMap<>(Category.class);
+    private final Map<Category, DistributionSummary> audienceSummaries = new EnumMap<>(Category.class);
+
+    public DeliveryMetrics(MeterRegistry registry) {
+        for (Channel channel : Channel.values()) {
+            String tag = channel.name().toLowerCase(Locale.ROOT);
+
+            sendTimers.put(channel, Timer.builder("notification.send")
+                    .description("Duration of a provider call sending a group of notifications")
+                    .tag("channel", tag)
+                    .publishPercentileHistogram()
+                    .register(registry));
+            sentCounters.put(channel, Counter.builder("notification.deliveries")
+                    .description("Delivery attempts by outcome")
+                    .tag("channel", tag)
+                    .tag("outcome", "sent")
+                    .register(registry));
+            failedCounters.put(channel, Counter.builder("notification.deliveries")
+                    .description("Delivery attempts by outcome")
+                    .tag("channel", tag)
+                    .tag("outcome", "failed")
+                    .register(registry));
+        }
+
+        for (Category category : Category.values()) {
+            String tag = category.name().toLowerCase(Locale.ROOT);
+
+            fanOutTimers.put(category, Timer.builder("notification.fanout")
+                    .description("Duration of a fan-out call, from the audience to the written notifications")
+                    .tag("category", tag)
+                    .publishPercentileHistogram()
+                    .register(registry));
+            audienceSummaries.put(category, DistributionSummary.builder("notification.fanout.audience")
+                    .description("Number of subscribers a message was fanned out to")
+                    .tag("category", tag)
+                    .baseUnit("users")
+                    .register(registry));
+        }
+    }
+
+    /**
+     * Records a provider call
+     *
+     * @param channel The channel of the notifications
+     * @param nanos The duration of the call
+     * @param sent The number of notifications the provider accepted
+     * @param failed The number of notifications that were not sent
+     */
+    public void recordSend(Channel channel, long nanos, int sent, int failed) {
+        sendTimers.get(channel).record(nanos, TimeUnit.NANOSECONDS);
+        if (sent > 0) {
+            sentCounters.get(channel).increment(sent);
+        }
+        if (failed > 0) {
+            failedCounters.get(channel).increment(failed);
+        }
+    }
+
+    /**
+     * Records a fan-out call
+     *
+     * @param category The category of the message
+     * @param nanos The duration of the call
+     */
+    public void recordFanOut(Category category, long nanos) {
+        fanOutTimers.get(category).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the audience of a message once its fan-out is complete
+     *
+     * @param category The category of the message
+     * @param audience The number of subscribers the message was fanned out to
+     */
+    public void recordAudience(Category category, int audience) {
+        audienceSummaries.get(category).record(audience);
+    }
+}
@@ -3,16 +3,25 @@ package com.notification.service.service;
 import com.notification.service.model.Notification;
 import com.notification.service.model.User;
 import com.notification.service.model.enums.Channel;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
 
+@Slf4j
 @Service
+@RequiredArgsConstructor
 public class EmailNotificationService implements NotificationService {
 
+    private final DeliveryAuditSink deliveryAuditSink;
+
     @Override
     public boolean send(Notification notification) {
-        if (!canSendToUser(notification.getUser()) || notification.getChannel() != Channel.EMAIL) {
+        if (!accepts(notification)) {
+            audit(notification, false);
             return false;
         }
         
@@ -20,27 +29,47 @@ public class EmailNotificationService implements NotificationService {
             // In a real implementation, this would use an email service like JavaMail or a third-party API
             // For this example, we'll just simulate sending an email
             
-            String email = notification.getUser().getEmail();
-            String subject = "Notification: " + notification.getMessage().getCategory().toString();
-            String content = notification.getMessage().getContent();
-            
-            // Log the email sending (in a real implementation, this would be more robust)
-            System.out.println("Sending email to " + email);
-            System.out.println("Subject: " + subject);
-            System.out.println("Content: " + content);
-            
             // Mark the notification as sent
             notification.setSent(true);
             notification.setSentAt(LocalDateTime.now());
             
+            audit(notification, true);
             return true;
         } catch (Exception e) {
-            // Log the error (in a real implementation, this would be more robust)
-            System.err.println("Failed to send email notification: " + e.getMessage());
+            log.warn("Failed to send email notification {}", notification.getId(), e);
+            audit(notification, false);
             return false;
         }
     }
 
+    @Override
+    public List<Boolean> sendBatch(List<Notification> notifications) {
+        // All the emails of the batch share one SMTP session
+        return ProviderBatches.send(notifications, this::accepts, notification -> Channel.EMAIL,
+                this::pipeline, this::audit);
+    }
+
+    /**
+     * Sends emails over one SMTP session
+     *
+     * @param notifications The email notifications to send
+     * @return Whether the server accepted each email, in order
+     */
+    List<Boolean> pipeline(List<Notification> notifications) {
+        // In a real implementation, this would pipeline one MAIL FROM / RCPT TO / DATA exchange per email
+        // over a single SMTP session and read the reply codes back in order
+        log.debug("Pipelining {} emails over one SMTP session", notifications.size());
+        return Collections.nCopies(notifications.size(), true);
+    }
+
+    private boolean accepts(Notification notification) {
+        return notification.getChannel() == Channel.EMAIL && canSendToUser(notification.getUser());
+    }
+
+    private void audit(Notification notification, boolean sent) {
+        ProviderBatches.audit(deliveryAuditSink, Channel.EMAIL, notification, User::getEmail, sent);
+    }
+
     @Override
     public boolean canSendToUser(User user) {
         return user != null 
@@ -0,0 +1,12 @@
+package com.notification.service.service;
+
+import com.notification.service.model.Message;
+
+/**
+ * A message accepted for asynchronous fan-out
+ *
+ * @param message The persisted message
+ * @param dispatchId The ID of the scheduled fan-out
+ */
+public record MessageDispatch(Message message, String dispatchId) {
+}
@@ -1,24 +1,35 @@
 package com.notification.service.service;
 
+import com.notification.service.config.NotificationProperties;
+import com.notification.service.dto.PageCursor;
 import com.notification.service.model.Message;
-import com.notification.service.model.Notification;
-import com.notification.service.model.User;
+import com.notification.service.model.MessageSnapshot;
+import com.notification.service.model.OutboxEntry;
 import com.notification.service.model.enums.Category;
+import com.notification.service.model.enums.OutboxStatus;
 import com.notification.service.repository.MessageRepository;
-import com.notification.service.repository.UserRepository;
+import com.notification.service.repository.OutboxRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.UUID;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class MessageService {
 
     private final MessageRepository messageRepository;
-    private final UserRepository userRepository;
+    private final OutboxRepository outboxRepository;
     private final NotificationStrategyService notificationStrategyService;
+    private final NotificationDispatcher notificationDispatcher;
+    private final NotificationProperties notificationProperties;
 
     /**
      * Creates a new message and sends notifications to all eligible users
@@ -37,36 +48,95 @@ public class MessageService {
         
         message = messageRepository.save(message);
         
-        // Find all users subscribed to this category
-        List<User> subscribedUsers = userRepository.findBySubscription(category);
+        // Process notifications for all users subscribed to this category, chunk by chunk
+        int sentNotifications = notificationStrategyService.processAudience(message);
         
-        // Process notifications for these users
-        List<Notification> sentNotifications = notificationStrategyService.processNotifications(message, subscribedUsers);
-        
-        // Log the results
-        System.out.println("Message created: " + message.getId());
-        System.out.println("Notifications sent: " + sentNotifications.size());
+        log.info("Message {} created, {} notifications sent", message.getId(), sentNotifications);
         
         return message;
     }
 
     /**
-     * Retrieves all messages, ordered by creation date (newest first)
+     * Creates a new message and records it in the outbox for asynchronous fan-out.
+     * Both rows are written in one short transaction; the notifications are sent by the dispatch workers.
      *
-     * @return A list of all messages
+     * @param category The category of the message
+     * @param content The content of the message
+     * @return The created message together with its dispatch ID
      */
-    public List<Message> getAllMessages() {
-        return messageRepository.findAll();
+    @Transactional
+    public MessageDispatch submitMessage(Category category, String content) {
+        Message message = Message.builder()
+                .category(category)
+                .content(content)
+                .build();
+
+        message = messageRepository.save(message);
+
+        OutboxEntry entry = OutboxEntry.builder()
+                .dispatchId(UUID.randomUUID().toString())
+                .message(message)
+                .status(OutboxStatus.PENDING)
+                .fanOutMode(notificationProperties.getFanOut().getMode())
+                .build();
+
+        entry = outboxRepository.save(entry);
+
+        // Start right after commit; if the workers are busy the outbox relay picks it up later
+        notificationDispatcher.dispatchAfterCommit(entry.getId());
+
+        return new MessageDispatch(message, entry.getDispatchId());
+    }
+
+    /**
+     * Retrieves the fan-out progress of an asynchronously dispatched message
+     *
+     * @param dispatchId The dispatch ID returned when the message was submitted
+     * @return The outbox entry, or null if not found
+     */
+    public OutboxEntry getDispatch(String dispatchId) {
+        return outboxRepository.findByDispatchId(dispatchId).orElse(null);
+    }
+
+    /**
+     * Tells whether messages should be accepted with {@link #submitMessage} instead of {@link #createMessage}
+     *
+     * @return true if async dispatch is enabled
+     */
+    public boolean isAsyncDispatch() {
+        return notificationProperties.getDispatch().isAsync();
+    }
+
+    /**
+     * Retrieves the messages created in a time range that follow a cursor, newest first.
+     * The page is read with a single query seeking the creation date index; the notification
+     * counts are kept on the messages, so nothing else is read.
+     *
+     * @param category The category of the messages, or null for all
+     * @param from The start of the time range, inclusive
+     * @param to The end of the time range, exclusive, or null for no end
+     * @param after The position of the last message of the previous page
+     * @param size The page size
+     * @return Up to {@code size} messages
+     */
+    public List<Message> getMessages(Category category, LocalDateTime from, LocalDateTime to, PageCursor after, int size) {
+        PageCursor start = to != null ? after.before(to) : after;
+        Pageable pageable = PageRequest.of(0, size);
+
+        if (category == null) {
+            return messageRepository.findPageAfter(from, start.createdAt(), start.id(), pageable);
+        }
+        return messageRepository.findPageByCategoryAfter(category, from, start.createdAt(), start.id(), pageable);
     }
 
     /**
-     * Retrieves a message by its ID
+     * Retrieves a message by its ID, from the message cache
      *
      * @param id The ID of the message
-     * @return The message, or null if not found
+     * @return A snapshot of the message, or null if not found
      */
-    public Message getMessageById(Long id) {
-        return messageRepository.findById(id).orElse(null);
+    public MessageSnapshot getMessageById(Long id) {
+        return messageRepository.findSnapshotById(id).orElse(null);
     }
 
     /**
@@ -0,0 +1,159 @@
+package com.notification.service.service;
+
+import com.notification.service.config.NotificationProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drains outbox entries on a bounded worker pool so that accepting a message
+ * does not depend on the size of its audience
+ */
+@Slf4j
+@Service
+public class NotificationDispatcher {
+
+    private final NotificationFanOutService fanOutService;
+    private final Executor executor;
+    private final Semaphore capacity;
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public NotificationDispatcher(NotificationFanOutService fanOutService, NotificationProperties properties) {
+        this(fanOutService, createExecutor(properties.getDispatch()), properties.getDispatch());
+    }
+
+    NotificationDispatcher(NotificationFanOutService fanOutService, Executor executor,
+                           NotificationProperties.Dispatch dispatch) {
+        this.fanOutService = fanOutService;
+        this.executor = executor;
+        // One permit per worker plus one per queue slot, so an accepted entry always fits in the pool
+        this.capacity = new Semaphore(dispatch.getWorkerThreads() + dispatch.getQueueCapacity());
+    }
+
+    /**
+     * Hands an outbox entry to the worker pool, unless it is already being drained or the pool is full.
+     * A refused entry stays pending and is picked up again by the {@link OutboxRelay}.
+     *
+     * @param outboxId The ID of the outbox entry to drain
+     * @return true if the entry was accepted by the pool
+     */
+    public boolean dispatch(Long outboxId) {
+        if (!inFlight.add(outboxId)) {
+            return false;
+        }
+
+        if (!capacity.tryAcquire()) {
+            inFlight.remove(outboxId);
+            return false;
+        }
+
+        try {
+            executor.execute(() -> drain(outboxId));
+            return true;
+        } catch (RejectedExecutionException e) {
+            release(outboxId);
+            return false;
+        }
+    }
+
+    /**
+     * Dispatches an outbox entry once the current transaction commits, so fan-out starts
+     * without waiting for the next relay poll. Outside a transaction it dispatches immediately.
+     *
+     * @param outboxId The ID of the outbox entry to drain
+     */
+    public void dispatchAfterCommit(Long outboxId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            dispatch(outboxId);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dispatch(outboxId);
+            }
+        });
+    }
+
+    /**
+     * Returns the number of outbox entries that can still be accepted
+     *
+     * @return The remaining dispatch capacity
+     */
+    public int availableCapacity() {
+        return capacity.availablePermits();
+    }
+
+    /**
+     * Returns the number of outbox entries currently queued or being drained on this node
+     *
+     * @return The number of in-flight entries
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (executor instanceof ThreadPoolExecutor pool) {
+            pool.shutdown();
+            pool.awaitTermination(30, TimeUnit.SECONDS);
+        }
+    }
+
+    private void drain(Long outboxId) {
+        boolean hasMore;
+
+        try {
+            hasMore = fanOutService.fanOutNextChunk(outboxId);
+        } catch (RuntimeException e) {
+            // Either the chunk rolled back and the relay retries it on a later poll, or its notifications
+            // were committed and the retry scheduler sends them once their reservation expires
+            log.error("Fan-out of outbox entry {} failed", outboxId, e);
+            hasMore = false;
+        }
+
+        if (hasMore) {
+            // Requeue instead of looping so that large audiences take turns with other messages
+            try {
+                executor.execute(() -> drain(outboxId));
+                return;
+            } catch (RejectedExecutionException e) {
+                log.debug("Outbox entry {} left for the next relay poll", outboxId);
+            }
+        }
+
+        release(outboxId);
+    }
+
+    private void release(Long outboxId) {
+        inFlight.remove(outboxId);
+        capacity.release();
+    }
+
+    private static ThreadPoolExecutor createExecutor(NotificationProperties.Dispatch dispatch) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(
+                dispatch.getWorkerThreads(),
+                dispatch.getWorkerThreads(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(dispatch.getQueueCapacity()),
+                runnable -> new Thread(runnable, "dispatch-" + threadCount.incrementAndGet())
+        );
+    }
+}
@@ -0,0 +1,126 @@
+package com.notification.service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.notification.service.dto.NotificationLogResponse;
+import com.notification.service.model.enums.Channel;
+import com.notification.service.model.enums.ExportFormat;
+import com.notification.service.repository.NotificationRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+/**
+ * Writes the notification log to a stream, row by row, as it is read from a forward-only cursor.
+ * Rows are projected straight into log entries, so nothing accumulates in the persistence context
+ * and memory use does not depend on the size of the export.
+ */
+@Service
+@RequiredArgsConstructor
+public class NotificationExportService {
+
+    private static final String CSV_HEADER = "id,messageId,messageCategory,messageContent,userId,userName,"
+            + "userEmail,userPhoneNumber,channel,sent,createdAt,sentAt";
+
+    private final NotificationRepository notificationRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Writes the notifications created in a time range, oldest first
+     *
+     * @param from The start of the time range, inclusive
+     * @param to The end of the time range, exclusive
+     * @param channel The channel to export, or null for all
+     * @param sent The sent status to export, or null for both
+     * @param format The output format
+     * @param out The stream to write to; it is flushed but not closed
+     * @return The number of notifications written
+     */
+    @Transactional(readOnly = true)
+    public long export(LocalDateTime from, LocalDateTime to, Channel channel, Boolean sent,
+                       ExportFormat format, OutputStream out) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+
+        // The cursor only stays open, and only fetches in batches, within the transaction
+        try (Stream<NotificationLogResponse> entries = notificationRepository.streamLog(from, to, channel, sent)) {
+            long count = format == ExportFormat.CSV ? writeCsv(entries, writer) : writeNdjson(entries, writer);
+            writer.flush();
+            return count;
+        } catch (IOException e) {
+            // Usually the client went away; abandon the export
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long writeNdjson(Stream<NotificationLogResponse> entries, Writer writer) throws IOException {
+        ObjectWriter json = objectMapper.writerFor(NotificationLogResponse.class);
+        long count = 0;
+
+        for (NotificationLogResponse entry : (Iterable<NotificationLogResponse>) entries::iterator) {
+            writer.write(json.writeValueAsString(entry));
+            writer.write('\n');
+            count++;
+        }
+
+        return count;
+    }
+
+    private long writeCsv(Stream<NotificationLogResponse> entries, Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+        long count = 0;
+
+        for (NotificationLogResponse entry : (Iterable<NotificationLogResponse>) entries::iterator) {
+            writer.write(String.valueOf(entry.getId()));
+            writer.write(',');
+            writer.write(String.valueOf(entry.getMessageId()));
+            writer.write(',');
+            writer.write(String.valueOf(entry.getMessageCategory()));
+            writer.write(',');
+            writer.write(csvField(entry.getMessageContent()));
+            writer.write(',');
+            writer.write(String.valueOf(entry.getUserId()));
+            writer.write(',');
+            writer.write(csvField(entry.getUserName()));
+            writer.write(',');
+            writer.write(csvField(entry.getUserEmail()));
+            writer.write(',');
+            writer.write(csvField(entry.getUserPhoneNumber()));
+            writer.write(',');
+            writer.write(String.valueOf(entry.getChannel()));
+            writer.write(',');
+            writer.write(String.valueOf(entry.isSent()));
+            writer.write(',');
+            writer.write(entry.getCreatedAt() == null ? "" : entry.getCreatedAt().toString());
+            writer.write(',');
+            writer.write(entry.getSentAt() == null ? "" : entry.getSentAt().toString());
+            writer.write("\r\n");
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Quotes a CSV field if it contains a separator, a quote or a line break (RFC 4180)
+     */
+    static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,165 @@
+package com.notification.service.service;
+
+import com.notification.service.config.NotificationProperties;
+import com.notification.service.model.Message;
+import com.notification.service.model.Notification;
+import com.notification.service.model.OutboxEntry;
+import com.notification.service.model.Recipient;
+import com.notification.service.model.enums.BitMasks;
+import com.notification.service.model.enums.Channel;
+import com.notification.service.model.enums.FanOutMode;
+import com.notification.service.model.enums.OutboxStatus;
+import com.notification.service.repository.NotificationRepository;
+import com.notification.service.repository.OutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotificationFanOutService {
+
+    private final OutboxRepository outboxRepository;
+    private final AudienceReader audienceReader;
+    private final NotificationRepository notificationRepository;
+    private final NotificationStrategyService notificationStrategyService;
+    private final NotificationProperties notificationProperties;
+    private final RetryPolicy retryPolicy;
+    private final DeliveryMetrics deliveryMetrics;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Advances the fan-out of an outbox entry by one chunk. The entry is locked, and the chunk's notification
+     * rows and the entry's cursor are committed together in one short transaction, so a crash resumes from the
+     * last committed chunk. The notifications are sent after the commit, so neither the entry's lock nor a
+     * transaction is held while providers and quotas are waited for. Until their outcomes are written they are
+     * reserved for this node; if it stops first, the retry scheduler sends them once the reservation expires.
+     *
+     * @param outboxId The ID of the outbox entry to advance
+     * @return true if the entry has work left, false if it is completed or locked by another worker
+     */
+    public boolean fanOutNextChunk(Long outboxId) {
+        long start = System.nanoTime();
+        Chunk chunk = transactionTemplate.execute(status -> claimNextChunk(outboxId));
+
+        if (chunk == null) {
+            return false;
+        }
+
+        notificationStrategyService.deliverNotifications(chunk.notifications());
+
+        if (chunk.recipients() > 0) {
+            deliveryMetrics.recordFanOut(chunk.message().getCategory(), System.nanoTime() - start);
+        }
+        if (chunk.audience() != null) {
+            deliveryMetrics.recordAudience(chunk.message().getCategory(), chunk.audience());
+        }
+
+        return chunk.hasMore();
+    }
+
+    /**
+     * Locks an outbox entry and commits the notification rows of its next chunk together with its cursor
+     *
+     * @return The chunk, or null if the entry is completed or locked by another worker
+     */
+    private Chunk claimNextChunk(Long outboxId) {
+        OutboxEntry entry = outboxRepository.lockPendingById(outboxId).orElse(null);
+
+        if (entry == null) {
+            return null;
+        }
+
+        Message message = entry.getMessage();
+        List<Notification> notifications;
+        int recipientCount = 0;
+        Integer audience = null;
+
+        if (entry.getFanOutMode() == FanOutMode.SET_BASED) {
+            notifications = claimNextPendingRows(entry);
+        } else {
+            List<Recipient> recipients = audienceReader.readChunk(message.getCategory(), entry.getLastUserId());
+            notifications = createNextNotifications(entry, recipients);
+            recipientCount = recipients.size();
+            if (entry.getStatus() == OutboxStatus.COMPLETED) {
+                audience = entry.getAudienceSize();
+            }
+        }
+
+        return new Chunk(message, notifications, recipientCount, audience, entry.getStatus() == OutboxStatus.PENDING);
+    }
+
+    /**
+     * Saves the notifications of the next chunk of subscribers, reserved for this node
+     */
+    private List<Notification> createNextNotifications(OutboxEntry entry, List<Recipient> recipients) {
+        List<Notification> notifications = notificationStrategyService.createNotifications(entry.getMessage(), recipients);
+
+        notifications.forEach(retryPolicy::reserve);
+        notificationRepository.saveAll(notifications);
+
+        if (!recipients.isEmpty()) {
+            entry.setLastUserId(recipients.get(recipients.size() - 1).userId());
+            entry.setAudienceSize(entry.getAudienceSize() + recipients.size());
+        }
+
+        // A short chunk means the audience is exhausted
+        if (recipients.size() < audienceReader.getChunkSize()) {
+            entry.setStatus(OutboxStatus.COMPLETED);
+        }
+
+        return notifications;
+    }
+
+    /**
+     * Generates all notification rows of the message on the first call, then reserves
+     * the pending rows for this node one chunk per call
+     */
+    private List<Notification> claimNextPendingRows(OutboxEntry entry) {
+        Message message = entry.getMessage();
+
+        if (!entry.isAudienceExpanded()) {
+            int created = notificationRepository.insertPendingForMessage(message.getId(),
+                    BitMasks.bit(message.getCategory()), Channel.EMAIL.code(), Channel.SMS.code());
+            entry.setAudienceExpanded(true);
+            log.debug("Generated {} notifications for message {}", created, message.getId());
+            return List.of();
+        }
+
+        int chunkSize = notificationProperties.getFanOut().getChunkSize();
+
+        List<Notification> pending = notificationRepository.findUnsentByMessageAfter(
+                message.getId(), entry.getLastNotificationId(), PageRequest.of(0, chunkSize));
+
+        pending.forEach(retryPolicy::reserve);
+
+        if (!pending.isEmpty()) {
+            entry.setLastNotificationId(pending.get(pending.size() - 1).getId());
+        }
+
+        if (pending.size() < chunkSize) {
+            entry.setStatus(OutboxStatus.COMPLETED);
+        }
+
+        return pending;
+    }
+
+    /**
+     * The notifications of a chunk, committed but not sent yet
+     *
+     * @param message The message of the outbox entry
+     * @param notifications The notifications to send
+     * @param recipients The number of subscribers the chunk read, 0 in set-based mode
+     * @param audience The number of subscribers of the whole fan-out if the chunk completed it, null otherwise
+     *                 and in set-based mode, which does not read the subscribers
+     * @param hasMore Whether the entry has work left
+     */
+    private record Chunk(Message message, List<Notification> notifications, int recipients, Integer audience,
+                         boolean hasMore) {
+    }
+}
@@ -1,5 +1,7 @@
 package com.notification.service.service;
 
+import com.notification.service.dto.PageCursor;
+import com.notification.service.dto.NotificationLogResponse;
 import com.notification.service.model.Notification;
 import com.notification.service.model.User;
 import com.notification.service.model.enums.Channel;
@@ -26,9 +28,21 @@ public class NotificationLogService {
      * @param size The page size
      * @return A page of notifications
      */
-    public Page<Notification> getAllNotifications(int page, int size) {
+    public Page<NotificationLogResponse> getAllNotifications(int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        return notificationRepository.findAllOrderByCreatedAtDesc(pageable);
+        return notificationRepository.findLogPage(pageable);
+    }
+
+    /**
+     * Retrieves the notifications that follow a cursor, newest first. Unlike {@link #getAllNotifications},
+     * this seeks straight to the page and counts nothing, so every page costs the same.
+     *
+     * @param after The position of the last notification of the previous page
+     * @param size The page size
+     * @return Up to {@code size} notifications
+     */
+    public List<NotificationLogResponse> getNotificationsAfter(PageCursor after, int size) {
+        return notificationRepository.findLogAfter(after.createdAt(), after.id(), PageRequest.of(0, size));
     }
 
     /**
@@ -52,15 +66,15 @@ public class NotificationLogService {
     }
 
     /**
-     * Retrieves notifications by sent status
+     * Retrieves a page of notifications by sent status, newest first
      *
      * @param sent The sent status to filter by
-     * @return A list of notifications with the specified sent status
+     * @param after The position of the last notification of the previous page
+     * @param size The page size
+     * @return Up to {@code size} notifications with the specified sent status
      */
-    public List<Notification> getNotificationsBySentStatus(boolean sent) {
-        return notificationRepository.findAll().stream()
-                .filter(notification -> notification.isSent() == sent)
-                .toList();
+    public List<NotificationLogResponse> getNotificationsBySentStatus(boolean sent, PageCursor after, int size) {
+        return notificationRepository.findLogBySentAfter(sent, after.createdAt(), after.id(), PageRequest.of(0, size));
     }
 
     /**
@@ -78,8 +92,6 @@ public class NotificationLogService {
      * @return The number of successfully sent notifications
      */
     public long countSentNotifications() {
-        return notificationRepository.findAll().stream()
-                .filter(Notification::isSent)
-                .count();
+        return notificationRepository.countBySent(true);
     }
 }
\ No newline at end of file
@@ -0,0 +1,276 @@
+package com.notification.service.service;
+
+import com.notification.service.config.NotificationProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Maintains the monthly partitions of the notifications table, named notifications_YYYY_MM.
+ * Partitions are created a few months before rows go into them, and the partitions of months past the
+ * retention period are detached concurrently, without blocking the queries and inserts on the table, then dropped.
+ * This removes their rows without a DELETE or the vacuum that follows it.
+ * There is no default partition, which would prevent concurrent detaching, so rows can only be inserted
+ * into months whose partition has been created: while the partition of the current or the next month is missing,
+ * {@link NotificationPartitionsHealthIndicator} reports the node as not ready.
+ * Runs at startup and then periodically on every node: each statement is idempotent and runs under an advisory
+ * lock, so concurrent nodes do not conflict. Does nothing unless the notifications table is partitioned,
+ * i.e. on PostgreSQL once the migrations have run.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NotificationPartitionMaintenance {
+
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'notifications_'uuuu_MM");
+
+    // Arbitrary key of the advisory lock serializing the maintenance statements of all nodes
+    private static final long LOCK_KEY = 7_310_452_118L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationProperties notificationProperties;
+
+    private volatile boolean partitioned;
+
+    // Partitions of the current and the next month found missing by the last run, null before the first one
+    private volatile List<String> missingPartitions;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!notificationProperties.getPartitions().isEnabled()) {
+            return;
+        }
+
+        partitioned = isPartitioned();
+        if (partitioned) {
+            maintain();
+        } else {
+            log.info("The notifications table is not partitioned, partition maintenance is disabled");
+        }
+    }
+
+    /**
+     * Creates the missing partitions of the current month and the months ahead, then drops the expired ones
+     *
+     * @return The number of partitions created and dropped by this run
+     */
+    @Scheduled(fixedDelayString = "${notification.partitions.maintenance-interval-ms:3600000}",
+            initialDelayString = "${notification.partitions.maintenance-interval-ms:3600000}")
+    public Changes maintain() {
+        if (!partitioned) {
+            return Changes.NONE;
+        }
+        return maintain(YearMonth.now());
+    }
+
+    Changes maintain(YearMonth currentMonth) {
+        NotificationProperties.Partitions config = notificationProperties.getPartitions();
+        List<Partition> partitions = findPartitions();
+        List<String> missing = new ArrayList<>();
+        int created = 0;
+        int dropped = 0;
+
+        // The next month's partition is always made ahead, so inserts never wait for the first run of a month
+        for (int i = 0; i <= Math.max(config.getPremakeMonths(), 1); i++) {
+            YearMonth month = currentMonth.plusMonths(i);
+            String partition = PARTITION_NAME.format(month);
+
+            Partition existing = partitions.stream().filter(p -> p.name().equals(partition)).findFirst().orElse(null);
+
+            if (existing != null && existing.attached()) {
+                continue;
+            }
+            // A table of the month that is not attached cannot be created over, it is left to the operator
+            if (existing == null && execute(String.format(
+                    "CREATE TABLE IF NOT EXISTS %s PARTITION OF notifications FOR VALUES FROM ('%s') TO ('%s')",
+                    partition, month.atDay(1), month.plusMonths(1).atDay(1)))) {
+                created++;
+            } else if (i <= 1) {
+                missing.add(partition);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            log.error("Notification partitions {} are missing, their notifications cannot be inserted", missing);
+        }
+        missingPartitions = List.copyOf(missing);
+
+        if (config.getRetentionMonths() > 0) {
+            YearMonth oldestKept = currentMonth.minusMonths(config.getRetentionMonths());
+
+            for (Partition partition : partitions) {
+                if (partition.month().isBefore(oldestKept) && detach(partition)
+                        && execute("DROP TABLE IF EXISTS " + partition.name())) {
+                    dropped++;
+                }
+            }
+        }
+
+        return new Changes(created, dropped);
+    }
+
+    /**
+     * Lists the monthly partitions, oldest first, including the tables of months already detached but not dropped
+     */
+    private List<Partition> findPartitions() {
+        List<Partition> partitions = jdbcTemplate.query("""
+                SELECT c.relname, i.inhrelid IS NOT NULL, COALESCE(i.inhdetachpending, FALSE)
+                FROM pg_class c
+                LEFT JOIN pg_inherits i ON i.inhrelid = c.oid AND i.inhparent = to_regclass('notifications')
+                WHERE c.relkind = 'r' AND c.relnamespace = current_schema()::regnamespace
+                  AND c.relname LIKE 'notifications\\_%'
+                """, (rs, row) -> new Partition(rs.getString(1), parseMonth(rs.getString(1)),
+                rs.getBoolean(2), rs.getBoolean(3)));
+
+        return partitions.stream()
+                .filter(partition -> partition.month() != null)
+                .sorted(Comparator.comparing(Partition::month))
+                .toList();
+    }
+
+    /**
+     * Detaches a partition from the notifications table without blocking the queries and inserts on it.
+     * A concurrent detach commits in two steps and cannot run in a transaction, so it runs on its own connection
+     * under a session-level advisory lock; a detach interrupted between the steps is finalized.
+     *
+     * @param partition The partition
+     * @return true if the partition is detached, false if it is left for the next run
+     */
+    private boolean detach(Partition partition) {
+        if (!partition.attached()) {
+            return true;
+        }
+
+        String sql = "ALTER TABLE notifications DETACH PARTITION " + partition.name()
+                + (partition.detachPending() ? " FINALIZE" : " CONCURRENTLY");
+        long lockTimeoutMs = notificationProperties.getPartitions().getLockTimeoutMs();
+
+        try {
+            Boolean detached = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    try (ResultSet locked = statement.executeQuery("SELECT pg_try_advisory_lock(" + LOCK_KEY + ")")) {
+                        // Another node is running a statement; this one is retried at the next run
+                        if (!locked.next() || !locked.getBoolean(1)) {
+                            return false;
+                        }
+                    }
+                    try {
+                        statement.execute("SET lock_timeout = " + lockTimeoutMs);
+                        statement.execute(sql);
+                    } finally {
+                        statement.execute("RESET lock_timeout");
+                        statement.execute("SELECT pg_advisory_unlock(" + LOCK_KEY + ")");
+                    }
+                    return true;
+                }
+            });
+            if (!Boolean.TRUE.equals(detached)) {
+                return false;
+            }
+        } catch (DataAccessException e) {
+            log.warn("Notification partition maintenance failed, retrying at the next run: {}", sql, e);
+            return false;
+        }
+
+        log.info("Notification partition maintenance: {}", sql);
+        return true;
+    }
+
+    /**
+     * Runs a partition statement in its own transaction, so its locks are held as briefly as possible
+     *
+     * @param sql The statement
+     * @return true if the statement ran, false if it failed and is left for the next run
+     */
+    private boolean execute(String sql) {
+        long lockTimeoutMs = notificationProperties.getPartitions().getLockTimeoutMs();
+
+        try {
+            transactionTemplate.execute(status -> {
+                jdbcTemplate.execute("SET LOCAL lock_timeout = " + lockTimeoutMs);
+                jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + LOCK_KEY + ")");
+                jdbcTemplate.execute(sql);
+                return null;
+            });
+        } catch (DataAccessException e) {
+            log.warn("Notification partition maintenance failed, retrying at the next run: {}", sql, e);
+            return false;
+        }
+
+        log.info("Notification partition maintenance: {}", sql);
+        return true;
+    }
+
+    /**
+     * Returns whether the notifications table is partitioned and its partitions are maintained by this node
+     *
+     * @return true once the maintenance has checked the table at startup and found it partitioned
+     */
+    public boolean isMaintained() {
+        return partitioned;
+    }
+
+    /**
+     * Returns the partitions of the current and the next month that the last maintenance run found missing
+     * and could not create
+     *
+     * @return The names of the missing partitions, or null if the maintenance has not run yet
+     */
+    public List<String> getMissingPartitions() {
+        return missingPartitions;
+    }
+
+    private boolean isPartitioned() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+
+        return "PostgreSQL".equals(database) && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('notifications'))",
+                Boolean.class));
+    }
+
+    /**
+     * Returns the month of a monthly partition
+     *
+     * @param partition The name of a partition
+     * @return The month, or null for tables not named after a month
+     */
+    static YearMonth parseMonth(String partition) {
+        try {
+            return YearMonth.parse(partition, PARTITION_NAME);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A monthly partition of the notifications table, or the table of a month detached from it
+     */
+    record Partition(String name, YearMonth month, boolean attached, boolean detachPending) {
+    }
+
+    /**
+     * Numbers of partitions created and dropped by a maintenance run
+     */
+    public record Changes(int created, int dropped) {
+
+        public static final Changes NONE = new Changes(0, 0);
+    }
+}
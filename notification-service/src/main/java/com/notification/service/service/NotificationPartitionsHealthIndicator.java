@@ -0,0 +1,37 @@
+package com.notification.service.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Reports whether the partitions of the current and the next month of the notifications table exist.
+ * Without them the fan-out fails to insert notifications, so this indicator is part of the readiness group
+ * and takes the node out of traffic until {@link NotificationPartitionMaintenance} has created them.
+ * A table that is not partitioned, or whose partitions are not maintained by the service, is always up.
+ */
+@Component
+@RequiredArgsConstructor
+public class NotificationPartitionsHealthIndicator implements HealthIndicator {
+
+    private final NotificationPartitionMaintenance partitionMaintenance;
+
+    @Override
+    public Health health() {
+        if (!partitionMaintenance.isMaintained()) {
+            return Health.up().withDetail("maintained", false).build();
+        }
+
+        List<String> missing = partitionMaintenance.getMissingPartitions();
+        if (missing == null) {
+            return Health.unknown().build();
+        }
+        if (!missing.isEmpty()) {
+            return Health.down().withDetail("missing", missing).build();
+        }
+        return Health.up().build();
+    }
+}
@@ -0,0 +1,135 @@
+package com.notification.service.service;
+
+import com.notification.service.config.NotificationProperties;
+import com.notification.service.model.Notification;
+import com.notification.service.model.enums.Channel;
+import com.notification.service.repository.NotificationRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+public class NotificationRetryService {
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationStrategyService notificationStrategyService;
+    private final ChannelRateLimiter channelRateLimiter;
+    private final RetryPolicy retryPolicy;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationProperties notificationProperties;
+
+    /**
+     * Retries the next batch of notifications due for a retry after a keyset cursor.
+     * The batch is claimed in a short transaction that pushes the next attempt of the notifications it retries
+     * past the delivery lease, so other nodes skip them once the row locks are released. They are then sent
+     * outside of any transaction and their outcomes written in a transaction of their own, like those of a fan-out.
+     * Only the permits regular deliveries leave unused are spent: notifications of a saturated channel are
+     * left for a later scan.
+     *
+     * @param now The time the scan started; only notifications due by then are retried
+     * @param after The position of the last notification of the previous batch
+     * @return What the batch did and where the next one starts
+     */
+    public RetryBatch retryNextBatch(LocalDateTime now, RetryCursor after) {
+        Claim claim = transactionTemplate.execute(status -> claimNextBatch(now, after));
+
+        if (claim.retried().isEmpty()) {
+            return new RetryBatch(claim.scanned(), 0, 0, claim.next());
+        }
+
+        int sent = notificationStrategyService.retryNotifications(claim.retried()).size();
+
+        return new RetryBatch(claim.scanned(), claim.retried().size(), sent, claim.next());
+    }
+
+    /**
+     * Locks the next due notifications, skipping those other nodes hold, and reserves the ones there are
+     * spare permits for until the delivery lease expires. Must run in a transaction.
+     */
+    private Claim claimNextBatch(LocalDateTime now, RetryCursor after) {
+        int batchSize = notificationProperties.getRetry().getBatchSize();
+        List<Long> ids = notificationRepository.lockDueForRetry(now, after.nextAttemptAt(), after.id(), batchSize);
+
+        if (ids.isEmpty()) {
+            return new Claim(0, List.of(), after);
+        }
+
+        List<Notification> due = notificationRepository.findWithUserAndMessageByIdIn(ids);
+
+        // Read the cursor before the claim moves the notifications' next attempt
+        Notification last = due.get(due.size() - 1);
+        RetryCursor next = new RetryCursor(last.getNextAttemptAt(), last.getId());
+
+        Map<Channel, List<Notification>> byChannel = new EnumMap<>(Channel.class);
+        for (Notification notification : due) {
+            byChannel.computeIfAbsent(notification.getChannel(), channel -> new ArrayList<>()).add(notification);
+        }
+
+        Map<Channel, Integer> taken = new EnumMap<>(Channel.class);
+        releaseOnRollback(taken);
+
+        List<Notification> retried = new ArrayList<>(due.size());
+        byChannel.forEach((channel, notifications) -> {
+            int permits = channelRateLimiter.tryAcquireUpTo(channel, notifications.size());
+            if (permits > 0) {
+                taken.put(channel, permits);
+            }
+            retried.addAll(notifications.subList(0, permits));
+        });
+
+        // Written when the claim commits; if this node stops before writing the outcomes, the lease expires
+        retried.forEach(retryPolicy::reserve);
+
+        return new Claim(ids.size(), retried, next);
+    }
+
+    /**
+     * Gives the permits taken by the claim back to the rate limiter if its transaction rolls back,
+     * since none of the notifications they were taken for is sent then
+     */
+    private void releaseOnRollback(Map<Channel, Integer> taken) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    taken.forEach(channelRateLimiter::release);
+                }
+            }
+        });
+    }
+
+    /**
+     * Position in the scan of notifications due for a retry, ordered by next attempt then ID
+     */
+    public record RetryCursor(LocalDateTime nextAttemptAt, long id) {
+
+        public static final RetryCursor START = new RetryCursor(LocalDateTime.of(1970, 1, 1, 0, 0), 0);
+    }
+
+    /**
+     * Outcome of one retry batch
+     *
+     * @param scanned The number of due notifications locked
+     * @param retried The number of them retried, within the spare permits
+     * @param sent The number of retries that succeeded
+     * @param next The cursor the next batch starts after
+     */
+    public record RetryBatch(int scanned, int retried, int sent, RetryCursor next) {
+    }
+
+    private record Claim(int scanned, List<Notification> retried, RetryCursor next) {
+    }
+}
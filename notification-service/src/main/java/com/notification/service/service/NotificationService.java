@@ -3,6 +3,9 @@ package com.notification.service.service;
 import com.notification.service.model.Notification;
 import com.notification.service.model.User;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public interface NotificationService {
     
     /**
@@ -13,6 +16,23 @@ public interface NotificationService {
      */
     boolean send(Notification notification);
     
+    /**
+     * Sends several notifications through this service's channel in as few provider calls as possible.
+     * The default implementation sends them one by one.
+     * 
+     * @param notifications The notifications to send
+     * @return Whether each notification was sent, in the order of {@code notifications}
+     */
+    default List<Boolean> sendBatch(List<Notification> notifications) {
+        List<Boolean> results = new ArrayList<>(notifications.size());
+        
+        for (Notification notification : notifications) {
+            results.add(send(notification));
+        }
+        
+        return results;
+    }
+    
     /**
      * Checks if a user can receive notifications through this service's channel
      * 
@@ -0,0 +1,351 @@
+package com.notification.service.service;
+
+import com.notification.service.model.NotificationCounter;
+import com.notification.service.model.enums.Category;
+import com.notification.service.model.enums.Channel;
+import com.notification.service.repository.NotificationCounterRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Sent and failed notification counts per category and channel, read without touching the notifications table.
+ * Deliveries committed on this node are added to striped in-memory counters, which are periodically checkpointed
+ * into the notification_counters table shared by all nodes; the table is then read back, so each node also
+ * sees the other nodes' deliveries once they have been checkpointed. The table can be rebuilt from the
+ * notifications table as a maintenance operation, through {@link NotificationStatisticsEndpoint}. A rebuild replaces
+ * the counts committed on this node, so other nodes must not be delivering while it runs: their counts not
+ * checkpointed yet would be added on top of it. It is therefore never run on its own, such as at startup, where
+ * the other nodes of a rolling restart are still delivering.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NotificationStatistics {
+
+    private static final Category[] CATEGORIES = Category.values();
+    private static final Channel[] CHANNELS = Channel.values();
+    private static final int SLOTS = CATEGORIES.length * CHANNELS.length * 2;
+
+    private final NotificationCounterRepository notificationCounterRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // Committed on this node and not checkpointed yet, two slots (sent, failed) per category and channel
+    private final LongAdder[] pending = newAdders();
+
+    // The checkpoint lock only keeps readers from seeing a checkpoint half applied; deliveries never take it
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Held shared by transactions from just before they commit until their counts are pending, and exclusively
+    // by a rebuild, so its grouped query sees either both the rows and the counts of a transaction or neither
+    private final ReadWriteLock commitLock = new ReentrantReadWriteLock();
+    private long[] checkpointing = new long[SLOTS];
+    private long[] checkpointed = new long[SLOTS];
+
+    /**
+     * Adds the outcome of a delivery attempt to the counters once the current transaction commits
+     *
+     * @param category The category of the notification's message
+     * @param channel The channel of the notification
+     * @param sent The change of the sent count
+     * @param failed The change of the failed count
+     */
+    public void record(Category category, Channel channel, int sent, int failed) {
+        int slot = slot(category, channel);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            pending[slot].add(sent);
+            pending[slot + 1].add(failed);
+            return;
+        }
+
+        // One buffer and one synchronization per transaction, however many notifications it writes
+        long[] buffer = (long[]) TransactionSynchronizationManager.getResource(this);
+        if (buffer == null) {
+            buffer = new long[SLOTS];
+            TransactionSynchronizationManager.bindResource(this, buffer);
+            TransactionSynchronizationManager.registerSynchronization(new CommitSynchronization(buffer));
+        }
+        buffer[slot] += sent;
+        buffer[slot + 1] += failed;
+    }
+
+    /**
+     * Returns the current counts. This does not query the database.
+     *
+     * @return The counts per category and channel
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[SLOTS];
+
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < SLOTS; i++) {
+                counts[i] = checkpointed[i] + checkpointing[i] + pending[i].sum();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return new Snapshot(counts);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        checkpoint();
+    }
+
+    /**
+     * Adds the counts committed on this node since the last checkpoint to the shared counters,
+     * then reads back the counters of all nodes
+     */
+    @Scheduled(fixedDelayString = "${notification.stats.checkpoint-interval-ms:10000}",
+            initialDelayString = "${notification.stats.checkpoint-interval-ms:10000}")
+    public synchronized void checkpoint() {
+        long[] drained = new long[SLOTS];
+
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < SLOTS; i++) {
+                drained[i] = pending[i].sumThenReset();
+            }
+            checkpointing = drained;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long[] loaded;
+        try {
+            loaded = transactionTemplate.execute(status -> {
+                writeCounts(drained);
+                return readCounts();
+            });
+        } catch (RuntimeException e) {
+            log.warn("Notification statistics checkpoint failed, retrying at the next one", e);
+            restore(drained);
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            checkpointed = loaded;
+            checkpointing = new long[SLOTS];
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Recomputes the shared counters from the notifications table with a single grouped query.
+     * Counts committed on this node but not checkpointed yet are already in that table, so they are dropped.
+     * Transactions recording deliveries wait to commit until the rebuild is done.
+     * Other nodes must not be delivering while it runs.
+     *
+     * @return The rebuilt counts
+     */
+    public synchronized Snapshot rebuild() {
+        commitLock.writeLock().lock();
+        try {
+            long[] loaded = transactionTemplate.execute(status -> {
+                notificationCounterRepository.deleteAllInBatch();
+                notificationCounterRepository.insertCountsFromNotifications();
+                return readCounts();
+            });
+
+            lock.writeLock().lock();
+            try {
+                for (LongAdder adder : pending) {
+                    adder.reset();
+                }
+                checkpointed = loaded;
+                checkpointing = new long[SLOTS];
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            commitLock.writeLock().unlock();
+        }
+
+        Snapshot snapshot = snapshot();
+        log.info("Rebuilt notification statistics: {} sent, {} failed", snapshot.sent(), snapshot.failed());
+        return snapshot;
+    }
+
+    private void writeCounts(long[] counts) {
+        for (Category category : CATEGORIES) {
+            for (Channel channel : CHANNELS) {
+                int slot = slot(category, channel);
+                long sent = counts[slot];
+                long failed = counts[slot + 1];
+
+                if (sent == 0 && failed == 0) {
+                    continue;
+                }
+                if (notificationCounterRepository.addCounts(category, channel, sent, failed) == 0) {
+                    notificationCounterRepository.save(new NotificationCounter(category, channel, sent, failed));
+                }
+            }
+        }
+    }
+
+    private long[] readCounts() {
+        long[] counts = new long[SLOTS];
+
+        for (NotificationCounter counter : notificationCounterRepository.findAll()) {
+            int slot = slot(counter.getCategory(), counter.getChannel());
+            counts[slot] = counter.getSentCount();
+            counts[slot + 1] = counter.getFailedCount();
+        }
+
+        return counts;
+    }
+
+    private void restore(long[] drained) {
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < SLOTS; i++) {
+                pending[i].add(drained[i]);
+            }
+            checkpointing = new long[SLOTS];
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static int slot(Category category, Channel channel) {
+        return (category.ordinal() * CHANNELS.length + channel.ordinal()) * 2;
+    }
+
+    private static LongAdder[] newAdders() {
+        LongAdder[] adders = new LongAdder[SLOTS];
+        for (int i = 0; i < SLOTS; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * Adds the counts recorded by a transaction to the pending counters once it commits
+     */
+    private class CommitSynchronization implements TransactionSynchronization {
+
+        private final long[] buffer;
+        private boolean locked;
+
+        private CommitSynchronization(long[] buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            commitLock.readLock().lock();
+            locked = true;
+        }
+
+        @Override
+        public void afterCommit() {
+            for (int i = 0; i < SLOTS; i++) {
+                if (buffer[i] != 0) {
+                    pending[i].add(buffer[i]);
+                }
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (locked) {
+                commitLock.readLock().unlock();
+            }
+            TransactionSynchronizationManager.unbindResourceIfPossible(NotificationStatistics.this);
+        }
+    }
+
+    /**
+     * Sent and failed counts
+     */
+    public record Counts(long sent, long failed) {
+
+        public long total() {
+            return sent + failed;
+        }
+    }
+
+    /**
+     * Point-in-time copy of the counters
+     */
+    public static final class Snapshot {
+
+        private final long[] counts;
+
+        private Snapshot(long[] counts) {
+            this.counts = counts;
+        }
+
+        public long sent() {
+            return sum(0);
+        }
+
+        public long failed() {
+            return sum(1);
+        }
+
+        public long total() {
+            return sent() + failed();
+        }
+
+        public Counts get(Category category, Channel channel) {
+            int slot = slot(category, channel);
+            return new Counts(counts[slot], counts[slot + 1]);
+        }
+
+        public Map<Channel, Counts> byChannel() {
+            Map<Channel, Counts> byChannel = new EnumMap<>(Channel.class);
+            for (Channel channel : CHANNELS) {
+                long sent = 0;
+                long failed = 0;
+                for (Category category : CATEGORIES) {
+                    Counts counts = get(category, channel);
+                    sent += counts.sent();
+                    failed += counts.failed();
+                }
+                byChannel.put(channel, new Counts(sent, failed));
+            }
+            return byChannel;
+        }
+
+        public Map<Category, Counts> byCategory() {
+            Map<Category, Counts> byCategory = new EnumMap<>(Category.class);
+            for (Category category : CATEGORIES) {
+                long sent = 0;
+                long failed = 0;
+                for (Channel channel : CHANNELS) {
+                    Counts counts = get(category, channel);
+                    sent += counts.sent();
+                    failed += counts.failed();
+                }
+                byCategory.put(category, new Counts(sent, failed));
+            }
+            return byCategory;
+        }
+
+        private long sum(int offset) {
+            long sum = 0;
+            for (int i = offset; i < counts.length; i += 2) {
+                sum += counts[i];
+            }
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.notification.service.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Rebuilds the statistics counters from the notifications table on request, with
+ * {@code POST /actuator/notificationstats}. This is a maintenance operation: the rebuild drops the counts other
+ * nodes have not checkpointed yet, so it must only be run while no other node is delivering, for example with
+ * the other nodes scaled down, never during a rolling restart.
+ */
+@Component
+@Endpoint(id = "notificationstats")
+@RequiredArgsConstructor
+public class NotificationStatisticsEndpoint {
+
+    private final NotificationStatistics notificationStatistics;
+
+    @WriteOperation
+    public Map<String, Object> rebuild() {
+        NotificationStatistics.Snapshot snapshot = notificationStatistics.rebuild();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("totalNotifications", snapshot.total());
+        stats.put("sentNotifications", snapshot.sent());
+        stats.put("failedNotifications", snapshot.failed());
+        return stats;
+    }
+}
@@ -1,16 +1,29 @@
 package com.notification.service.service;
 
+import com.notification.service.config.NotificationProperties;
 import com.notification.service.model.Message;
 import com.notification.service.model.Notification;
+import com.notification.service.model.Recipient;
 import com.notification.service.model.User;
 import com.notification.service.model.enums.Channel;
+import com.notification.service.repository.MessageRepository;
 import com.notification.service.repository.NotificationRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -22,60 +35,236 @@ public class NotificationStrategyService {
     private final SmsNotificationService smsNotificationService;
     private final PushNotificationService pushNotificationService;
     private final NotificationRepository notificationRepository;
+    private final MessageRepository messageRepository;
+    private final NotificationProperties notificationProperties;
+    private final AudienceReader audienceReader;
+    private final ChannelBulkheads channelBulkheads;
+    private final ChannelRateLimiter channelRateLimiter;
+    private final RetryPolicy retryPolicy;
+    private final NotificationStatistics notificationStatistics;
+    private final DeliveryMetrics deliveryMetrics;
+    private final TransactionTemplate transactionTemplate;
     
     /**
-     * Creates and sends notifications for a message to all eligible users
+     * Creates and sends notifications for a message to every subscriber of its category.
+     * The audience is read in chunks and each chunk is released before the next one is loaded,
+     * so memory use does not depend on the number of subscribers.
      * 
      * @param message The message to send notifications for
-     * @param users The list of users to notify
+     * @return The number of successfully sent notifications
+     */
+    public int processAudience(Message message) {
+        int sentCount = 0;
+        int audience = 0;
+        
+        for (List<Recipient> recipients : audienceReader.readInChunks(message.getCategory())) {
+            sentCount += processRecipients(message, recipients).size();
+            audience += recipients.size();
+        }
+        
+        deliveryMetrics.recordAudience(message.getCategory(), audience);
+        return sentCount;
+    }
+    
+    /**
+     * Creates and sends notifications for a message to subscribers read as {@link Recipient} projections.
+     * The recipients are already known to be subscribed, so only their channels are checked.
+     * Notifications are sent in per-channel provider batches, concurrently on the {@link ChannelBulkheads}.
+     * They are delivered in batches of {@code notification.fan-out.write-batch-size}, and each channel's
+     * notifications of a batch are written with a single flush as soon as that channel's deliveries complete.
+     * Each group first waits for its channel's quota, up to {@code notification.rate-limit.max-wait-ms}.
+     * Groups whose quota does not come in time, or that find their channel's lane full, are not sent:
+     * they are written unattempted and parked for the retry scheduler.
+     * 
+     * @param message The message to send notifications for
+     * @param recipients The subscribers to notify
      * @return A list of successfully sent notifications
      */
-    public List<Notification> processNotifications(Message message, List<User> users) {
+    public List<Notification> processRecipients(Message message, List<Recipient> recipients) {
         List<Notification> sentNotifications = new ArrayList<>();
         
-        // Map notification services by channel for easy lookup
+        if (recipients == null || recipients.isEmpty()) {
+            return sentNotifications;
+        }
+        
+        long start = System.nanoTime();
         Map<Channel, NotificationService> serviceMap = createServiceMap();
         
-        for (User user : users) {
-            // Skip users who aren't subscribed to this message's category
-            if (user.getSubscriptions() == null || !user.getSubscriptions().contains(message.getCategory())) {
-                continue;
+        int writeBatchSize = notificationProperties.getFanOut().getWriteBatchSize();
+        DeliveryBatch batch = new DeliveryBatch(serviceMap, true, false);
+        
+        for (Notification notification : createNotifications(message, recipients, serviceMap)) {
+            batch.add(notification);
+            
+            if (batch.size() >= writeBatchSize) {
+                batch.complete(sentNotifications);
+                batch = new DeliveryBatch(serviceMap, true, false);
             }
+        }
+        
+        batch.complete(sentNotifications);
+        deliveryMetrics.recordFanOut(message.getCategory(), System.nanoTime() - start);
+        
+        return sentNotifications;
+    }
+    
+    /**
+     * Creates the unsent notifications of a message for subscribers read as {@link Recipient} projections,
+     * one per channel of each recipient that the channel's service can send to
+     * 
+     * @param message The message to notify about
+     * @param recipients The subscribers to notify
+     * @return The notifications, not saved yet
+     */
+    public List<Notification> createNotifications(Message message, List<Recipient> recipients) {
+        return createNotifications(message, recipients, createServiceMap());
+    }
+    
+    private List<Notification> createNotifications(Message message, List<Recipient> recipients,
+                                                   Map<Channel, NotificationService> serviceMap) {
+        List<Notification> notifications = new ArrayList<>();
+        
+        for (Recipient recipient : recipients) {
+            // A detached user carrying only the projected columns; it is never loaded or dirty-checked
+            User user = recipient.toUser();
             
-            // For each channel the user is subscribed to, create and send a notification
-            for (Channel channel : user.getChannels()) {
+            for (Channel channel : Channel.values()) {
+                if (!recipient.hasChannel(channel)) {
+                    continue;
+                }
+                
                 NotificationService service = serviceMap.get(channel);
                 
-                // Skip if no service is available for this channel or user can't receive via this channel
                 if (service == null || !service.canSendToUser(user)) {
                     continue;
                 }
                 
-                // Create a new notification
-                Notification notification = Notification.builder()
+                notifications.add(Notification.builder()
                         .message(message)
                         .user(user)
                         .channel(channel)
                         .sent(false)
-                        .build();
-                
-                // Save the notification to the database
-                notification = notificationRepository.save(notification);
-                
-                // Try to send the notification
-                boolean sent = service.send(notification);
-                
-                // If sent successfully, update the notification in the database and add to result list
-                if (sent) {
-                    notification = notificationRepository.save(notification);
-                    sentNotifications.add(notification);
-                }
+                        // The precision of the column, so the saved row can be matched on its creation date
+                        .createdAt(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS))
+                        .build());
             }
         }
         
+        return notifications;
+    }
+    
+    /**
+     * Sends notifications whose rows are already committed, such as those of a fan-out chunk, outside of any
+     * transaction: each channel's outcomes are written with one batched update in a transaction of their own,
+     * so no transaction stays open while providers and quotas are waited for. Failed ones are scheduled for a retry.
+     * 
+     * @param notifications The pending notifications to deliver
+     * @return A list of successfully sent notifications
+     */
+    public List<Notification> deliverNotifications(List<Notification> notifications) {
+        return deliver(notifications, true, true);
+    }
+    
+    /**
+     * Retries notifications whose previous attempts failed, claimed by the caller in a transaction that has
+     * committed. They are sent like in {@link #deliverNotifications}, except that the channels' quotas are not
+     * waited for: the caller has already taken the permits
+     * 
+     * @param notifications The notifications to retry
+     * @return A list of successfully sent notifications
+     */
+    public List<Notification> retryNotifications(List<Notification> notifications) {
+        return deliver(notifications, false, true);
+    }
+    
+    private List<Notification> deliver(List<Notification> notifications, boolean acquireQuota, boolean committed) {
+        List<Notification> sentNotifications = new ArrayList<>();
+        
+        if (notifications == null || notifications.isEmpty()) {
+            return sentNotifications;
+        }
+        
+        Map<Channel, NotificationService> serviceMap = createServiceMap();
+        DeliveryBatch batch = new DeliveryBatch(serviceMap, acquireQuota, committed);
+        
+        for (Notification notification : notifications) {
+            if (serviceMap.containsKey(notification.getChannel())) {
+                batch.add(notification);
+            }
+        }
+        
+        batch.complete(sentNotifications);
+        
         return sentNotifications;
     }
     
+    /**
+     * Writes a batch of notifications with a single flush, letting Hibernate group the
+     * statements into JDBC batches, and adds the outcome of the attempted ones to their messages' counters.
+     * Rows committed before the deliveries are not in the persistence context: their outcomes are written
+     * with a batched update in a transaction of their own.
+     * 
+     * @param attempted The notifications that were just attempted
+     * @param parked The notifications left for a retry without an attempt
+     * @param committed Whether the notifications' rows were committed before they were sent
+     */
+    private void writeBatch(List<Notification> attempted, List<Notification> parked, boolean committed) {
+        if (attempted.isEmpty() && parked.isEmpty()) {
+            return;
+        }
+        
+        List<Notification> batch = new ArrayList<>(attempted.size() + parked.size());
+        batch.addAll(attempted);
+        batch.addAll(parked);
+        
+        if (committed) {
+            transactionTemplate.executeWithoutResult(status -> {
+                notificationRepository.updateDeliveryOutcomes(batch);
+                countDeliveries(attempted);
+            });
+        } else {
+            notificationRepository.saveAllAndFlush(batch);
+            countDeliveries(attempted);
+        }
+    }
+    
+    /**
+     * Updates the sent and failed counters of the messages of just attempted notifications,
+     * with one update per message, and the {@link NotificationStatistics}. A failed notification
+     * is counted on its first attempt only, and moves from failed to sent when a retry succeeds.
+     * 
+     * @param batch The notifications that were just attempted
+     */
+    private void countDeliveries(List<Notification> batch) {
+        // Keyed by identity, messages are mutable entities
+        Map<Message, DeliveryCounts> counts = new IdentityHashMap<>();
+        
+        for (Notification notification : batch) {
+            boolean retried = notification.getAttempts() > 1;
+            int sent = notification.isSent() ? 1 : 0;
+            int failed = notification.isSent() ? (retried ? -1 : 0) : (retried ? 0 : 1);
+            
+            if (sent == 0 && failed == 0) {
+                continue;
+            }
+            
+            Message message = notification.getMessage();
+            DeliveryCounts messageCounts = counts.computeIfAbsent(message, m -> new DeliveryCounts());
+            messageCounts.sent += sent;
+            messageCounts.failed += failed;
+            
+            notificationStatistics.record(message.getCategory(), notification.getChannel(), sent, failed);
+        }
+        
+        counts.forEach((message, messageCounts) -> {
+            messageRepository.addNotificationCounts(message.getId(), messageCounts.sent, messageCounts.failed);
+            
+            // Keep the caller's copy in step; the counter columns are never written from the entity
+            message.setSentCount(message.getSentCount() + messageCounts.sent);
+            message.setFailedCount(message.getFailedCount() + messageCounts.failed);
+        });
+    }
+    
     /**
      * Creates a map of notification services by channel
      * 
@@ -103,4 +292,190 @@ public class NotificationStrategyService {
                         Function.identity()
                 ));
     }
-}
\ No newline at end of file
+    
+    /**
+     * Groups notifications by channel and hands each group to its service's {@link NotificationService#sendBatch}
+     * on the channel's lane, as soon as it reaches the channel's {@code batch-size}
+     */
+    private class DeliveryBatch {
+        
+        private final Map<Channel, NotificationService> serviceMap;
+        private final boolean acquireQuota;
+        private final boolean committed;
+        private final Map<Channel, List<Notification>> pending = new EnumMap<>(Channel.class);
+        private final List<Delivery> deliveries = new ArrayList<>();
+        private int size;
+        
+        private DeliveryBatch(Map<Channel, NotificationService> serviceMap, boolean acquireQuota, boolean committed) {
+            this.serviceMap = serviceMap;
+            this.acquireQuota = acquireQuota;
+            this.committed = committed;
+        }
+        
+        private void add(Notification notification) {
+            Channel channel = notification.getChannel();
+            List<Notification> channelPending = pending.computeIfAbsent(channel, c -> new ArrayList<>());
+            
+            channelPending.add(notification);
+            size++;
+            
+            if (channelPending.size() >= notificationProperties.getBulkhead().lane(channel).getBatchSize()) {
+                submit(channel, pending.remove(channel));
+            }
+        }
+        
+        private int size() {
+            return size;
+        }
+        
+        /**
+         * Sends the remaining groups, then handles the deliveries in the order they finish: records the attempts
+         * and, once the last delivery of a channel is in, writes that channel's notifications, so a slow channel
+         * does not hold up the writes of the others
+         * 
+         * @param sentNotifications The list the sent notifications are added to
+         */
+        private void complete(List<Notification> sentNotifications) {
+            pending.forEach(this::submit);
+            pending.clear();
+            
+            Map<Channel, List<Notification>> attempted = new EnumMap<>(Channel.class);
+            Map<Channel, List<Notification>> parked = new EnumMap<>(Channel.class);
+            List<Delivery> running = new ArrayList<>(deliveries);
+            
+            while (!running.isEmpty()) {
+                CompletableFuture.anyOf(running.stream().map(Delivery::results).toArray(CompletableFuture[]::new))
+                        .exceptionally(e -> null)
+                        .join();
+                
+                List<Delivery> finished = running.stream().filter(delivery -> delivery.results().isDone()).toList();
+                running.removeAll(finished);
+                
+                for (Delivery delivery : finished) {
+                    Channel channel = delivery.channel();
+                    record(delivery, attempted.computeIfAbsent(channel, c -> new ArrayList<>()),
+                            parked.computeIfAbsent(channel, c -> new ArrayList<>()), sentNotifications);
+                    
+                    if (running.stream().noneMatch(other -> other.channel() == channel)) {
+                        writeBatch(attempted.remove(channel), parked.remove(channel), committed);
+                    }
+                }
+            }
+        }
+        
+        /**
+         * Records the outcome of a finished delivery on its notifications
+         */
+        private void record(Delivery delivery, List<Notification> attempted, List<Notification> parked,
+                            List<Notification> sentNotifications) {
+            List<Notification> group = delivery.notifications();
+            List<Boolean> results;
+            
+            try {
+                results = delivery.results().join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RejectedExecutionException) {
+                    // The lane was full and no provider call was made, so the permits taken for the group are unused
+                    if (delivery.holdsPermits()) {
+                        channelRateLimiter.release(delivery.channel(), group.size());
+                    }
+                    group.forEach(retryPolicy::park);
+                    parked.addAll(group);
+                    return;
+                }
+                // A provider call that throws counts as not sent for the whole group
+                results = Collections.nCopies(group.size(), false);
+            }
+            
+            for (int i = 0; i < results.size(); i++) {
+                Notification notification = group.get(i);
+                retryPolicy.recordAttempt(notification, results.get(i));
+                
+                if (results.get(i)) {
+                    sentNotifications.add(notification);
+                }
+            }
+            attempted.addAll(group);
+        }
+        
+        private void submit(Channel channel, List<Notification> group) {
+            if (acquireQuota && !waitForQuota(channel, group.size())) {
+                // No provider call was made, the group is parked like one rejected by a full lane
+                deliveries.add(new Delivery(channel, group, false, CompletableFuture.failedFuture(
+                        new RejectedExecutionException("The " + channel + " quota was not available in time"))));
+                return;
+            }
+            
+            NotificationService service = serviceMap.get(channel);
+            CompletableFuture<List<Boolean>> results = channelBulkheads.submit(channel,
+                    () -> send(service, channel, group));
+            
+            // Taken above, or by the retry's claim when the quota is not acquired here
+            deliveries.add(new Delivery(channel, group, true, results));
+        }
+    }
+    
+    /**
+     * Waits for the channel's quota on the fan-out thread, which slows the fan-out down to the channel's rate,
+     * for at most {@code notification.rate-limit.max-wait-ms}
+     * 
+     * @return Whether the permits were taken
+     */
+    private boolean waitForQuota(Channel channel, int permits) {
+        try {
+            return channelRateLimiter.tryAcquire(channel, permits,
+                    notificationProperties.getRateLimit().getMaxWaitMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
+    /**
+     * Sends a group through its channel's service and records the duration and outcome of the provider call.
+     * A service that does not return one result per notification fails the whole group.
+     */
+    private List<Boolean> send(NotificationService service, Channel channel, List<Notification> group) {
+        long start = System.nanoTime();
+        List<Boolean> results;
+        
+        try {
+            results = service.sendBatch(group);
+            if (results.size() != group.size()) {
+                throw new IllegalStateException("The " + channel + " service returned " + results.size()
+                        + " results for " + group.size() + " notifications");
+            }
+        } catch (RuntimeException e) {
+            deliveryMetrics.recordSend(channel, System.nanoTime() - start, 0, group.size());
+            throw e;
+        }
+        
+        int sent = 0;
+        for (Boolean result : results) {
+            if (result) {
+                sent++;
+            }
+        }
+        deliveryMetrics.recordSend(channel, System.nanoTime() - start, sent, results.size() - sent);
+        
+        return results;
+    }
+    
+    /**
+     * Sent and failed notification counts of one message within a written batch
+     */
+    private static class DeliveryCounts {
+        
+        private int sent;
+        private int failed;
+    }
+    
+    /**
+     * A group of notifications whose provider call is in progress on its channel's lane
+     * 
+     * @param holdsPermits Whether the channel's permits were taken for the group, to be given back if it is not sent
+     */
+    private record Delivery(Channel channel, List<Notification> notifications, boolean holdsPermits,
+                            CompletableFuture<List<Boolean>> results) {
+    }
+}
@@ -0,0 +1,58 @@
+package com.notification.service.service;
+
+import com.notification.service.config.NotificationProperties;
+import com.notification.service.model.enums.OutboxStatus;
+import com.notification.service.repository.OutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Periodically hands pending outbox entries to the {@link NotificationDispatcher}.
+ * This picks up entries whose dispatch was refused or interrupted by a crash.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutboxRelay {
+
+    private final OutboxRepository outboxRepository;
+    private final NotificationDispatcher notificationDispatcher;
+    private final NotificationProperties notificationProperties;
+
+    /**
+     * Dispatches the oldest pending outbox entries, up to the free capacity of the dispatcher
+     *
+     * @return The number of entries accepted by the dispatcher
+     */
+    @Scheduled(fixedDelayString = "${notification.outbox.poll-interval-ms:1000}")
+    public int relayPendingEntries() {
+        int available = Math.min(notificationDispatcher.availableCapacity(),
+                notificationProperties.getOutbox().getBatchSize());
+
+        if (available == 0) {
+            return 0;
+        }
+
+        // Entries already being drained here are still pending, so read past them
+        int limit = available + notificationDispatcher.inFlightCount();
+        List<Long> pendingIds = outboxRepository.findIdsByStatus(OutboxStatus.PENDING, PageRequest.of(0, limit));
+
+        int dispatched = 0;
+        for (Long outboxId : pendingIds) {
+            if (notificationDispatcher.dispatch(outboxId)) {
+                dispatched++;
+            }
+        }
+
+        if (dispatched > 0) {
+            log.debug("Relayed {} pending outbox entries", dispatched);
+        }
+
+        return dispatched;
+    }
+}
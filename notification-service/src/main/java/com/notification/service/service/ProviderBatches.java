@@ -0,0 +1,102 @@
+package com.notification.service.service;
+
+import com.notification.service.model.Notification;
+import com.notification.service.model.User;
+import com.notification.service.model.enums.Channel;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * The batch sending shared by the channel services: the notifications a service accepts are grouped into
+ * provider calls, each call reports a status per recipient, and the outcome of each notification is audited
+ */
+@Slf4j
+final class ProviderBatches {
+
+    private ProviderBatches() {
+    }
+
+    /**
+     * Sends the accepted notifications in provider calls, one per distinct call key
+     *
+     * @param notifications The notifications to send
+     * @param accepts Whether the service can send a notification
+     * @param callKey The provider call a notification belongs to, such as its message for a multicast
+     * @param providerCall Sends the notifications of one call and returns whether each one was accepted, in order
+     * @param audit Records the outcome of a notification
+     * @return Whether each notification was sent, in the order of {@code notifications}
+     */
+    static <K> List<Boolean> send(List<Notification> notifications, Predicate<Notification> accepts,
+                                  Function<Notification, K> callKey,
+                                  Function<List<Notification>, List<Boolean>> providerCall,
+                                  BiConsumer<Notification, Boolean> audit) {
+        List<Boolean> results = new ArrayList<>(Collections.nCopies(notifications.size(), false));
+        Map<K, List<Integer>> calls = new LinkedHashMap<>();
+
+        for (int i = 0; i < notifications.size(); i++) {
+            if (accepts.test(notifications.get(i))) {
+                calls.computeIfAbsent(callKey.apply(notifications.get(i)), key -> new ArrayList<>()).add(i);
+            }
+        }
+
+        for (List<Integer> call : calls.values()) {
+            List<Notification> recipients = call.stream().map(notifications::get).toList();
+            List<Boolean> statuses = statuses(recipients, providerCall);
+            LocalDateTime sentAt = LocalDateTime.now();
+
+            for (int i = 0; i < call.size(); i++) {
+                if (statuses.get(i)) {
+                    recipients.get(i).setSent(true);
+                    recipients.get(i).setSentAt(sentAt);
+                    results.set(call.get(i), true);
+                }
+            }
+        }
+
+        for (int i = 0; i < notifications.size(); i++) {
+            audit.accept(notifications.get(i), results.get(i));
+        }
+
+        return results;
+    }
+
+    /**
+     * Records the outcome of a delivery attempt. A notification without a message or user, which no service
+     * accepts, is recorded with null IDs.
+     *
+     * @param sink The sink to record the attempt in
+     * @param channel The channel of the service
+     * @param notification The notification
+     * @param address The address the service sends to, or null if it is the user ID
+     * @param sent Whether the notification was sent
+     */
+    static void audit(DeliveryAuditSink sink, Channel channel, Notification notification,
+                      Function<User, String> address, boolean sent) {
+        User user = notification.getUser();
+        sink.record(channel, notification.getMessage() != null ? notification.getMessage().getId() : null,
+                user != null ? user.getId() : null, user != null ? address.apply(user) : null, sent);
+    }
+
+    private static List<Boolean> statuses(List<Notification> recipients,
+                                          Function<List<Notification>, List<Boolean>> providerCall) {
+        try {
+            List<Boolean> statuses = providerCall.apply(recipients);
+            if (statuses.size() == recipients.size()) {
+                return statuses;
+            }
+            log.warn("Provider call returned {} statuses for {} notifications", statuses.size(), recipients.size());
+        } catch (RuntimeException e) {
+            log.warn("Provider call for {} notifications failed", recipients.size(), e);
+        }
+        return Collections.nCopies(recipients.size(), false);
+    }
+}
@@ -3,16 +3,25 @@ package com.notification.service.service;
 import com.notification.service.model.Notification;
 import com.notification.service.model.User;
 import com.notification.service.model.enums.Channel;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
 
+@Slf4j
 @Service
+@RequiredArgsConstructor
 public class PushNotificationService implements NotificationService {
 
+    private final DeliveryAuditSink deliveryAuditSink;
+
     @Override
     public boolean send(Notification notification) {
-        if (!canSendToUser(notification.getUser()) || notification.getChannel() != Channel.PUSH_NOTIFICATION) {
+        if (!accepts(notification)) {
+            audit(notification, false);
             return false;
         }
         
@@ -20,27 +29,49 @@ public class PushNotificationService implements NotificationService {
             // In a real implementation, this would use a push notification service like Firebase Cloud Messaging
             // For this example, we'll just simulate sending a push notification
             
-            String userId = notification.getUser().getId().toString();
-            String title = notification.getMessage().getCategory().toString();
-            String content = notification.getMessage().getContent();
-            
-            // Log the push notification sending (in a real implementation, this would be more robust)
-            System.out.println("Sending push notification to user ID: " + userId);
-            System.out.println("Title: " + title);
-            System.out.println("Content: " + content);
-            
             // Mark the notification as sent
             notification.setSent(true);
             notification.setSentAt(LocalDateTime.now());
             
+            audit(notification, true);
             return true;
         } catch (Exception e) {
-            // Log the error (in a real implementation, this would be more robust)
-            System.err.println("Failed to send push notification: " + e.getMessage());
+            log.warn("Failed to send push notification {}", notification.getId(), e);
+            audit(notification, false);
             return false;
         }
     }
 
+    @Override
+    public List<Boolean> sendBatch(List<Notification> notifications) {
+        // A multicast carries one payload, so there is one per message
+        return ProviderBatches.send(notifications, this::accepts, notification -> notification.getMessage().getId(),
+                this::multicast, this::audit);
+    }
+
+    /**
+     * Sends one message to several users in one multicast
+     *
+     * @param notifications The push notifications of one message
+     * @return Whether each device token was accepted, in order
+     */
+    List<Boolean> multicast(List<Notification> notifications) {
+        // In a real implementation, this would be one multicast call with the device tokens of all the users,
+        // and the provider would report a status per token
+        log.debug("Sending message {} in one multicast to {} users",
+                notifications.get(0).getMessage().getId(), notifications.size());
+        return Collections.nCopies(notifications.size(), true);
+    }
+
+    private boolean accepts(Notification notification) {
+        return notification.getChannel() == Channel.PUSH_NOTIFICATION && canSendToUser(notification.getUser());
+    }
+
+    private void audit(Notification notification, boolean sent) {
+        // Push notifications are addressed by user ID
+        ProviderBatches.audit(deliveryAuditSink, Channel.PUSH_NOTIFICATION, notification, user -> null, sent);
+    }
+
     @Override
     public boolean canSendToUser(User user) {
         return user != null 
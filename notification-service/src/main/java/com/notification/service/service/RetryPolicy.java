@@ -0,0 +1,74 @@
+package com.notification.service.service;
+
+import com.notification.service.config.NotificationProperties;
+import com.notification.service.model.Notification;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides when a failed notification is retried: exponential backoff with jitter,
+ * up to {@code notification.retry.max-attempts} attempts
+ */
+@Component
+@RequiredArgsConstructor
+public class RetryPolicy {
+
+    private final NotificationProperties notificationProperties;
+
+    /**
+     * Counts a delivery attempt and, if it failed and attempts remain, schedules the next one
+     *
+     * @param notification The notification that was attempted
+     * @param sent Whether the attempt succeeded
+     */
+    public void recordAttempt(Notification notification, boolean sent) {
+        notification.setAttempts(notification.getAttempts() + 1);
+        notification.setNextAttemptAt(sent ? null : nextAttemptAt(notification.getAttempts()));
+    }
+
+    /**
+     * Reserves a notification for the node about to attempt it outside the transaction that committed it:
+     * the retry scheduler leaves it alone until the delivery lease expires, then attempts it,
+     * in case that node stopped before writing the outcome
+     *
+     * @param notification The notification about to be attempted
+     */
+    public void reserve(Notification notification) {
+        notification.setNextAttemptAt(LocalDateTime.now().plus(
+                notificationProperties.getRetry().getDeliveryLeaseMs(), ChronoUnit.MILLIS));
+    }
+
+    /**
+     * Leaves a notification that could not be attempted, because its channel's lane was full,
+     * to the next retry scan without counting an attempt
+     *
+     * @param notification The notification that was not attempted
+     */
+    public void park(Notification notification) {
+        notification.setNextAttemptAt(LocalDateTime.now());
+    }
+
+    /**
+     * Computes when the attempt following a failed one is due
+     *
+     * @param attempts The number of attempts made so far
+     * @return The time of the next attempt, or null if the notification is given up
+     */
+    LocalDateTime nextAttemptAt(int attempts) {
+        NotificationProperties.Retry retry = notificationProperties.getRetry();
+
+        if (attempts >= retry.getMaxAttempts()) {
+            return null;
+        }
+
+        long backoff = Math.min(retry.getMaxBackoffMs(), retry.getInitialBackoffMs() << Math.min(attempts - 1, 20));
+        // Half fixed, half random, so the failures of one batch don't all come back at once
+        long delay = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+
+        return LocalDateTime.now().plus(delay, ChronoUnit.MILLIS);
+    }
+}
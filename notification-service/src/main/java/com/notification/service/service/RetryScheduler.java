@@ -0,0 +1,59 @@
+package com.notification.service.service;
+
+import com.notification.service.config.NotificationProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Periodically retries failed notifications whose backoff has elapsed, one bounded batch at a time
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RetryScheduler {
+
+    private final NotificationRetryService notificationRetryService;
+    private final NotificationProperties notificationProperties;
+
+    /**
+     * Walks the notifications due for a retry in batches, stopping at the end of the due ones,
+     * as soon as a batch gets no spare permits, so retries never compete with fresh traffic,
+     * or after the maximum number of batches per run, leaving the rest of a backlog to the next runs
+     *
+     * @return The number of notifications sent by this run
+     */
+    @Scheduled(fixedDelayString = "${notification.retry.poll-interval-ms:5000}")
+    public int retryDueNotifications() {
+        if (!notificationProperties.getRetry().isEnabled()) {
+            return 0;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        NotificationRetryService.RetryCursor cursor = NotificationRetryService.RetryCursor.START;
+        int batchSize = notificationProperties.getRetry().getBatchSize();
+        int maxBatches = notificationProperties.getRetry().getMaxBatchesPerRun();
+        int retried = 0;
+        int sent = 0;
+
+        for (int batches = 1; ; batches++) {
+            NotificationRetryService.RetryBatch batch = notificationRetryService.retryNextBatch(now, cursor);
+            retried += batch.retried();
+            sent += batch.sent();
+
+            if (batch.scanned() < batchSize || batch.retried() == 0 || batches >= maxBatches) {
+                break;
+            }
+            cursor = batch.next();
+        }
+
+        if (retried > 0) {
+            log.debug("Retried {} notifications, {} sent", retried, sent);
+        }
+
+        return sent;
+    }
+}
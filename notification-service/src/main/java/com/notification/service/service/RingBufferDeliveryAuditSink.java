@@ -0,0 +1,212 @@
+package com.notification.service.service;
+
+import com.notification.service.config.NotificationProperties;
+import com.notification.service.model.enums.Channel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Hands delivery records over to a background writer through a bounded lock-free ring buffer.
+ * Recording copies a few fields into a preallocated slot: it takes no lock, allocates nothing and does no I/O.
+ * When the buffer is full the record is dropped and counted rather than making the delivery wait.
+ * The writer emits each record as one line of the {@code delivery.audit} logger, so it can be routed
+ * to its own appender. Registered by {@link com.notification.service.config.DeliveryAuditConfig} unless the
+ * application defines its own {@link DeliveryAuditSink}.
+ */
+@Slf4j
+public class RingBufferDeliveryAuditSink implements DeliveryAuditSink {
+
+    private static final Logger AUDIT_LOG = LoggerFactory.getLogger("delivery.audit");
+
+    // How long the writer sleeps when the buffer is empty, and how often it reports dropped records
+    private static final long IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long DROP_REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    // Stored in a slot for a null ID, which no row has
+    private static final long NO_ID = Long.MIN_VALUE;
+
+    private final Slot[] slots;
+    private final int mask;
+    private final Consumer<DeliveryAuditRecord> writer;
+
+    // Next position to claim, shared by all producers
+    private final AtomicLong tail = new AtomicLong();
+
+    // Next position to read, only touched by the writer
+    private long head;
+
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong totalDropped = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public RingBufferDeliveryAuditSink(NotificationProperties properties) {
+        this(properties.getAudit().getBufferSize(), RingBufferDeliveryAuditSink::log);
+    }
+
+    RingBufferDeliveryAuditSink(int bufferSize, Consumer<DeliveryAuditRecord> writer) {
+        // Round up to a power of two so positions map to slots with a mask
+        int capacity = bufferSize <= 2 ? 2 : Integer.highestOneBit(bufferSize - 1) << 1;
+        this.slots = new Slot[capacity];
+        this.mask = capacity - 1;
+        this.writer = writer;
+
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot(i);
+        }
+    }
+
+    @Override
+    public void record(Channel channel, Long messageId, Long userId, String recipient, boolean sent) {
+        long position = tail.get();
+
+        while (true) {
+            Slot slot = slots[(int) position & mask];
+            long lag = slot.sequence - position;
+
+            if (lag == 0) {
+                // The slot is free for this position; claim it
+                if (tail.compareAndSet(position, position + 1)) {
+                    slot.timestamp = System.currentTimeMillis();
+                    slot.channel = channel;
+                    slot.messageId = messageId != null ? messageId : NO_ID;
+                    slot.userId = userId != null ? userId : NO_ID;
+                    slot.recipient = recipient;
+                    slot.sent = sent;
+                    slot.sequence = position + 1;
+                    return;
+                }
+                position = tail.get();
+            } else if (lag < 0) {
+                // The writer has not read this slot since the previous lap: the buffer is full
+                dropped.increment();
+                return;
+            } else {
+                // Another producer claimed the position first
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of records dropped because the buffer was full
+     *
+     * @return The number of dropped records since startup
+     */
+    public long getDroppedRecords() {
+        return totalDropped.get() + dropped.sum();
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writerThread = new Thread(this::writeLoop, "delivery-audit");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writerThread);
+        writerThread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * Passes the records published so far to the writer, oldest first
+     *
+     * @return The number of records written
+     */
+    int drain() {
+        int written = 0;
+
+        while (true) {
+            Slot slot = slots[(int) head & mask];
+            if (slot.sequence != head + 1) {
+                return written;
+            }
+
+            DeliveryAuditRecord record = new DeliveryAuditRecord(slot.timestamp, slot.channel, id(slot.messageId),
+                    id(slot.userId), slot.recipient, slot.sent);
+            slot.channel = null;
+            slot.recipient = null;
+            // Free the slot for the producers' next lap
+            slot.sequence = head + slots.length;
+            head++;
+
+            try {
+                writer.accept(record);
+            } catch (RuntimeException e) {
+                log.warn("Failed to write delivery audit record", e);
+            }
+            written++;
+        }
+    }
+
+    private void writeLoop() {
+        long lastDropReport = System.nanoTime();
+
+        while (running) {
+            if (drain() == 0) {
+                LockSupport.parkNanos(IDLE_WAIT_NANOS);
+            }
+
+            if (System.nanoTime() - lastDropReport >= DROP_REPORT_INTERVAL_NANOS) {
+                reportDropped();
+                lastDropReport = System.nanoTime();
+            }
+        }
+
+        drain();
+        reportDropped();
+    }
+
+    private void reportDropped() {
+        long count = dropped.sumThenReset();
+        if (count > 0) {
+            totalDropped.addAndGet(count);
+            log.warn("Dropped {} delivery audit records, the buffer was full", count);
+        }
+    }
+
+    private static Long id(long stored) {
+        return stored != NO_ID ? stored : null;
+    }
+
+    private static void log(DeliveryAuditRecord record) {
+        AUDIT_LOG.info("channel={} messageId={} userId={} recipient={} sent={} at={}", record.channel(),
+                record.messageId(), record.userId(), record.recipient(), record.sent(),
+                Instant.ofEpochMilli(record.timestamp()));
+    }
+
+    /**
+     * A preallocated buffer entry. The sequence tells its state for a given lap: equal to the position when free
+     * to write, position + 1 once written, and position + capacity once read.
+     */
+    private static final class Slot {
+
+        private volatile long sequence;
+
+        private long timestamp;
+        private Channel channel;
+        private long messageId;
+        private long userId;
+        private String recipient;
+        private boolean sent;
+
+        private Slot(long sequence) {
+            this.sequence = sequence;
+        }
+    }
+}
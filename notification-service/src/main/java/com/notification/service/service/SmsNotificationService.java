@@ -3,16 +3,25 @@ package com.notification.service.service;
 import com.notification.service.model.Notification;
 import com.notification.service.model.User;
 import com.notification.service.model.enums.Channel;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
 
+@Slf4j
 @Service
+@RequiredArgsConstructor
 public class SmsNotificationService implements NotificationService {
 
+    private final DeliveryAuditSink deliveryAuditSink;
+
     @Override
     public boolean send(Notification notification) {
-        if (!canSendToUser(notification.getUser()) || notification.getChannel() != Channel.SMS) {
+        if (!accepts(notification)) {
+            audit(notification, false);
             return false;
         }
         
@@ -20,24 +29,47 @@ public class SmsNotificationService implements NotificationService {
             // In a real implementation, this would use an SMS gateway API
             // For this example, we'll just simulate sending an SMS
             
-            String phoneNumber = notification.getUser().getPhoneNumber();
-            String message = notification.getMessage().getContent();
-            
-            // Log the SMS sending (in a real implementation, this would be more robust)
-            System.out.println("Sending SMS to " + phoneNumber + ": " + message);
-            
             // Mark the notification as sent
             notification.setSent(true);
             notification.setSentAt(LocalDateTime.now());
             
+            audit(notification, true);
             return true;
         } catch (Exception e) {
-            // Log the error (in a real implementation, this would be more robust)
-            System.err.println("Failed to send SMS notification: " + e.getMessage());
+            log.warn("Failed to send SMS notification {}", notification.getId(), e);
+            audit(notification, false);
             return false;
         }
     }
 
+    @Override
+    public List<Boolean> sendBatch(List<Notification> notifications) {
+        // All the messages of the batch go in one request to the gateway
+        return ProviderBatches.send(notifications, this::accepts, notification -> Channel.SMS,
+                this::sendBulk, this::audit);
+    }
+
+    /**
+     * Sends text messages in one request to the gateway's bulk endpoint
+     *
+     * @param notifications The SMS notifications to send
+     * @return Whether the gateway accepted each message, in order
+     */
+    List<Boolean> sendBulk(List<Notification> notifications) {
+        // In a real implementation, this would post every phone number and text in one bulk request,
+        // and the gateway would report a status per recipient
+        log.debug("Sending {} text messages in one bulk request", notifications.size());
+        return Collections.nCopies(notifications.size(), true);
+    }
+
+    private boolean accepts(Notification notification) {
+        return notification.getChannel() == Channel.SMS && canSendToUser(notification.getUser());
+    }
+
+    private void audit(Notification notification, boolean sent) {
+        ProviderBatches.audit(deliveryAuditSink, Channel.SMS, notification, User::getPhoneNumber, sent);
+    }
+
     @Override
     public boolean canSendToUser(User user) {
         return user != null 
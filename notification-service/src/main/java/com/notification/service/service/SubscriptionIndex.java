@@ -0,0 +1,376 @@
+package com.notification.service.service;
+
+import com.notification.service.config.NotificationProperties;
+import com.notification.service.model.Recipient;
+import com.notification.service.model.enums.BitMasks;
+import com.notification.service.model.enums.Category;
+import com.notification.service.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory copy of the subscriptions: one compressed bitmap of user IDs per category, plus the
+ * channel mask and contact details of every user in arrays indexed by user ID. Audiences are read
+ * from it without querying the database.
+ * Built at startup, updated by {@link SubscriptionIndexListener} when users change through JPA, and rebuilt
+ * whenever its checksums drift from the users table. Changes arriving while a rebuild reads the table are
+ * applied to the current index and replayed onto the rebuilt one before it is swapped in.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SubscriptionIndex {
+
+    private static final Category[] CATEGORIES = Category.values();
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationProperties notificationProperties;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private IndexState state = new IndexState(0);
+    private volatile boolean ready;
+
+    // Changes applied since the running rebuild started reading the users table, null when none is running
+    private List<Consumer<IndexState>> changesDuringRebuild;
+
+    /**
+     * Returns whether the index is enabled and built, i.e. whether audiences can be read from it
+     *
+     * @return true if the index can be used
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Reads the subscribers of a category that follow a given user ID, in user ID order
+     *
+     * @param category The category the users are subscribed to
+     * @param afterUserId The last user ID of the previous chunk, or 0 to start from the beginning
+     * @param limit The maximum number of recipients to return
+     * @return Up to {@code limit} recipients
+     */
+    public List<Recipient> readChunk(Category category, long afterUserId, int limit) {
+        if (afterUserId >= Integer.MAX_VALUE) {
+            return Collections.emptyList();
+        }
+
+        List<Recipient> recipients = new ArrayList<>(limit);
+
+        lock.readLock().lock();
+        try {
+            PeekableIntIterator userIds = state.subscribers[category.ordinal()].getIntIterator();
+            userIds.advanceIfNeeded((int) afterUserId + 1);
+
+            while (userIds.hasNext() && recipients.size() < limit) {
+                int userId = userIds.next();
+                recipients.add(new Recipient((long) userId, state.emails[userId], state.phoneNumbers[userId],
+                        state.channelMasks[userId] & 0xFF));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return recipients;
+    }
+
+    /**
+     * Returns the number of subscribers of a category
+     *
+     * @param category The category
+     * @return The number of users subscribed to it
+     */
+    public long countSubscribers(Category category) {
+        lock.readLock().lock();
+        try {
+            return state.subscribers[category.ordinal()].getLongCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the indexed subscriptions, channels and contact details of a user
+     *
+     * @param recipient The user's contact details and channel mask
+     * @param subscriptions The categories the user is subscribed to
+     */
+    public void update(Recipient recipient, Set<Category> subscriptions) {
+        if (!notificationProperties.getSubscriptionIndex().isEnabled()) {
+            return;
+        }
+        if (recipient.userId() > Integer.MAX_VALUE) {
+            log.error("Subscription index disabled: user ID {} exceeds the supported range", recipient.userId());
+            ready = false;
+            return;
+        }
+        int userId = recipient.userId().intValue();
+
+        apply(index -> index.put(userId, recipient.channelMask(), recipient.email(), recipient.phoneNumber(),
+                BitMasks.toMask(subscriptions)));
+    }
+
+    /**
+     * Removes a user from the index
+     *
+     * @param userId The ID of the removed user
+     */
+    public void remove(Long userId) {
+        if (!notificationProperties.getSubscriptionIndex().isEnabled() || userId > Integer.MAX_VALUE) {
+            return;
+        }
+        int id = userId.intValue();
+
+        apply(index -> index.remove(id));
+    }
+
+    /**
+     * Applies a change to the index, and records it for the rebuilt index if a rebuild is running
+     *
+     * @param change The change
+     */
+    private void apply(Consumer<IndexState> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(state);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (notificationProperties.getSubscriptionIndex().isEnabled()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Compares checksums of the index with the users table and rebuilds the index when they differ,
+     * e.g. after users were changed outside this node. For each category the number of subscribers and the
+     * sum of their IDs are compared, so moving subscriptions between users is noticed, and the sum of
+     * each user's ID times its channel mask covers changes of channels.
+     *
+     * @return true if the index was consistent
+     */
+    @Scheduled(fixedDelayString = "${notification.subscription-index.check-interval-ms:60000}",
+            initialDelayString = "${notification.subscription-index.check-interval-ms:60000}")
+    public boolean checkConsistency() {
+        if (!notificationProperties.getSubscriptionIndex().isEnabled()) {
+            return true;
+        }
+
+        Checksums expected = new Checksums();
+        for (UserRepository.SubscriptionsChecksum checksum : userRepository.checksumUsersBySubscriptions()) {
+            for (Category category : BitMasks.fromMask(Category.class, checksum.getSubscriptions())) {
+                expected.subscribers[category.ordinal()] += checksum.getUsers();
+                expected.userIdSums[category.ordinal()] += checksum.getUserIdSum();
+            }
+            expected.channelSum += checksum.getChannelSum();
+        }
+
+        Checksums actual;
+        lock.readLock().lock();
+        try {
+            actual = state.checksums();
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        boolean consistent = ready;
+        for (Category category : CATEGORIES) {
+            int i = category.ordinal();
+            if (actual.subscribers[i] != expected.subscribers[i] || actual.userIdSums[i] != expected.userIdSums[i]) {
+                log.warn("Subscription index has {} subscribers for {} but the database has {}, or their IDs differ",
+                        actual.subscribers[i], category, expected.subscribers[i]);
+                consistent = false;
+            }
+        }
+        if (actual.channelSum != expected.channelSum) {
+            log.warn("Subscription index channels differ from the database");
+            consistent = false;
+        }
+
+        if (!consistent) {
+            rebuild();
+        }
+
+        return consistent;
+    }
+
+    /**
+     * Loads the whole index from the database and swaps it in. Changes applied to the index while the table
+     * is read are replayed onto the loaded index first; a change the table already reflects is replayed
+     * harmlessly, since each one sets the whole state of a user.
+     */
+    public synchronized void rebuild() {
+        IndexState loaded = new IndexState(1024);
+
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            transactionTemplate.execute(status -> {
+                try (var rows = userRepository.streamAllSubscriberRows()) {
+                    rows.forEach(row -> {
+                        loaded.put(Math.toIntExact(row.getUserId()), row.getChannels(), row.getEmail(),
+                                row.getPhoneNumber(), row.getSubscriptions());
+                        loaded.size++;
+                    });
+                }
+                return null;
+            });
+            loaded.optimize();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changesDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (e instanceof ArithmeticException) {
+                // User IDs beyond the int range cannot be stored in the bitmaps
+                log.error("Subscription index disabled: user IDs exceed the supported range");
+                ready = false;
+                return;
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Consumer<IndexState> change : changesDuringRebuild) {
+                change.accept(loaded);
+            }
+            changesDuringRebuild = null;
+            state = loaded;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Subscription index built: {} users", loaded.size);
+    }
+
+    private static RoaringBitmap[] emptyBitmaps() {
+        RoaringBitmap[] bitmaps = new RoaringBitmap[CATEGORIES.length];
+        for (int i = 0; i < bitmaps.length; i++) {
+            bitmaps[i] = new RoaringBitmap();
+        }
+        return bitmaps;
+    }
+
+    /**
+     * The bitmaps and per-user arrays of the index, grown as higher user IDs show up.
+     * The size is the number of users loaded by a rebuild.
+     */
+    private static class IndexState {
+
+        private final RoaringBitmap[] subscribers = emptyBitmaps();
+        private byte[] channelMasks;
+        private String[] emails;
+        private String[] phoneNumbers;
+        private int size;
+
+        private IndexState(int capacity) {
+            channelMasks = new byte[capacity];
+            emails = new String[capacity];
+            phoneNumbers = new String[capacity];
+        }
+
+        /**
+         * Sets the subscriptions, channels and contact details of a user
+         */
+        private void put(int userId, int channelMask, String email, String phoneNumber, int subscriptionMask) {
+            if (userId >= channelMasks.length) {
+                int length = Math.max(userId + 1, channelMasks.length * 2);
+                channelMasks = Arrays.copyOf(channelMasks, length);
+                emails = Arrays.copyOf(emails, length);
+                phoneNumbers = Arrays.copyOf(phoneNumbers, length);
+            }
+            channelMasks[userId] = (byte) channelMask;
+            emails[userId] = email;
+            phoneNumbers[userId] = phoneNumber;
+
+            for (Category category : CATEGORIES) {
+                if ((subscriptionMask & BitMasks.bit(category)) != 0) {
+                    subscribers[category.ordinal()].add(userId);
+                } else {
+                    subscribers[category.ordinal()].remove(userId);
+                }
+            }
+        }
+
+        private void remove(int userId) {
+            for (RoaringBitmap bitmap : subscribers) {
+                bitmap.remove(userId);
+            }
+            if (userId < channelMasks.length) {
+                channelMasks[userId] = 0;
+                emails[userId] = null;
+                phoneNumbers[userId] = null;
+            }
+        }
+
+        private void optimize() {
+            for (RoaringBitmap bitmap : subscribers) {
+                bitmap.runOptimize();
+            }
+        }
+
+        private Checksums checksums() {
+            Checksums checksums = new Checksums();
+
+            for (Category category : CATEGORIES) {
+                RoaringBitmap bitmap = subscribers[category.ordinal()];
+                checksums.subscribers[category.ordinal()] = bitmap.getLongCardinality();
+                PeekableIntIterator userIds = bitmap.getIntIterator();
+                long userIdSum = 0;
+                while (userIds.hasNext()) {
+                    userIdSum += userIds.next();
+                }
+                checksums.userIdSums[category.ordinal()] = userIdSum;
+            }
+            for (int userId = 0; userId < channelMasks.length; userId++) {
+                checksums.channelSum += (long) userId * (channelMasks[userId] & 0xFF);
+            }
+
+            return checksums;
+        }
+    }
+
+    /**
+     * Checksums of the subscriptions and channels, computed alike from the index and the users table
+     */
+    private static class Checksums {
+
+        private final long[] subscribers = new long[CATEGORIES.length];
+        private final long[] userIdSums = new long[CATEGORIES.length];
+        private long channelSum;
+    }
+}
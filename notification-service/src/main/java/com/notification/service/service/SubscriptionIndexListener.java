@@ -0,0 +1,98 @@
+package com.notification.service.service;
+
+import com.notification.service.model.Recipient;
+import com.notification.service.model.User;
+import com.notification.service.model.enums.BitMasks;
+import com.notification.service.model.enums.Category;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Set;
+
+/**
+ * Keeps the {@link SubscriptionIndex} up to date with user changes made through JPA.
+ * Changes are applied once the transaction commits, so rolled back changes never reach the index.
+ */
+@Component
+@RequiredArgsConstructor
+public class SubscriptionIndexListener implements PostInsertEventListener, PostUpdateEventListener,
+        PostDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final SubscriptionIndex subscriptionIndex;
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        onSave(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        onSave(event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof User user) {
+            Long userId = user.getId();
+            afterCommit(() -> subscriptionIndex.remove(userId));
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void onSave(Object entity) {
+        if (!(entity instanceof User user)) {
+            return;
+        }
+
+        // Copy the state now, the entity may change again before the commit
+        Recipient recipient = new Recipient(user.getId(), user.getEmail(), user.getPhoneNumber(),
+                BitMasks.toMask(user.getChannels()));
+        Set<Category> subscriptions = BitMasks.fromMask(Category.class, BitMasks.toMask(user.getSubscriptions()));
+
+        afterCommit(() -> subscriptionIndex.update(recipient, subscriptions));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
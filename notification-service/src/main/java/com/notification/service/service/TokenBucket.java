@@ -0,0 +1,198 @@
+package com.notification.service.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket refilled at a fixed rate up to its capacity.
+ * Acquiring more permits than are available reserves them ahead of time: the caller waits until they
+ * have been refilled and later callers queue behind it, so the long-run rate never exceeds the limit
+ * and a batch larger than the capacity still goes through.
+ */
+public class TokenBucket {
+
+    private final String name;
+    private final double permitsPerSecond;
+    private final int capacity;
+    private final LongSupplier nanoClock;
+
+    private final LongAdder acquiredPermits = new LongAdder();
+    private final LongAdder throttledAcquires = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    private double tokens;
+    private long lastRefillNanos;
+
+    public TokenBucket(String name, double permitsPerSecond, int capacity) {
+        this(name, permitsPerSecond, capacity, System::nanoTime);
+    }
+
+    TokenBucket(String name, double permitsPerSecond, int capacity, LongSupplier nanoClock) {
+        if (permitsPerSecond <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("Rate limit " + name + " needs a positive rate and capacity");
+        }
+        this.name = name;
+        this.permitsPerSecond = permitsPerSecond;
+        this.capacity = capacity;
+        this.nanoClock = nanoClock;
+        this.tokens = capacity;
+        this.lastRefillNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * Takes permits from the bucket, waiting until they are available
+     *
+     * @param permits The number of permits to take
+     * @return The time waited, in nanoseconds
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    public long acquire(int permits) throws InterruptedException {
+        long wait = reserve(permits);
+
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+
+        return wait;
+    }
+
+    /**
+     * Takes permits from the bucket, waiting until they are available unless that takes longer than a timeout
+     *
+     * @param permits The number of permits to take
+     * @param timeout The longest time to wait
+     * @param unit The unit of {@code timeout}
+     * @return true if the permits were taken, false if they would not be available in time; none are taken then
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    public boolean tryAcquire(int permits, long timeout, TimeUnit unit) throws InterruptedException {
+        long wait = reserve(permits, unit.toNanos(timeout));
+
+        if (wait < 0) {
+            return false;
+        }
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+
+        return true;
+    }
+
+    /**
+     * Takes permits from the bucket only if they are available right now
+     *
+     * @param permits The number of permits to take
+     * @return true if the permits were taken
+     */
+    public synchronized boolean tryAcquire(int permits) {
+        refill();
+
+        if (tokens < permits) {
+            return false;
+        }
+
+        tokens -= permits;
+        acquiredPermits.add(permits);
+        return true;
+    }
+
+    /**
+     * Gives back permits taken with one of the {@code tryAcquire} methods that ended up unused
+     *
+     * @param permits The number of permits to give back
+     */
+    public synchronized void release(int permits) {
+        refill();
+        tokens = Math.min(capacity, tokens + permits);
+        acquiredPermits.add(-permits);
+    }
+
+    /**
+     * Reserves permits, possibly ahead of their refill
+     *
+     * @param permits The number of permits to reserve
+     * @return How long the caller has to wait before using them, in nanoseconds
+     */
+    long reserve(int permits) {
+        return reserve(permits, Long.MAX_VALUE);
+    }
+
+    /**
+     * Reserves permits, possibly ahead of their refill, unless the caller would have to wait too long for them
+     *
+     * @param permits The number of permits to reserve
+     * @param maxWaitNanos The longest acceptable wait, in nanoseconds
+     * @return How long the caller has to wait before using them, in nanoseconds, or -1 if nothing was reserved
+     */
+    synchronized long reserve(int permits, long maxWaitNanos) {
+        refill();
+
+        long wait = tokens >= permits
+                ? 0
+                : (long) Math.ceil((permits - tokens) / permitsPerSecond * TimeUnit.SECONDS.toNanos(1));
+        if (wait > maxWaitNanos) {
+            return -1;
+        }
+
+        tokens -= permits;
+        acquiredPermits.add(permits);
+
+        if (wait > 0) {
+            throttledAcquires.increment();
+            waitNanos.add(wait);
+        }
+        return wait;
+    }
+
+    /**
+     * Returns the number of permits that can be taken without waiting
+     *
+     * @return The available permits
+     */
+    public synchronized int availablePermits() {
+        refill();
+        return (int) Math.max(0, Math.floor(tokens));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getAcquiredPermits() {
+        return acquiredPermits.sum();
+    }
+
+    /**
+     * Returns the number of acquisitions that had to wait for permits
+     *
+     * @return The number of throttled acquisitions
+     */
+    public long getThrottledAcquires() {
+        return throttledAcquires.sum();
+    }
+
+    /**
+     * Returns the total time callers waited for permits, in nanoseconds
+     *
+     * @return The total wait time
+     */
+    public long getWaitNanos() {
+        return waitNanos.sum();
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        double refilled = (now - lastRefillNanos) * permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        tokens = Math.min(capacity, tokens + refilled);
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,2 @@
+-- The notification log pages newest first by seeking this index from the previous page's last row
+CREATE INDEX idx_notifications_created ON notifications(created_at DESC, id DESC);
@@ -0,0 +1,6 @@
+-- Message listings page newest first by seeking these indexes from the previous page's last row,
+-- with or without a category filter. They replace the single-column indexes, which they cover.
+CREATE INDEX idx_messages_created ON messages(created_at DESC, id DESC);
+CREATE INDEX idx_messages_category_created ON messages(category, created_at DESC, id DESC);
+DROP INDEX idx_messages_created_at;
+DROP INDEX idx_messages_category;
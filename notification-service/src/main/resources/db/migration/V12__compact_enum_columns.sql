@@ -0,0 +1,34 @@
+-- Enums are stored as smallint codes, fixed in Category and Channel, instead of their names:
+-- SPORTS = 0, FINANCE = 1, MOVIES = 2 and SMS = 0, EMAIL = 1, PUSH_NOTIFICATION = 2.
+-- A user's subscriptions and channels become bitmasks with one bit per code, replacing the join tables.
+
+ALTER TABLE users ADD COLUMN subscriptions SMALLINT NOT NULL DEFAULT 0;
+ALTER TABLE users ADD COLUMN channels SMALLINT NOT NULL DEFAULT 0;
+
+UPDATE users u SET
+    subscriptions = COALESCE((
+        SELECT bit_or(CAST(1 << CASE s.category WHEN 'SPORTS' THEN 0 WHEN 'FINANCE' THEN 1 WHEN 'MOVIES' THEN 2 END
+                           AS SMALLINT))
+        FROM user_subscriptions s
+        WHERE s.user_id = u.id), 0),
+    channels = COALESCE((
+        SELECT bit_or(CAST(1 << CASE c.channel WHEN 'SMS' THEN 0 WHEN 'EMAIL' THEN 1 WHEN 'PUSH_NOTIFICATION' THEN 2 END
+                           AS SMALLINT))
+        FROM user_channels c
+        WHERE c.user_id = u.id), 0);
+
+DROP TABLE user_subscriptions;
+DROP TABLE user_channels;
+
+-- Each type change rewrites the table and rebuilds its indexes, under an exclusive lock
+ALTER TABLE messages ALTER COLUMN category TYPE SMALLINT
+    USING CASE category WHEN 'SPORTS' THEN 0 WHEN 'FINANCE' THEN 1 WHEN 'MOVIES' THEN 2 END;
+
+ALTER TABLE notifications ALTER COLUMN channel TYPE SMALLINT
+    USING CASE channel WHEN 'SMS' THEN 0 WHEN 'EMAIL' THEN 1 WHEN 'PUSH_NOTIFICATION' THEN 2 END;
+
+ALTER TABLE notification_counters
+    ALTER COLUMN category TYPE SMALLINT
+        USING CASE category WHEN 'SPORTS' THEN 0 WHEN 'FINANCE' THEN 1 WHEN 'MOVIES' THEN 2 END,
+    ALTER COLUMN channel TYPE SMALLINT
+        USING CASE channel WHEN 'SMS' THEN 0 WHEN 'EMAIL' THEN 1 WHEN 'PUSH_NOTIFICATION' THEN 2 END;
@@ -0,0 +1,60 @@
+-- notifications becomes partitioned by month on created_at, one partition per month named notifications_YYYY_MM,
+-- so time-bounded queries only read the partitions of their range and expired months are dropped as a whole.
+-- NotificationPartitionMaintenance keeps the next months created and drops the expired ones.
+-- The existing rows are copied once; the table is locked until the migration commits.
+
+-- The id sequence is kept, with its current value, for the new table
+ALTER SEQUENCE notifications_id_seq OWNED BY NONE;
+ALTER TABLE notifications RENAME TO notifications_unpartitioned;
+
+CREATE TABLE notifications (
+    id BIGINT NOT NULL DEFAULT nextval('notifications_id_seq'),
+    message_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    channel SMALLINT NOT NULL,
+    sent BOOLEAN NOT NULL DEFAULT FALSE,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    sent_at TIMESTAMP,
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP
+) PARTITION BY RANGE (created_at);
+
+-- One partition per month from the oldest row to three months ahead
+DO $$
+DECLARE
+    month TIMESTAMP := date_trunc('month', COALESCE((SELECT MIN(created_at) FROM notifications_unpartitioned), NOW()));
+BEGIN
+    WHILE month <= date_trunc('month', NOW()) + INTERVAL '3 months' LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF notifications FOR VALUES FROM (%L) TO (%L)',
+                       'notifications_' || to_char(month, 'YYYY_MM'), month, month + INTERVAL '1 month');
+        month := month + INTERVAL '1 month';
+    END LOOP;
+END $$;
+
+-- No default partition: PostgreSQL cannot detach a partition concurrently while the table has one,
+-- and expired months are detached concurrently before being dropped. Inserts rely on the maintenance
+-- keeping the coming months created ahead of the rows.
+
+INSERT INTO notifications (id, message_id, user_id, channel, sent, created_at, sent_at, attempts, next_attempt_at)
+SELECT id, message_id, user_id, channel, sent, created_at, sent_at, attempts, next_attempt_at
+FROM notifications_unpartitioned;
+
+DROP TABLE notifications_unpartitioned;
+ALTER SEQUENCE notifications_id_seq OWNED BY notifications.id;
+
+-- The primary key of a partitioned table must include the partition key.
+-- Lookups by id alone still use it, with one probe per partition.
+ALTER TABLE notifications ADD CONSTRAINT notifications_pkey PRIMARY KEY (id, created_at);
+ALTER TABLE notifications ADD CONSTRAINT notifications_message_id_fkey
+    FOREIGN KEY (message_id) REFERENCES messages(id) ON DELETE CASCADE;
+ALTER TABLE notifications ADD CONSTRAINT notifications_user_id_fkey
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE;
+
+-- Indexes created on the parent are created on every partition, present and future
+CREATE INDEX idx_notifications_message_id ON notifications(message_id);
+CREATE INDEX idx_notifications_user_id ON notifications(user_id);
+CREATE INDEX idx_notifications_message_unsent ON notifications(message_id, id) WHERE sent = FALSE;
+CREATE INDEX idx_notifications_retry_due ON notifications(next_attempt_at, id)
+    WHERE sent = FALSE AND next_attempt_at IS NOT NULL;
+CREATE INDEX idx_notifications_sent_created ON notifications(sent, created_at DESC, id DESC);
+CREATE INDEX idx_notifications_created ON notifications(created_at DESC, id DESC);
@@ -0,0 +1,8 @@
+-- One partial index per category bit of the subscription mask, so the audience of a category is read by
+-- walking its subscribers in user ID order rather than scanning all users.
+-- The queries inline the category mask as a literal, which the planner needs to match these predicates;
+-- a new category needs its own index.
+
+CREATE INDEX idx_users_subscribed_sports ON users(id) WHERE (subscriptions & 1) <> 0;
+CREATE INDEX idx_users_subscribed_finance ON users(id) WHERE (subscriptions & 2) <> 0;
+CREATE INDEX idx_users_subscribed_movies ON users(id) WHERE (subscriptions & 4) <> 0;
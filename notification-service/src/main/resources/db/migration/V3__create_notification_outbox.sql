@@ -0,0 +1,16 @@
+-- Create notification_outbox table (one row per message waiting for fan-out)
+CREATE TABLE notification_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    dispatch_id VARCHAR(36) NOT NULL UNIQUE,
+    message_id BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    last_user_id BIGINT NOT NULL DEFAULT 0,
+    -- Number of subscribers an entity fan-out has read so far, recorded as the message's audience once it completes
+    audience_size INT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    updated_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    FOREIGN KEY (message_id) REFERENCES messages(id) ON DELETE CASCADE
+);
+
+-- The relay polls pending entries in insertion order
+CREATE INDEX idx_notification_outbox_status ON notification_outbox(status, id);
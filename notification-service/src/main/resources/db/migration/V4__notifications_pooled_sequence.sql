@@ -0,0 +1,4 @@
+-- Widen notification ids and let Hibernate allocate them in blocks of 50 (pooled optimizer),
+-- so inserts no longer need a round trip per row and can be sent as JDBC batches
+ALTER TABLE notifications ALTER COLUMN id TYPE BIGINT;
+ALTER SEQUENCE notifications_id_seq AS BIGINT INCREMENT BY 50;
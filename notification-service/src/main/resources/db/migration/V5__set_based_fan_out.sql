@@ -0,0 +1,7 @@
+-- Track which fan-out strategy an outbox entry uses and how far set-based delivery got
+ALTER TABLE notification_outbox ADD COLUMN fan_out_mode VARCHAR(20) NOT NULL DEFAULT 'ENTITY';
+ALTER TABLE notification_outbox ADD COLUMN audience_expanded BOOLEAN NOT NULL DEFAULT FALSE;
+ALTER TABLE notification_outbox ADD COLUMN last_notification_id BIGINT NOT NULL DEFAULT 0;
+
+-- Set-based delivery walks the pending rows of one message in id order
+CREATE INDEX idx_notifications_message_unsent ON notifications(message_id, id) WHERE sent = FALSE;
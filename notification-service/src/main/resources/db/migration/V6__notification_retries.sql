@@ -0,0 +1,15 @@
+-- Delivery attempts of each notification and when the next retry is due (NULL: delivered, pending or given up)
+ALTER TABLE notifications ADD COLUMN attempts INT NOT NULL DEFAULT 0;
+ALTER TABLE notifications ADD COLUMN next_attempt_at TIMESTAMP;
+
+-- Failed rows written before retries existed are due now, except those of messages still being fanned out
+UPDATE notifications n
+SET attempts = 1, next_attempt_at = NOW()
+WHERE n.sent = FALSE
+  AND NOT EXISTS (
+      SELECT 1 FROM notification_outbox o
+      WHERE o.message_id = n.message_id AND o.status = 'PENDING');
+
+-- The retry scan only ever reads rows waiting for a retry, in due order
+CREATE INDEX idx_notifications_retry_due ON notifications(next_attempt_at, id)
+    WHERE sent = FALSE AND next_attempt_at IS NOT NULL;
@@ -0,0 +1,15 @@
+-- Per-message delivery counters, so listing messages never reads notification rows
+ALTER TABLE messages ADD COLUMN sent_count INT NOT NULL DEFAULT 0;
+ALTER TABLE messages ADD COLUMN failed_count INT NOT NULL DEFAULT 0;
+
+-- Failed: attempted at least once and not sent, whether a retry is due or it was given up
+UPDATE messages m
+SET sent_count = c.sent, failed_count = c.failed
+FROM (
+    SELECT message_id,
+           COUNT(*) FILTER (WHERE sent) AS sent,
+           COUNT(*) FILTER (WHERE NOT sent AND attempts > 0) AS failed
+    FROM notifications
+    GROUP BY message_id
+) c
+WHERE c.message_id = m.id;
@@ -0,0 +1,17 @@
+-- Delivery counters per category and channel, checkpointed by every node; the stats endpoint reads them instead of counting rows
+CREATE TABLE notification_counters (
+    category VARCHAR(20) NOT NULL,
+    channel VARCHAR(20) NOT NULL,
+    sent_count BIGINT NOT NULL DEFAULT 0,
+    failed_count BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (category, channel)
+);
+
+-- Failed: attempted at least once and not sent, like the message counters
+INSERT INTO notification_counters (category, channel, sent_count, failed_count)
+SELECT m.category, n.channel,
+       COUNT(*) FILTER (WHERE n.sent),
+       COUNT(*) FILTER (WHERE NOT n.sent AND n.attempts > 0)
+FROM notifications n
+JOIN messages m ON m.id = n.message_id
+GROUP BY m.category, n.channel;
@@ -0,0 +1,4 @@
+-- Listing notifications by status walks this index newest first and stops at the page size.
+-- It replaces the single-column index on sent, which it covers.
+CREATE INDEX idx_notifications_sent_created ON notifications(sent, created_at DESC, id DESC);
+DROP INDEX idx_notifications_sent;
@@ -0,0 +1,32 @@
+package com.notification.service.config;
+
+import com.notification.service.service.DeliveryAuditSink;
+import com.notification.service.service.RingBufferDeliveryAuditSink;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeliveryAuditConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withBean(NotificationProperties.class)
+            .withUserConfiguration(DeliveryAuditConfig.class);
+
+    @Test
+    void deliveryAuditSink_ByDefault_IsTheRingBuffer() {
+        contextRunner.run(context ->
+                assertInstanceOf(RingBufferDeliveryAuditSink.class, context.getBean(DeliveryAuditSink.class)));
+    }
+
+    @Test
+    void deliveryAuditSink_DefinedByTheApplication_ReplacesTheRingBuffer() {
+        DeliveryAuditSink custom = (channel, messageId, userId, recipient, sent) -> { };
+
+        contextRunner.withBean(DeliveryAuditSink.class, () -> custom)
+                .run(context -> {
+                    assertTrue(context.getBeansOfType(RingBufferDeliveryAuditSink.class).isEmpty());
+                    assertSame(custom, context.getBean(DeliveryAuditSink.class));
+                });
+    }
+}
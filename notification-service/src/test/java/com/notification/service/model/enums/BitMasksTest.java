@@ -0,0 +1,31 @@
+package com.notification.service.model.enums;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BitMasksTest {
+
+    @Test
+    void toMask_SetsTheBitOfEachCode() {
+        assertEquals(0b101, BitMasks.toMask(EnumSet.of(Channel.SMS, Channel.PUSH_NOTIFICATION)));
+        assertEquals(0, BitMasks.toMask(null));
+        assertEquals(0b10, BitMasks.bit(Category.FINANCE));
+    }
+
+    @Test
+    void fromMask_IgnoresBitsWithoutAConstant() {
+        assertEquals(Set.of(Category.SPORTS, Category.MOVIES), BitMasks.fromMask(Category.class, 0b101 | 1 << 9));
+        assertEquals(Set.of(), BitMasks.fromMask(Channel.class, 0));
+    }
+
+    @Test
+    void fromCode_ReturnsTheConstantWithTheCode() {
+        assertEquals(Channel.EMAIL, BitMasks.fromCode(Channel.class, 1));
+        assertThrows(IllegalArgumentException.class, () -> BitMasks.fromCode(Channel.class, 9));
+        assertThrows(IllegalArgumentException.class, () -> BitMasks.fromCode(Category.class, -1));
+    }
+}
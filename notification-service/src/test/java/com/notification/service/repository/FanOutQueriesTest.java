@@ -0,0 +1,136 @@
+package com.notification.service.repository;
+
+import com.notification.service.model.Message;
+import com.notification.service.model.User;
+import com.notification.service.model.enums.BitMasks;
+import com.notification.service.model.enums.Category;
+import com.notification.service.model.enums.Channel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the native SQL of the fan-out, which filters users on their subscription and channel masks, against H2
+ */
+@DataJpaTest
+@Sql(scripts = "/notifications-column-defaults.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS,
+        config = @SqlConfig(transactionMode = SqlConfig.TransactionMode.ISOLATED))
+public class FanOutQueriesTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Message message;
+    private User emailAndSms;
+    private User allChannelsWithoutPhone;
+    private User financeOnly;
+    private User smsWithEmptyPhone;
+    private User emailAndPushWithEmptyEmail;
+    private User noChannels;
+    private User moviesAndSportsPush;
+
+    @BeforeEach
+    void setUp() {
+        message = entityManager.persist(Message.builder().category(Category.SPORTS).content("Sports news").build());
+
+        emailAndSms = user("a@example.com", "+1", EnumSet.of(Category.SPORTS), EnumSet.of(Channel.EMAIL, Channel.SMS));
+        allChannelsWithoutPhone = user("b@example.com", null, EnumSet.of(Category.SPORTS, Category.FINANCE),
+                EnumSet.allOf(Channel.class));
+        financeOnly = user("c@example.com", "+3", EnumSet.of(Category.FINANCE), EnumSet.allOf(Channel.class));
+        smsWithEmptyPhone = user("d@example.com", "", EnumSet.of(Category.SPORTS), EnumSet.of(Channel.SMS));
+        emailAndPushWithEmptyEmail = user("", "+5", EnumSet.of(Category.SPORTS),
+                EnumSet.of(Channel.EMAIL, Channel.PUSH_NOTIFICATION));
+        noChannels = user("f@example.com", "+6", EnumSet.of(Category.SPORTS), EnumSet.noneOf(Channel.class));
+        moviesAndSportsPush = user("g@example.com", null, EnumSet.of(Category.MOVIES, Category.SPORTS),
+                EnumSet.of(Channel.PUSH_NOTIFICATION));
+
+        entityManager.flush();
+    }
+
+    @Test
+    void insertPendingForMessage_InsertsOneRowPerSubscribedUserAndReachableChannel() {
+        int inserted = notificationRepository.insertPendingForMessage(message.getId(), BitMasks.bit(Category.SPORTS),
+                Channel.EMAIL.code(), Channel.SMS.code());
+
+        List<String> rows = entityManager.getEntityManager().createQuery("""
+                        SELECT n.user.id, n.channel, n.sent, n.attempts FROM Notification n
+                        WHERE n.message.id = :messageId ORDER BY n.user.id, n.channel
+                        """, Object[].class)
+                .setParameter("messageId", message.getId())
+                .getResultStream()
+                .map(row -> row[0] + " " + row[1] + " " + row[2] + " " + row[3])
+                .toList();
+
+        // No SMS without a phone number, no email to an empty address, nothing for other categories or no channel
+        assertEquals(List.of(
+                emailAndSms.getId() + " SMS false 0",
+                emailAndSms.getId() + " EMAIL false 0",
+                allChannelsWithoutPhone.getId() + " EMAIL false 0",
+                allChannelsWithoutPhone.getId() + " PUSH_NOTIFICATION false 0",
+                emailAndPushWithEmptyEmail.getId() + " PUSH_NOTIFICATION false 0",
+                moviesAndSportsPush.getId() + " PUSH_NOTIFICATION false 0"), rows);
+        assertEquals(6, inserted);
+    }
+
+    @Test
+    void findRecipientRowsAfter_ReturnsTheSubscribersPageByPage() {
+        int sports = BitMasks.bit(Category.SPORTS);
+
+        List<UserRepository.RecipientRow> first = userRepository.findRecipientRowsAfter(sports, 0, 3);
+        List<UserRepository.RecipientRow> second = userRepository.findRecipientRowsAfter(sports,
+                first.get(2).getUserId(), 3);
+        List<UserRepository.RecipientRow> last = userRepository.findRecipientRowsAfter(sports,
+                second.get(2).getUserId(), 3);
+
+        // Every subscriber is read, whatever their channels; the filtering by channel happens in the fan-out
+        assertEquals(List.of(emailAndSms.getId(), allChannelsWithoutPhone.getId(), smsWithEmptyPhone.getId()),
+                first.stream().map(UserRepository.RecipientRow::getUserId).toList());
+        assertEquals(List.of(emailAndPushWithEmptyEmail.getId(), noChannels.getId(), moviesAndSportsPush.getId()),
+                second.stream().map(UserRepository.RecipientRow::getUserId).toList());
+        assertTrue(last.isEmpty());
+
+        UserRepository.RecipientRow row = first.get(0);
+        assertEquals("a@example.com", row.getEmail());
+        assertEquals("+1", row.getPhoneNumber());
+        assertEquals(BitMasks.toMask(EnumSet.of(Channel.EMAIL, Channel.SMS)), row.getChannels());
+        assertNull(first.get(1).getPhoneNumber());
+    }
+
+    @Test
+    void findRecipientRowsAfter_WithoutSubscribers_ReturnsNothing() {
+        userRepository.deleteAll(List.of(moviesAndSportsPush));
+        entityManager.flush();
+
+        assertTrue(userRepository.findRecipientRowsAfter(BitMasks.bit(Category.MOVIES), 0, 10).isEmpty());
+        assertEquals(List.of(allChannelsWithoutPhone.getId(), financeOnly.getId()),
+                userRepository.findRecipientRowsAfter(BitMasks.bit(Category.FINANCE), 0, 10).stream()
+                        .map(UserRepository.RecipientRow::getUserId)
+                        .toList());
+    }
+
+    private User user(String email, String phoneNumber, Set<Category> subscriptions, Set<Channel> channels) {
+        return entityManager.persist(User.builder()
+                .name("User " + email)
+                .email(email)
+                .phoneNumber(phoneNumber)
+                .subscriptions(subscriptions)
+                .channels(channels)
+                .build());
+    }
+}
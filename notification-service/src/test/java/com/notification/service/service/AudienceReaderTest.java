@@ -0,0 +1,141 @@
+package com.notification.service.service;
+
+import com.notification.service.config.NotificationProperties;
+import com.notification.service.model.Recipient;
+import com.notification.service.model.enums.BitMasks;
+import com.notification.service.model.enums.Category;
+import com.notification.service.model.enums.Channel;
+import com.notification.service.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AudienceReaderTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private SubscriptionIndex subscriptionIndex;
+
+    private AudienceReader audienceReader;
+
+    @BeforeEach
+    void setUp() {
+        NotificationProperties properties = new NotificationProperties();
+        properties.getFanOut().setChunkSize(2);
+
+        audienceReader = new AudienceReader(userRepository, subscriptionIndex, entityManager, properties);
+    }
+
+    @Test
+    void readChunk_MapsRowsToRecipientsWithTheirChannelMask() {
+        when(userRepository.findRecipientRowsAfter(BitMasks.bit(Category.SPORTS), 0L, 2)).thenReturn(List.of(
+                row(1L, BitMasks.bit(Channel.EMAIL) | BitMasks.bit(Channel.PUSH_NOTIFICATION)), row(4L, 0)));
+
+        List<Recipient> recipients = audienceReader.readChunk(Category.SPORTS, 0L);
+
+        assertEquals(2, recipients.size());
+        assertEquals(1L, recipients.get(0).userId());
+        assertEquals("user1@example.com", recipients.get(0).email());
+        assertTrue(recipients.get(0).hasChannel(Channel.EMAIL));
+        assertTrue(recipients.get(0).hasChannel(Channel.PUSH_NOTIFICATION));
+        assertFalse(recipients.get(0).hasChannel(Channel.SMS));
+        assertEquals(0, recipients.get(1).channelMask());
+    }
+
+    @Test
+    void readInChunks_SeeksPastLastUserAndClearsContextBetweenChunks() {
+        when(userRepository.findRecipientRowsAfter(BitMasks.bit(Category.SPORTS), 0L, 2))
+                .thenReturn(List.of(row(1L, BitMasks.bit(Channel.EMAIL)), row(4L, BitMasks.bit(Channel.SMS))));
+        when(userRepository.findRecipientRowsAfter(BitMasks.bit(Category.SPORTS), 4L, 2))
+                .thenReturn(List.of(row(9L, BitMasks.bit(Channel.EMAIL))));
+
+        List<List<Recipient>> chunks = new ArrayList<>();
+        audienceReader.readInChunks(Category.SPORTS).forEach(chunks::add);
+
+        assertEquals(2, chunks.size());
+        assertEquals(2, chunks.get(0).size());
+        assertEquals(9L, chunks.get(1).get(0).userId());
+
+        // The short second chunk ends the iteration without another query
+        verify(userRepository, times(2)).findRecipientRowsAfter(anyInt(), anyLong(), anyInt());
+
+        InOrder inOrder = inOrder(userRepository, entityManager);
+        inOrder.verify(userRepository).findRecipientRowsAfter(BitMasks.bit(Category.SPORTS), 0L, 2);
+        inOrder.verify(entityManager).flush();
+        inOrder.verify(entityManager).clear();
+        inOrder.verify(userRepository).findRecipientRowsAfter(BitMasks.bit(Category.SPORTS), 4L, 2);
+    }
+
+    @Test
+    void readInChunks_WithFullLastChunk_StopsOnEmptyChunk() {
+        when(userRepository.findRecipientRowsAfter(BitMasks.bit(Category.SPORTS), 0L, 2))
+                .thenReturn(List.of(row(1L, BitMasks.bit(Channel.EMAIL)), row(2L, BitMasks.bit(Channel.EMAIL))));
+        when(userRepository.findRecipientRowsAfter(BitMasks.bit(Category.SPORTS), 2L, 2))
+                .thenReturn(Collections.emptyList());
+
+        List<List<Recipient>> chunks = new ArrayList<>();
+        audienceReader.readInChunks(Category.SPORTS).forEach(chunks::add);
+
+        assertEquals(1, chunks.size());
+    }
+
+    @Test
+    void readInChunks_WithNoSubscribers_IsEmpty() {
+        when(userRepository.findRecipientRowsAfter(BitMasks.bit(Category.MOVIES), 0L, 2))
+                .thenReturn(Collections.emptyList());
+
+        assertFalse(audienceReader.readInChunks(Category.MOVIES).iterator().hasNext());
+        verifyNoInteractions(entityManager);
+    }
+
+    @Test
+    void readChunk_WhenIndexIsReady_ReadsFromIndex() {
+        List<Recipient> indexed = List.of(new Recipient(5L, "user5@example.com", null, BitMasks.bit(Channel.EMAIL)));
+        when(subscriptionIndex.isReady()).thenReturn(true);
+        when(subscriptionIndex.readChunk(Category.SPORTS, 0L, 2)).thenReturn(indexed);
+
+        assertEquals(indexed, audienceReader.readChunk(Category.SPORTS, 0L));
+        verifyNoInteractions(userRepository);
+    }
+
+    private static UserRepository.RecipientRow row(Long userId, int channels) {
+        return new UserRepository.RecipientRow() {
+            @Override
+            public Long getUserId() {
+                return userId;
+            }
+
+            @Override
+            public String getEmail() {
+                return "user" + userId + "@example.com";
+            }
+
+            @Override
+            public String getPhoneNumber() {
+                return null;
+            }
+
+            @Override
+            public int getChannels() {
+                return channels;
+            }
+        };
+    }
+}
@@ -0,0 +1,110 @@
+package com.notification.service.service;
+
+import com.notification.service.config.NotificationProperties;
+import com.notification.service.model.enums.Channel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChannelBulkheadsTest {
+
+    private ChannelBulkheads channelBulkheads;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        channelBulkheads.shutdown();
+    }
+
+    @Test
+    void submit_SlowChannelDoesNotBlockOtherChannels() throws Exception {
+        channelBulkheads = new ChannelBulkheads(properties(1, 10));
+        CountDownLatch smsGatewayDown = new CountDownLatch(1);
+
+        CompletableFuture<Boolean> sms = channelBulkheads.submit(Channel.SMS, () -> await(smsGatewayDown));
+        CompletableFuture<Boolean> email = channelBulkheads.submit(Channel.EMAIL, () -> true);
+
+        assertTrue(email.get(5, TimeUnit.SECONDS));
+        assertFalse(sms.isDone());
+
+        smsGatewayDown.countDown();
+        assertTrue(sms.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void submit_RunsOnVirtualThreadsUpToTheChannelLimit() throws Exception {
+        channelBulkheads = new ChannelBulkheads(properties(2, 10));
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        CompletableFuture<?>[] deliveries = new CompletableFuture<?>[6];
+        for (int i = 0; i < deliveries.length; i++) {
+            deliveries[i] = channelBulkheads.submit(Channel.PUSH_NOTIFICATION, () -> {
+                assertTrue(Thread.currentThread().isVirtual());
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                boolean sent = await(release);
+                running.decrementAndGet();
+                return sent;
+            });
+        }
+
+        Thread.sleep(100);
+        release.countDown();
+        CompletableFuture.allOf(deliveries).get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    void submit_WhenLaneIsFull_RejectsWithoutRunningTheDelivery() {
+        channelBulkheads = new ChannelBulkheads(properties(1, 1));
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger overflowRuns = new AtomicInteger();
+
+        channelBulkheads.submit(Channel.EMAIL, () -> await(release));
+        channelBulkheads.submit(Channel.EMAIL, () -> true);
+
+        CompletableFuture<Integer> overflow = channelBulkheads.submit(Channel.EMAIL, overflowRuns::incrementAndGet);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> overflow.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        assertEquals(0, overflowRuns.get());
+        release.countDown();
+    }
+
+    @Test
+    void submit_WhenDeliveryThrows_CompletesExceptionally() {
+        channelBulkheads = new ChannelBulkheads(properties(1, 1));
+
+        CompletableFuture<Boolean> delivery = channelBulkheads.submit(Channel.SMS, () -> {
+            throw new IllegalStateException("gateway error");
+        });
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> delivery.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+    private static NotificationProperties properties(int maxConcurrent, int queueCapacity) {
+        NotificationProperties properties = new NotificationProperties();
+        properties.getBulkhead().getDefaults().setMaxConcurrent(maxConcurrent);
+        properties.getBulkhead().getDefaults().setQueueCapacity(queueCapacity);
+        return properties;
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
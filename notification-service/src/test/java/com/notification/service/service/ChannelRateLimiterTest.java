@@ -0,0 +1,131 @@
+package com.notification.service.service;
+
+import com.notification.service.config.NotificationProperties;
+import com.notification.service.model.enums.Channel;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChannelRateLimiterTest {
+
+    @Test
+    void tryAcquire_CountsAgainstChannelAndSharedAccount() throws InterruptedException {
+        NotificationProperties properties = new NotificationProperties();
+        properties.getRateLimit().getChannels().put(Channel.SMS, limit(50, null));
+        properties.getRateLimit().getChannels().put(Channel.PUSH_NOTIFICATION, limit(0, "provider"));
+        properties.getRateLimit().getChannels().get(Channel.SMS).setAccount("provider");
+        properties.getRateLimit().getAccounts().put("provider", limit(100, null));
+
+        ChannelRateLimiter rateLimiter = new ChannelRateLimiter(properties);
+        assertTrue(rateLimiter.tryAcquire(Channel.SMS, 10, 1, TimeUnit.SECONDS));
+        assertTrue(rateLimiter.tryAcquire(Channel.PUSH_NOTIFICATION, 20, 1, TimeUnit.SECONDS));
+        assertTrue(rateLimiter.tryAcquire(Channel.EMAIL, 1000, 1, TimeUnit.SECONDS));
+
+        assertEquals(2, rateLimiter.getBuckets().size());
+        TokenBucket sms = bucket(rateLimiter, "channel:SMS");
+        TokenBucket account = bucket(rateLimiter, "account:provider");
+        assertEquals(10, sms.getAcquiredPermits());
+        assertEquals(30, account.getAcquiredPermits());
+        assertEquals(0, account.getThrottledAcquires());
+    }
+
+    @Test
+    void tryAcquire_WhenTheAccountQuotaTakesTooLong_GivesBackTheChannelPermits() throws InterruptedException {
+        NotificationProperties properties = new NotificationProperties();
+        properties.getRateLimit().getChannels().put(Channel.SMS, limit(10, "provider"));
+        properties.getRateLimit().getAccounts().put("provider", limit(1, null));
+
+        ChannelRateLimiter rateLimiter = new ChannelRateLimiter(properties);
+
+        // The account has one permit and refills one per second
+        assertFalse(rateLimiter.tryAcquire(Channel.SMS, 5, 100, TimeUnit.MILLISECONDS));
+        assertEquals(10, bucket(rateLimiter, "channel:SMS").availablePermits());
+        assertEquals(0, bucket(rateLimiter, "account:provider").getAcquiredPermits());
+    }
+
+    @Test
+    void tryAcquire_WaitsForBothBucketsWithinOneTimeout() throws InterruptedException {
+        NotificationProperties properties = new NotificationProperties();
+        properties.getRateLimit().getChannels().put(Channel.SMS, limit(10, "provider"));
+        properties.getRateLimit().getAccounts().put("provider", limit(5, null));
+        properties.getRateLimit().getChannels().get(Channel.SMS).setBurst(1);
+        properties.getRateLimit().getAccounts().get("provider").setBurst(1);
+
+        ChannelRateLimiter rateLimiter = new ChannelRateLimiter(properties);
+        assertTrue(rateLimiter.tryAcquire(Channel.SMS, 1, 0, TimeUnit.MILLISECONDS));
+
+        // The channel's permit comes back in 100 ms, within the timeout. The account's comes back in 200 ms,
+        // 100 ms after the channel's, which a fresh timeout per bucket would still wait for
+        long start = System.nanoTime();
+        assertFalse(rateLimiter.tryAcquire(Channel.SMS, 1, 150, TimeUnit.MILLISECONDS));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMillis < 150, "Waited " + elapsedMillis + " ms");
+        assertEquals(1, bucket(rateLimiter, "channel:SMS").getAcquiredPermits());
+        assertEquals(1, bucket(rateLimiter, "account:provider").getAcquiredPermits());
+    }
+
+    @Test
+    void tryAcquireUpTo_TakesOnlyThePermitsAvailableOnBothBuckets() {
+        NotificationProperties properties = new NotificationProperties();
+        properties.getRateLimit().getChannels().put(Channel.SMS, limit(1, "provider"));
+        properties.getRateLimit().getChannels().get(Channel.SMS).setBurst(5);
+        properties.getRateLimit().getAccounts().put("provider", limit(1, null));
+        properties.getRateLimit().getAccounts().get("provider").setBurst(3);
+
+        ChannelRateLimiter rateLimiter = new ChannelRateLimiter(properties);
+
+        assertEquals(3, rateLimiter.tryAcquireUpTo(Channel.SMS, 10));
+        assertEquals(0, rateLimiter.tryAcquireUpTo(Channel.SMS, 10));
+        assertEquals(2, bucket(rateLimiter, "channel:SMS").availablePermits());
+        assertEquals(10, rateLimiter.tryAcquireUpTo(Channel.EMAIL, 10));
+    }
+
+    @Test
+    void release_GivesThePermitsBackToTheChannelAndItsAccount() {
+        NotificationProperties properties = new NotificationProperties();
+        properties.getRateLimit().getChannels().put(Channel.SMS, limit(5, "provider"));
+        properties.getRateLimit().getAccounts().put("provider", limit(5, null));
+
+        ChannelRateLimiter rateLimiter = new ChannelRateLimiter(properties);
+        assertEquals(5, rateLimiter.tryAcquireUpTo(Channel.SMS, 10));
+
+        rateLimiter.release(Channel.SMS, 3);
+
+        assertEquals(3, bucket(rateLimiter, "channel:SMS").availablePermits());
+        assertEquals(2, bucket(rateLimiter, "account:provider").getAcquiredPermits());
+        assertEquals(3, rateLimiter.tryAcquireUpTo(Channel.SMS, 10));
+    }
+
+    @Test
+    void constructor_WithUnknownAccount_Fails() {
+        NotificationProperties properties = new NotificationProperties();
+        properties.getRateLimit().getChannels().put(Channel.SMS, limit(10, "missing"));
+
+        assertThrows(IllegalStateException.class, () -> new ChannelRateLimiter(properties));
+    }
+
+    @Test
+    void constructor_WithoutBurst_AllowsOneSecondOfPermits() {
+        NotificationProperties properties = new NotificationProperties();
+        properties.getRateLimit().getChannels().put(Channel.EMAIL, limit(2.5, null));
+
+        assertEquals(3, new ChannelRateLimiter(properties).getBuckets().get(0).getCapacity());
+    }
+
+    private static NotificationProperties.Limit limit(double permitsPerSecond, String account) {
+        NotificationProperties.Limit limit = new NotificationProperties.Limit();
+        limit.setPermitsPerSecond(permitsPerSecond);
+        limit.setAccount(account);
+        return limit;
+    }
+
+    private static TokenBucket bucket(ChannelRateLimiter rateLimiter, String name) {
+        return rateLimiter.getBuckets().stream()
+                .filter(bucket -> bucket.getName().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+}
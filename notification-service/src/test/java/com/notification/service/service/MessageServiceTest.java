@@ -1,20 +1,26 @@
 package com.notification.service.service;
 
+import com.notification.service.config.NotificationProperties;
+import com.notification.service.dto.PageCursor;
 import com.notification.service.model.Message;
-import com.notification.service.model.Notification;
-import com.notification.service.model.User;
+import com.notification.service.model.MessageSnapshot;
+import com.notification.service.model.OutboxEntry;
 import com.notification.service.model.enums.Category;
+import com.notification.service.model.enums.FanOutMode;
+import com.notification.service.model.enums.OutboxStatus;
 import com.notification.service.repository.MessageRepository;
-import com.notification.service.repository.UserRepository;
+import com.notification.service.repository.OutboxRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -32,18 +38,22 @@ public class MessageServiceTest {
     private MessageRepository messageRepository;
 
     @Mock
-    private UserRepository userRepository;
+    private NotificationStrategyService notificationStrategyService;
 
     @Mock
-    private NotificationStrategyService notificationStrategyService;
+    private OutboxRepository outboxRepository;
+
+    @Mock
+    private NotificationDispatcher notificationDispatcher;
+
+    @Spy
+    private NotificationProperties notificationProperties = new NotificationProperties();
 
     @InjectMocks
     private MessageService messageService;
 
     private Message sportsMessage;
     private Message financeMessage;
-    private List<User> subscribedUsers;
-    private List<Notification> sentNotifications;
 
     @BeforeEach
     void setUp() {
@@ -61,16 +71,6 @@ public class MessageServiceTest {
                 .content("Finance news")
                 .createdAt(LocalDateTime.now())
                 .build();
-
-        // Set up subscribed users
-        subscribedUsers = new ArrayList<>();
-        subscribedUsers.add(User.builder().id(1L).name("User 1").build());
-        subscribedUsers.add(User.builder().id(2L).name("User 2").build());
-
-        // Set up sent notifications
-        sentNotifications = new ArrayList<>();
-        sentNotifications.add(Notification.builder().id(1L).build());
-        sentNotifications.add(Notification.builder().id(2L).build());
     }
 
     @Test
@@ -83,8 +83,7 @@ public class MessageServiceTest {
             }
             return message;
         });
-        when(userRepository.findBySubscription(Category.SPORTS)).thenReturn(subscribedUsers);
-        when(notificationStrategyService.processNotifications(any(Message.class), anyList())).thenReturn(sentNotifications);
+        when(notificationStrategyService.processAudience(any(Message.class))).thenReturn(2);
 
         // Call the method under test
         Message result = messageService.createMessage(Category.SPORTS, "Sports news");
@@ -96,8 +95,7 @@ public class MessageServiceTest {
 
         // Verify interactions with mocks
         verify(messageRepository, times(1)).save(any(Message.class));
-        verify(userRepository, times(1)).findBySubscription(Category.SPORTS);
-        verify(notificationStrategyService, times(1)).processNotifications(any(Message.class), eq(subscribedUsers));
+        verify(notificationStrategyService, times(1)).processAudience(result);
     }
 
     @Test
@@ -110,7 +108,7 @@ public class MessageServiceTest {
             }
             return message;
         });
-        when(userRepository.findBySubscription(Category.MOVIES)).thenReturn(Collections.emptyList());
+        when(notificationStrategyService.processAudience(any(Message.class))).thenReturn(0);
 
         // Call the method under test
         Message result = messageService.createMessage(Category.MOVIES, "Movies news");
@@ -122,73 +120,120 @@ public class MessageServiceTest {
 
         // Verify interactions with mocks
         verify(messageRepository, times(1)).save(any(Message.class));
-        verify(userRepository, times(1)).findBySubscription(Category.MOVIES);
-        verify(notificationStrategyService, times(1)).processNotifications(any(Message.class), eq(Collections.emptyList()));
+        verify(notificationStrategyService, times(1)).processAudience(result);
     }
 
     @Test
-    void getAllMessages_Success() {
+    void submitMessage_WritesMessageAndOutboxEntryWithoutFanOut() {
         // Set up mock behavior
-        when(messageRepository.findAll()).thenReturn(Arrays.asList(sportsMessage, financeMessage));
+        when(messageRepository.save(any(Message.class))).thenAnswer(invocation -> {
+            Message message = invocation.getArgument(0);
+            message.setId(1L);
+            return message;
+        });
+        when(outboxRepository.save(any(OutboxEntry.class))).thenAnswer(invocation -> {
+            OutboxEntry entry = invocation.getArgument(0);
+            entry.setId(10L);
+            return entry;
+        });
 
         // Call the method under test
-        List<Message> result = messageService.getAllMessages();
+        MessageDispatch result = messageService.submitMessage(Category.SPORTS, "Sports news");
 
         // Verify the result
-        assertNotNull(result);
-        assertEquals(2, result.size());
-        assertEquals(sportsMessage, result.get(0));
-        assertEquals(financeMessage, result.get(1));
+        assertNotNull(result.dispatchId());
+        assertEquals(1L, result.message().getId());
+        assertEquals(Category.SPORTS, result.message().getCategory());
+
+        // Verify the outbox entry points at the message and the fan-out is left to the dispatcher
+        ArgumentCaptor<OutboxEntry> entryCaptor = ArgumentCaptor.forClass(OutboxEntry.class);
+        verify(outboxRepository, times(1)).save(entryCaptor.capture());
+        assertEquals(result.message(), entryCaptor.getValue().getMessage());
+        assertEquals(OutboxStatus.PENDING, entryCaptor.getValue().getStatus());
+        assertEquals(FanOutMode.ENTITY, entryCaptor.getValue().getFanOutMode());
+        assertEquals(result.dispatchId(), entryCaptor.getValue().getDispatchId());
+
+        verify(notificationDispatcher, times(1)).dispatchAfterCommit(10L);
+        verify(notificationStrategyService, never()).processAudience(any());
+    }
 
-        // Verify interactions with mocks
-        verify(messageRepository, times(1)).findAll();
+    @Test
+    void getDispatch_NotFound() {
+        when(outboxRepository.findByDispatchId("missing")).thenReturn(Optional.empty());
+
+        assertNull(messageService.getDispatch("missing"));
     }
 
     @Test
-    void getAllMessages_EmptyList() {
-        // Set up mock behavior
-        when(messageRepository.findAll()).thenReturn(Collections.emptyList());
+    void getMessages_FirstPage() {
+        LocalDateTime from = LocalDateTime.of(1970, 1, 1, 0, 0);
+        when(messageRepository.findPageAfter(from, PageCursor.FIRST.createdAt(), Long.MAX_VALUE, PageRequest.of(0, 2)))
+                .thenReturn(Arrays.asList(sportsMessage, financeMessage));
 
-        // Call the method under test
-        List<Message> result = messageService.getAllMessages();
+        List<Message> result = messageService.getMessages(null, from, null, PageCursor.FIRST, 2);
 
-        // Verify the result
-        assertNotNull(result);
-        assertTrue(result.isEmpty());
+        assertEquals(Arrays.asList(sportsMessage, financeMessage), result);
+        verify(messageRepository, never()).findAll();
+    }
 
-        // Verify interactions with mocks
-        verify(messageRepository, times(1)).findAll();
+    @Test
+    void getMessages_ByCategoryAfterCursor() {
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        PageCursor after = new PageCursor(LocalDateTime.of(2024, 3, 1, 12, 0), 7L);
+        when(messageRepository.findPageByCategoryAfter(Category.SPORTS, from, after.createdAt(), 7L, PageRequest.of(0, 50)))
+                .thenReturn(Collections.singletonList(sportsMessage));
+
+        List<Message> result = messageService.getMessages(Category.SPORTS, from, null, after, 50);
+
+        assertEquals(Collections.singletonList(sportsMessage), result);
+        verify(messageRepository, never()).findPageAfter(any(), any(), anyLong(), any());
+    }
+
+    @Test
+    void getMessages_EndOfTimeRangeBeforeCursor() {
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 2, 1, 0, 0);
+        when(messageRepository.findPageAfter(from, to, Long.MIN_VALUE, PageRequest.of(0, 50)))
+                .thenReturn(Collections.emptyList());
+
+        // Starting the seek at the end of the range excludes the messages created at that instant
+        assertTrue(messageService.getMessages(null, from, to, PageCursor.FIRST, 50).isEmpty());
+
+        // A cursor already inside the range is used as is
+        PageCursor after = new PageCursor(LocalDateTime.of(2024, 1, 15, 0, 0), 3L);
+        messageService.getMessages(null, from, to, after, 50);
+        verify(messageRepository).findPageAfter(from, after.createdAt(), 3L, PageRequest.of(0, 50));
     }
 
     @Test
     void getMessageById_Found() {
         // Set up mock behavior
-        when(messageRepository.findById(1L)).thenReturn(Optional.of(sportsMessage));
+        MessageSnapshot snapshot = new MessageSnapshot(1L, Category.SPORTS, "Sports news", LocalDateTime.now(), 3, 1);
+        when(messageRepository.findSnapshotById(1L)).thenReturn(Optional.of(snapshot));
 
         // Call the method under test
-        Message result = messageService.getMessageById(1L);
+        MessageSnapshot result = messageService.getMessageById(1L);
 
         // Verify the result
-        assertNotNull(result);
-        assertEquals(sportsMessage, result);
+        assertEquals(snapshot, result);
 
         // Verify interactions with mocks
-        verify(messageRepository, times(1)).findById(1L);
+        verify(messageRepository, times(1)).findSnapshotById(1L);
     }
 
     @Test
     void getMessageById_NotFound() {
         // Set up mock behavior
-        when(messageRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(messageRepository.findSnapshotById(anyLong())).thenReturn(Optional.empty());
 
         // Call the method under test
-        Message result = messageService.getMessageById(999L);
+        MessageSnapshot result = messageService.getMessageById(999L);
 
         // Verify the result
         assertNull(result);
 
         // Verify interactions with mocks
-        verify(messageRepository, times(1)).findById(999L);
+        verify(messageRepository, times(1)).findSnapshotById(999L);
     }
 
     @Test
@@ -0,0 +1,111 @@
+package com.notification.service.service;
+
+import com.notification.service.config.NotificationProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class NotificationDispatcherTest {
+
+    @Mock
+    private NotificationFanOutService fanOutService;
+
+    private Deque<Runnable> submittedTasks;
+    private NotificationDispatcher notificationDispatcher;
+
+    @BeforeEach
+    void setUp() {
+        NotificationProperties.Dispatch dispatch = new NotificationProperties.Dispatch();
+        dispatch.setWorkerThreads(1);
+        dispatch.setQueueCapacity(1);
+
+        // Collect tasks instead of running them so the test controls when workers run
+        submittedTasks = new ArrayDeque<>();
+        notificationDispatcher = new NotificationDispatcher(fanOutService, submittedTasks::add, dispatch);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void dispatch_DrainsEntryUntilCompleted() {
+        when(fanOutService.fanOutNextChunk(1L)).thenReturn(true, true, false);
+
+        assertTrue(notificationDispatcher.dispatch(1L));
+
+        // Each chunk requeues the entry behind other work
+        while (!submittedTasks.isEmpty()) {
+            submittedTasks.poll().run();
+        }
+
+        verify(fanOutService, times(3)).fanOutNextChunk(1L);
+        assertEquals(0, notificationDispatcher.inFlightCount());
+        assertEquals(2, notificationDispatcher.availableCapacity());
+    }
+
+    @Test
+    void dispatch_WhenEntryAlreadyInFlight_IsRefused() {
+        assertTrue(notificationDispatcher.dispatch(1L));
+        assertFalse(notificationDispatcher.dispatch(1L));
+
+        assertEquals(1, submittedTasks.size());
+        assertEquals(1, notificationDispatcher.inFlightCount());
+    }
+
+    @Test
+    void dispatch_WhenPoolIsFull_IsRefused() {
+        assertTrue(notificationDispatcher.dispatch(1L));
+        assertTrue(notificationDispatcher.dispatch(2L));
+        assertFalse(notificationDispatcher.dispatch(3L));
+
+        assertEquals(2, submittedTasks.size());
+        assertEquals(0, notificationDispatcher.availableCapacity());
+    }
+
+    @Test
+    void dispatch_WhenChunkFails_ReleasesEntryForRelay() {
+        when(fanOutService.fanOutNextChunk(1L)).thenThrow(new IllegalStateException("boom"));
+
+        notificationDispatcher.dispatch(1L);
+        submittedTasks.poll().run();
+
+        assertTrue(submittedTasks.isEmpty());
+        assertEquals(0, notificationDispatcher.inFlightCount());
+        assertEquals(2, notificationDispatcher.availableCapacity());
+    }
+
+    @Test
+    void dispatchAfterCommit_InsideTransaction_WaitsForCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        notificationDispatcher.dispatchAfterCommit(1L);
+
+        assertTrue(submittedTasks.isEmpty());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.afterCommit());
+
+        assertEquals(1, submittedTasks.size());
+    }
+
+    @Test
+    void dispatchAfterCommit_WithoutTransaction_DispatchesImmediately() {
+        notificationDispatcher.dispatchAfterCommit(1L);
+
+        assertEquals(1, submittedTasks.size());
+    }
+}
@@ -0,0 +1,126 @@
+package com.notification.service.service;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.notification.service.dto.NotificationLogResponse;
+import com.notification.service.model.enums.Category;
+import com.notification.service.model.enums.Channel;
+import com.notification.service.model.enums.ExportFormat;
+import com.notification.service.repository.NotificationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class NotificationExportServiceTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2024, 2, 1, 0, 0);
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    private NotificationExportService notificationExportService;
+
+    private NotificationLogResponse sentEntry;
+    private NotificationLogResponse failedEntry;
+
+    @BeforeEach
+    void setUp() {
+        notificationExportService = new NotificationExportService(notificationRepository,
+                JsonMapper.builder()
+                        .findAndAddModules()
+                        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                        .build());
+
+        sentEntry = NotificationLogResponse.builder()
+                .id(1L)
+                .messageId(10L)
+                .messageCategory(Category.SPORTS)
+                .messageContent("Final score: 2, 1")
+                .userId(100L)
+                .userName("User 1")
+                .userEmail("user1@example.com")
+                .userPhoneNumber("+1234567890")
+                .channel(Channel.EMAIL)
+                .sent(true)
+                .createdAt(LocalDateTime.of(2024, 1, 5, 10, 0))
+                .sentAt(LocalDateTime.of(2024, 1, 5, 10, 0, 1))
+                .build();
+
+        failedEntry = NotificationLogResponse.builder()
+                .id(2L)
+                .messageId(10L)
+                .messageCategory(Category.SPORTS)
+                .messageContent("He said \"goal\"\nand left")
+                .userId(101L)
+                .userName("User 2")
+                .userEmail("user2@example.com")
+                .channel(Channel.SMS)
+                .sent(false)
+                .createdAt(LocalDateTime.of(2024, 1, 5, 10, 0))
+                .build();
+    }
+
+    @Test
+    void export_Ndjson_WritesOneObjectPerLine() {
+        when(notificationRepository.streamLog(FROM, TO, null, null)).thenReturn(Stream.of(sentEntry, failedEntry));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = notificationExportService.export(FROM, TO, null, null, ExportFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, written);
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":1,"));
+        assertTrue(lines[0].contains("\"createdAt\":\"2024-01-05T10:00:00\""));
+        assertTrue(lines[1].contains("\"messageContent\":\"He said \\\"goal\\\"\\nand left\""));
+    }
+
+    @Test
+    void export_Csv_WritesHeaderAndQuotesFields() {
+        when(notificationRepository.streamLog(FROM, TO, Channel.EMAIL, true)).thenReturn(Stream.of(sentEntry, failedEntry));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = notificationExportService.export(FROM, TO, Channel.EMAIL, true, ExportFormat.CSV, out);
+
+        assertEquals(2, written);
+        assertEquals("id,messageId,messageCategory,messageContent,userId,userName,userEmail,userPhoneNumber,"
+                        + "channel,sent,createdAt,sentAt\r\n"
+                        + "1,10,SPORTS,\"Final score: 2, 1\",100,User 1,user1@example.com,+1234567890,"
+                        + "EMAIL,true,2024-01-05T10:00,2024-01-05T10:00:01\r\n"
+                        + "2,10,SPORTS,\"He said \"\"goal\"\"\nand left\",101,User 2,user2@example.com,,"
+                        + "SMS,false,2024-01-05T10:00,\r\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void export_ClosesTheStream() {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(notificationRepository.streamLog(FROM, TO, null, false))
+                .thenReturn(Stream.of(failedEntry).onClose(() -> closed.set(true)));
+
+        notificationExportService.export(FROM, TO, null, false, ExportFormat.NDJSON, new ByteArrayOutputStream());
+
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void csvField_LeavesPlainValuesUnquoted() {
+        assertEquals("", NotificationExportService.csvField(null));
+        assertEquals("plain", NotificationExportService.csvField("plain"));
+        assertEquals("\"a,b\"", NotificationExportService.csvField("a,b"));
+        assertEquals("\"a\r\nb\"", NotificationExportService.csvField("a\r\nb"));
+    }
+}
@@ -0,0 +1,221 @@
+package com.notification.service.service;
+
+import com.notification.service.config.NotificationProperties;
+import com.notification.service.model.Message;
+import com.notification.service.model.Notification;
+import com.notification.service.model.OutboxEntry;
+import com.notification.service.model.Recipient;
+import com.notification.service.model.User;
+import com.notification.service.model.enums.BitMasks;
+import com.notification.service.model.enums.Category;
+import com.notification.service.model.enums.Channel;
+import com.notification.service.model.enums.FanOutMode;
+import com.notification.service.model.enums.OutboxStatus;
+import com.notification.service.repository.NotificationRepository;
+import com.notification.service.repository.OutboxRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class NotificationFanOutServiceTest {
+
+    @Mock
+    private OutboxRepository outboxRepository;
+
+    @Mock
+    private AudienceReader audienceReader;
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private NotificationStrategyService notificationStrategyService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private NotificationFanOutService fanOutService;
+    private Message message;
+    private OutboxEntry entry;
+
+    @BeforeEach
+    void setUp() {
+        NotificationProperties properties = new NotificationProperties();
+        properties.getFanOut().setChunkSize(2);
+        lenient().when(audienceReader.getChunkSize()).thenReturn(2);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        fanOutService = new NotificationFanOutService(outboxRepository, audienceReader, notificationRepository,
+                notificationStrategyService, properties, new RetryPolicy(properties),
+                new DeliveryMetrics(meterRegistry), transactionTemplate);
+
+        message = Message.builder()
+                .id(1L)
+                .category(Category.SPORTS)
+                .content("Sports news")
+                .build();
+
+        entry = OutboxEntry.builder()
+                .id(10L)
+                .dispatchId("dispatch-1")
+                .message(message)
+                .status(OutboxStatus.PENDING)
+                .fanOutMode(FanOutMode.ENTITY)
+                .lastUserId(0L)
+                .build();
+    }
+
+    @Test
+    void fanOutNextChunk_WithFullChunk_AdvancesCursorAndStaysPending() {
+        List<Recipient> recipients = List.of(recipient(3L), recipient(7L));
+        List<Notification> notifications = List.of(notification(1L), notification(2L));
+        when(outboxRepository.lockPendingById(10L)).thenReturn(Optional.of(entry));
+        when(audienceReader.readChunk(Category.SPORTS, 0L)).thenReturn(recipients);
+        when(notificationStrategyService.createNotifications(message, recipients)).thenReturn(notifications);
+
+        boolean hasMore = fanOutService.fanOutNextChunk(10L);
+
+        assertTrue(hasMore);
+        assertEquals(7L, entry.getLastUserId());
+        assertEquals(OutboxStatus.PENDING, entry.getStatus());
+        verify(notificationStrategyService, times(1)).deliverNotifications(notifications);
+        assertEquals(2, entry.getAudienceSize());
+        // The audience is recorded once the whole message is fanned out
+        assertEquals(0, audience().count());
+    }
+
+    @Test
+    void fanOutNextChunk_CommitsTheReservedRowsBeforeSendingThem() {
+        List<Recipient> recipients = List.of(recipient(3L));
+        List<Notification> notifications = List.of(notification(1L));
+        when(outboxRepository.lockPendingById(10L)).thenReturn(Optional.of(entry));
+        when(audienceReader.readChunk(Category.SPORTS, 0L)).thenReturn(recipients);
+        when(notificationStrategyService.createNotifications(message, recipients)).thenReturn(notifications);
+
+        fanOutService.fanOutNextChunk(10L);
+
+        // The rows are saved inside the transaction, the sends run after it returned
+        InOrder inOrder = inOrder(transactionTemplate, notificationRepository, notificationStrategyService);
+        inOrder.verify(transactionTemplate).execute(any());
+        inOrder.verify(notificationRepository).saveAll(notifications);
+        inOrder.verify(notificationStrategyService).deliverNotifications(notifications);
+        verify(transactionTemplate, times(1)).execute(any());
+        // Left to the retry scheduler for the delivery lease, in case this node stops before the outcome is written
+        assertTrue(notifications.get(0).getNextAttemptAt().isAfter(LocalDateTime.now().plusMinutes(9)));
+    }
+
+    @Test
+    void fanOutNextChunk_WithShortChunk_CompletesEntry() {
+        entry.setLastUserId(7L);
+        entry.setAudienceSize(2);
+        List<Recipient> recipients = List.of(recipient(9L));
+        when(outboxRepository.lockPendingById(10L)).thenReturn(Optional.of(entry));
+        when(audienceReader.readChunk(Category.SPORTS, 7L)).thenReturn(recipients);
+
+        boolean hasMore = fanOutService.fanOutNextChunk(10L);
+
+        assertFalse(hasMore);
+        assertEquals(9L, entry.getLastUserId());
+        assertEquals(OutboxStatus.COMPLETED, entry.getStatus());
+        assertEquals(1, audience().count());
+        assertEquals(3, audience().totalAmount());
+    }
+
+    @Test
+    void fanOutNextChunk_WithNoSubscribersLeft_CompletesEntry() {
+        when(outboxRepository.lockPendingById(10L)).thenReturn(Optional.of(entry));
+        when(audienceReader.readChunk(any(), anyLong())).thenReturn(Collections.emptyList());
+
+        assertFalse(fanOutService.fanOutNextChunk(10L));
+        assertEquals(0L, entry.getLastUserId());
+        assertEquals(OutboxStatus.COMPLETED, entry.getStatus());
+        assertEquals(1, audience().count());
+        assertEquals(0, audience().totalAmount());
+    }
+
+    @Test
+    void fanOutNextChunk_WhenEntryIsLockedOrCompleted_DoesNothing() {
+        when(outboxRepository.lockPendingById(10L)).thenReturn(Optional.empty());
+
+        assertFalse(fanOutService.fanOutNextChunk(10L));
+        verifyNoInteractions(audienceReader, notificationStrategyService);
+        verify(transactionTemplate, times(1)).execute(any());
+    }
+
+    @Test
+    void fanOutNextChunk_SetBased_FirstChunkGeneratesAllRows() {
+        entry.setFanOutMode(FanOutMode.SET_BASED);
+        when(outboxRepository.lockPendingById(10L)).thenReturn(Optional.of(entry));
+        when(notificationRepository.insertPendingForMessage(
+                1L, BitMasks.bit(Category.SPORTS), Channel.EMAIL.code(), Channel.SMS.code())).thenReturn(1000);
+
+        assertTrue(fanOutService.fanOutNextChunk(10L));
+        assertTrue(entry.isAudienceExpanded());
+        verifyNoInteractions(audienceReader);
+        verify(notificationStrategyService).deliverNotifications(List.of());
+    }
+
+    @Test
+    void fanOutNextChunk_SetBased_DeliversPendingRowsAfterCursor() {
+        entry.setFanOutMode(FanOutMode.SET_BASED);
+        entry.setAudienceExpanded(true);
+        entry.setLastNotificationId(100L);
+        List<Notification> pending = List.of(Notification.builder().id(150L).build(), Notification.builder().id(200L).build());
+        when(outboxRepository.lockPendingById(10L)).thenReturn(Optional.of(entry));
+        when(notificationRepository.findUnsentByMessageAfter(1L, 100L, PageRequest.of(0, 2))).thenReturn(pending);
+
+        assertTrue(fanOutService.fanOutNextChunk(10L));
+        assertEquals(200L, entry.getLastNotificationId());
+        verify(notificationStrategyService, times(1)).deliverNotifications(pending);
+        pending.forEach(notification -> assertNotNull(notification.getNextAttemptAt()));
+        verify(notificationRepository, never()).insertPendingForMessage(any(), anyInt(), anyInt(), anyInt());
+    }
+
+    @Test
+    void fanOutNextChunk_SetBased_WithNoPendingRowsLeft_CompletesEntry() {
+        entry.setFanOutMode(FanOutMode.SET_BASED);
+        entry.setAudienceExpanded(true);
+        when(outboxRepository.lockPendingById(10L)).thenReturn(Optional.of(entry));
+        when(notificationRepository.findUnsentByMessageAfter(anyLong(), anyLong(), any())).thenReturn(Collections.emptyList());
+
+        assertFalse(fanOutService.fanOutNextChunk(10L));
+        assertEquals(OutboxStatus.COMPLETED, entry.getStatus());
+    }
+
+    private DistributionSummary audience() {
+        return meterRegistry.get("notification.fanout.audience").tag("category", "sports").summary();
+    }
+
+    private Notification notification(Long userId) {
+        return Notification.builder()
+                .message(message)
+                .user(User.builder().id(userId).build())
+                .channel(Channel.EMAIL)
+                .build();
+    }
+
+    private static Recipient recipient(Long userId) {
+        return new Recipient(userId, "user" + userId + "@example.com", null, BitMasks.bit(Channel.EMAIL));
+    }
+}
@@ -1,5 +1,7 @@
 package com.notification.service.service;
 
+import com.notification.service.dto.PageCursor;
+import com.notification.service.dto.NotificationLogResponse;
 import com.notification.service.model.Message;
 import com.notification.service.model.Notification;
 import com.notification.service.model.User;
@@ -125,29 +127,31 @@ public class NotificationLogServiceTest {
     @Test
     void getAllNotifications_Success() {
         // Set up mock behavior
-        Page<Notification> notificationPage = new PageImpl<>(allNotifications);
-        when(notificationRepository.findAllOrderByCreatedAtDesc(any(Pageable.class))).thenReturn(notificationPage);
+        List<NotificationLogResponse> entries = allNotifications.stream()
+                .map(NotificationLogResponse::fromNotification)
+                .toList();
+        when(notificationRepository.findLogPage(any(Pageable.class))).thenReturn(new PageImpl<>(entries));
 
         // Call the method under test
-        Page<Notification> result = notificationLogService.getAllNotifications(0, 10);
+        Page<NotificationLogResponse> result = notificationLogService.getAllNotifications(0, 10);
 
         // Verify the result
         assertNotNull(result);
         assertEquals(4, result.getTotalElements());
-        assertEquals(allNotifications, result.getContent());
+        assertEquals(entries, result.getContent());
 
         // Verify interactions with mocks
-        verify(notificationRepository, times(1)).findAllOrderByCreatedAtDesc(any(Pageable.class));
+        verify(notificationRepository, times(1)).findLogPage(any(Pageable.class));
     }
 
     @Test
     void getAllNotifications_EmptyList() {
         // Set up mock behavior
-        Page<Notification> emptyPage = new PageImpl<>(Collections.emptyList());
-        when(notificationRepository.findAllOrderByCreatedAtDesc(any(Pageable.class))).thenReturn(emptyPage);
+        Page<NotificationLogResponse> emptyPage = new PageImpl<>(Collections.emptyList());
+        when(notificationRepository.findLogPage(any(Pageable.class))).thenReturn(emptyPage);
 
         // Call the method under test
-        Page<Notification> result = notificationLogService.getAllNotifications(0, 10);
+        Page<NotificationLogResponse> result = notificationLogService.getAllNotifications(0, 10);
 
         // Verify the result
         assertNotNull(result);
@@ -155,13 +159,13 @@ public class NotificationLogServiceTest {
         assertTrue(result.getContent().isEmpty());
 
         // Verify interactions with mocks
-        verify(notificationRepository, times(1)).findAllOrderByCreatedAtDesc(any(Pageable.class));
+        verify(notificationRepository, times(1)).findLogPage(any(Pageable.class));
     }
 
     @Test
     void getAllNotifications_CorrectPageable() {
         // Set up mock behavior
-        when(notificationRepository.findAllOrderByCreatedAtDesc(any(Pageable.class))).thenAnswer(invocation -> {
+        when(notificationRepository.findLogPage(any(Pageable.class))).thenAnswer(invocation -> {
             Pageable pageable = invocation.getArgument(0);
             assertEquals(2, pageable.getPageNumber());
             assertEquals(5, pageable.getPageSize());
@@ -173,7 +177,28 @@ public class NotificationLogServiceTest {
         notificationLogService.getAllNotifications(2, 5);
 
         // Verify interactions with mocks
-        verify(notificationRepository, times(1)).findAllOrderByCreatedAtDesc(any(Pageable.class));
+        verify(notificationRepository, times(1)).findLogPage(any(Pageable.class));
+    }
+
+    @Test
+    void getNotificationsAfter_SeeksFromTheCursor() {
+        // Set up mock behavior
+        PageCursor after = PageCursor.after(NotificationLogResponse.fromNotification(emailNotification));
+        List<NotificationLogResponse> entries = List.of(
+                NotificationLogResponse.fromNotification(smsNotification),
+                NotificationLogResponse.fromNotification(pushNotification));
+        when(notificationRepository.findLogAfter(emailNotification.getCreatedAt(), emailNotification.getId(),
+                PageRequest.of(0, 3)))
+                .thenReturn(entries);
+
+        // Call the method under test
+        List<NotificationLogResponse> result = notificationLogService.getNotificationsAfter(after, 3);
+
+        // Verify the result
+        assertEquals(entries, result);
+
+        // No count query
+        verify(notificationRepository, never()).count();
     }
 
     @Test
@@ -245,40 +270,45 @@ public class NotificationLogServiceTest {
     }
 
     @Test
-    void getNotificationsBySentStatus_Sent() {
+    void getNotificationsBySentStatus_FirstPage() {
         // Set up mock behavior
-        when(notificationRepository.findAll()).thenReturn(allNotifications);
+        PageCursor first = PageCursor.FIRST;
+        List<NotificationLogResponse> entries = List.of(
+                NotificationLogResponse.fromNotification(emailNotification),
+                NotificationLogResponse.fromNotification(smsNotification));
+        when(notificationRepository.findLogBySentAfter(true, first.createdAt(), first.id(), PageRequest.of(0, 2)))
+                .thenReturn(entries);
 
         // Call the method under test
-        List<Notification> result = notificationLogService.getNotificationsBySentStatus(true);
+        List<NotificationLogResponse> result = notificationLogService.getNotificationsBySentStatus(true, first, 2);
 
         // Verify the result
-        assertNotNull(result);
-        assertEquals(3, result.size());
-        assertTrue(result.contains(emailNotification));
-        assertTrue(result.contains(smsNotification));
-        assertTrue(result.contains(pushNotification));
-        assertFalse(result.contains(failedNotification));
+        assertEquals(entries, result);
 
-        // Verify interactions with mocks
-        verify(notificationRepository, times(1)).findAll();
+        // Filtered by the database, no other row is loaded
+        verify(notificationRepository, never()).findAll();
     }
 
     @Test
-    void getNotificationsBySentStatus_NotSent() {
+    void getNotificationsBySentStatus_NextPage() {
         // Set up mock behavior
-        when(notificationRepository.findAll()).thenReturn(allNotifications);
+        PageCursor after = PageCursor.decode(
+                PageCursor.after(NotificationLogResponse.fromNotification(smsNotification)).encode());
+        List<NotificationLogResponse> entries = List.of(NotificationLogResponse.fromNotification(failedNotification));
+        when(notificationRepository.findLogBySentAfter(false, smsNotification.getCreatedAt(), smsNotification.getId(),
+                PageRequest.of(0, 2)))
+                .thenReturn(entries);
 
         // Call the method under test
-        List<Notification> result = notificationLogService.getNotificationsBySentStatus(false);
+        List<NotificationLogResponse> result = notificationLogService.getNotificationsBySentStatus(false, after, 2);
 
         // Verify the result
-        assertNotNull(result);
-        assertEquals(1, result.size());
-        assertTrue(result.contains(failedNotification));
+        assertEquals(entries, result);
+    }
 
-        // Verify interactions with mocks
-        verify(notificationRepository, times(1)).findAll();
+    @Test
+    void getNotificationsBySentStatus_MalformedCursor() {
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("not-a-cursor"));
     }
 
     @Test
@@ -299,7 +329,7 @@ public class NotificationLogServiceTest {
     @Test
     void countSentNotifications_Success() {
         // Set up mock behavior
-        when(notificationRepository.findAll()).thenReturn(allNotifications);
+        when(notificationRepository.countBySent(true)).thenReturn(3L);
 
         // Call the method under test
         long result = notificationLogService.countSentNotifications();
@@ -307,7 +337,7 @@ public class NotificationLogServiceTest {
         // Verify the result
         assertEquals(3L, result);
 
-        // Verify interactions with mocks
-        verify(notificationRepository, times(1)).findAll();
+        // Counted by the database, no row is loaded
+        verify(notificationRepository, never()).findAll();
     }
 }
\ No newline at end of file
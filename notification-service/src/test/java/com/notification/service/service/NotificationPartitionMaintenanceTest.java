@@ -0,0 +1,262 @@
+package com.notification.service.service;
+
+import com.notification.service.config.NotificationProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class NotificationPartitionMaintenanceTest {
+
+    private static final YearMonth OCTOBER = YearMonth.of(2026, 10);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private Statement statement;
+
+    @Mock
+    private ResultSet lockResult;
+
+    private NotificationProperties properties;
+    private NotificationPartitionMaintenance maintenance;
+
+    @BeforeEach
+    void setUp() {
+        properties = new NotificationProperties();
+        properties.getPartitions().setPremakeMonths(2);
+        maintenance = new NotificationPartitionMaintenance(jdbcTemplate, transactionTemplate, properties);
+    }
+
+    @Test
+    void maintain_CreatesMissingPartitionsAhead() {
+        givenPartitions("notifications_2026_10", "notifications_2026_11");
+        runTransactions();
+
+        NotificationPartitionMaintenance.Changes changes = maintenance.maintain(OCTOBER);
+
+        assertEquals(new NotificationPartitionMaintenance.Changes(1, 0), changes);
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS notifications_2026_12 PARTITION OF notifications "
+                + "FOR VALUES FROM ('2026-12-01') TO ('2027-01-01')");
+        verify(jdbcTemplate, never()).execute(contains("notifications_2026_11 PARTITION OF"));
+        verify(jdbcTemplate).execute("SET LOCAL lock_timeout = 5000");
+    }
+
+    @Test
+    void maintain_DetachesConcurrentlyThenDropsPartitionsPastRetention() throws Exception {
+        properties.getPartitions().setRetentionMonths(2);
+        givenPartitions("notifications_2026_07", "notifications_2026_08", "notifications_2026_09",
+                "notifications_2026_10", "notifications_2026_11", "notifications_2026_12");
+        runTransactions();
+        givenAdvisoryLock(true);
+
+        NotificationPartitionMaintenance.Changes changes = maintenance.maintain(OCTOBER);
+
+        assertEquals(new NotificationPartitionMaintenance.Changes(0, 1), changes);
+        InOrder inOrder = inOrder(statement, jdbcTemplate);
+        inOrder.verify(statement).execute("ALTER TABLE notifications DETACH PARTITION notifications_2026_07 CONCURRENTLY");
+        inOrder.verify(statement).execute(startsWith("SELECT pg_advisory_unlock"));
+        inOrder.verify(jdbcTemplate).execute("DROP TABLE IF EXISTS notifications_2026_07");
+        verify(jdbcTemplate, times(1)).execute(startsWith("DROP TABLE"));
+    }
+
+    @Test
+    void maintain_FinishesInterruptedDetaches() throws Exception {
+        properties.getPartitions().setRetentionMonths(2);
+        givenPartitions(new NotificationPartitionMaintenance.Partition("notifications_2026_06",
+                        YearMonth.of(2026, 6), false, false),
+                new NotificationPartitionMaintenance.Partition("notifications_2026_07",
+                        YearMonth.of(2026, 7), true, true),
+                partition("notifications_2026_10"), partition("notifications_2026_11"),
+                partition("notifications_2026_12"));
+        runTransactions();
+        givenAdvisoryLock(true);
+
+        NotificationPartitionMaintenance.Changes changes = maintenance.maintain(OCTOBER);
+
+        assertEquals(new NotificationPartitionMaintenance.Changes(0, 2), changes);
+        verify(statement).execute("ALTER TABLE notifications DETACH PARTITION notifications_2026_07 FINALIZE");
+        verify(statement, never()).execute(contains("notifications_2026_06"));
+        verify(jdbcTemplate).execute("DROP TABLE IF EXISTS notifications_2026_06");
+        verify(jdbcTemplate).execute("DROP TABLE IF EXISTS notifications_2026_07");
+    }
+
+    @Test
+    void maintain_DetachLockedByAnotherNode_KeepsPartition() throws Exception {
+        properties.getPartitions().setRetentionMonths(2);
+        givenPartitions("notifications_2026_07", "notifications_2026_10", "notifications_2026_11",
+                "notifications_2026_12");
+        givenAdvisoryLock(false);
+
+        NotificationPartitionMaintenance.Changes changes = maintenance.maintain(OCTOBER);
+
+        assertEquals(NotificationPartitionMaintenance.Changes.NONE, changes);
+        verify(statement, never()).execute(anyString());
+        verify(jdbcTemplate, never()).execute(startsWith("DROP TABLE"));
+    }
+
+    @Test
+    void maintain_WithoutRetention_KeepsAllPartitions() {
+        givenPartitions("notifications_2020_01", "notifications_2026_10", "notifications_2026_11",
+                "notifications_2026_12");
+
+        NotificationPartitionMaintenance.Changes changes = maintenance.maintain(OCTOBER);
+
+        assertEquals(NotificationPartitionMaintenance.Changes.NONE, changes);
+        verifyNoInteractions(transactionTemplate);
+    }
+
+    @Test
+    void maintain_FailedStatement_LeavesPartitionForNextRun() {
+        givenPartitions("notifications_2026_10");
+        runTransactions();
+        lenient().doThrow(new CannotAcquireLockException("lock timeout"))
+                .when(jdbcTemplate).execute(startsWith("CREATE TABLE IF NOT EXISTS notifications_2026_11"));
+
+        NotificationPartitionMaintenance.Changes changes = maintenance.maintain(OCTOBER);
+
+        assertEquals(new NotificationPartitionMaintenance.Changes(1, 0), changes);
+        verify(jdbcTemplate).execute(startsWith("CREATE TABLE IF NOT EXISTS notifications_2026_12"));
+        assertEquals(List.of("notifications_2026_11"), maintenance.getMissingPartitions());
+    }
+
+    @Test
+    void maintain_DetachedTableOfNextMonth_IsMissing() {
+        givenPartitions(partition("notifications_2026_10"), new NotificationPartitionMaintenance.Partition(
+                "notifications_2026_11", YearMonth.of(2026, 11), false, false), partition("notifications_2026_12"));
+
+        NotificationPartitionMaintenance.Changes changes = maintenance.maintain(OCTOBER);
+
+        assertEquals(NotificationPartitionMaintenance.Changes.NONE, changes);
+        verifyNoInteractions(transactionTemplate);
+        assertEquals(List.of("notifications_2026_11"), maintenance.getMissingPartitions());
+    }
+
+    @Test
+    void maintain_WithoutPremake_StillCreatesNextMonth() {
+        properties.getPartitions().setPremakeMonths(0);
+        givenPartitions("notifications_2026_10");
+        runTransactions();
+
+        NotificationPartitionMaintenance.Changes changes = maintenance.maintain(OCTOBER);
+
+        assertEquals(new NotificationPartitionMaintenance.Changes(1, 0), changes);
+        verify(jdbcTemplate).execute(startsWith("CREATE TABLE IF NOT EXISTS notifications_2026_11"));
+        assertEquals(List.of(), maintenance.getMissingPartitions());
+    }
+
+    @Test
+    void onApplicationReady_NextMonthPartitionMissing_FailsReadinessUntilCreated() {
+        YearMonth currentMonth = YearMonth.now();
+        String nextPartition = String.format("notifications_%d_%02d",
+                currentMonth.plusMonths(1).getYear(), currentMonth.plusMonths(1).getMonthValue());
+        NotificationPartitionsHealthIndicator healthIndicator = new NotificationPartitionsHealthIndicator(maintenance);
+        givenPostgres();
+        givenPartitions(String.format("notifications_%d_%02d", currentMonth.getYear(), currentMonth.getMonthValue()));
+        runTransactions();
+        lenient().doThrow(new CannotAcquireLockException("lock timeout")).doNothing()
+                .when(jdbcTemplate).execute(startsWith("CREATE TABLE IF NOT EXISTS " + nextPartition));
+
+        maintenance.onApplicationReady();
+
+        Health health = healthIndicator.health();
+        assertEquals(Status.DOWN, health.getStatus());
+        assertEquals(List.of(nextPartition), health.getDetails().get("missing"));
+
+        maintenance.maintain();
+
+        assertEquals(Status.UP, healthIndicator.health().getStatus());
+    }
+
+    @Test
+    void health_NotPartitioned_IsUp() {
+        NotificationPartitionsHealthIndicator healthIndicator = new NotificationPartitionsHealthIndicator(maintenance);
+        when(jdbcTemplate.execute(ArgumentMatchers.<ConnectionCallback<String>>any())).thenReturn("H2");
+
+        maintenance.onApplicationReady();
+
+        assertEquals(Status.UP, healthIndicator.health().getStatus());
+        verify(jdbcTemplate, never()).query(anyString(), ArgumentMatchers.<RowMapper<?>>any());
+    }
+
+    @Test
+    void maintain_Disabled_DoesNothing() {
+        properties.getPartitions().setEnabled(false);
+
+        maintenance.onApplicationReady();
+
+        assertEquals(NotificationPartitionMaintenance.Changes.NONE, maintenance.maintain());
+        verifyNoInteractions(jdbcTemplate, transactionTemplate);
+    }
+
+    @Test
+    void parseMonth_OnlyMonthlyPartitions() {
+        assertEquals(YearMonth.of(2026, 1), NotificationPartitionMaintenance.parseMonth("notifications_2026_01"));
+        assertNull(NotificationPartitionMaintenance.parseMonth("notifications_default"));
+        assertNull(NotificationPartitionMaintenance.parseMonth("notifications_archive"));
+    }
+
+    private void givenPostgres() {
+        when(jdbcTemplate.execute(ArgumentMatchers.<ConnectionCallback<String>>any())).thenReturn("PostgreSQL");
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class))).thenReturn(true);
+    }
+
+    private void givenPartitions(String... names) {
+        givenPartitions(Arrays.stream(names).map(NotificationPartitionMaintenanceTest::partition)
+                .toArray(NotificationPartitionMaintenance.Partition[]::new));
+    }
+
+    private void givenPartitions(NotificationPartitionMaintenance.Partition... partitions) {
+        when(jdbcTemplate.query(anyString(), ArgumentMatchers.<RowMapper<NotificationPartitionMaintenance.Partition>>any()))
+                .thenReturn(Arrays.asList(partitions));
+    }
+
+    private static NotificationPartitionMaintenance.Partition partition(String name) {
+        return new NotificationPartitionMaintenance.Partition(name, NotificationPartitionMaintenance.parseMonth(name),
+                true, false);
+    }
+
+    private void givenAdvisoryLock(boolean acquired) throws Exception {
+        lenient().when(jdbcTemplate.execute(ArgumentMatchers.<ConnectionCallback<Object>>any()))
+                .thenAnswer(invocation -> invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection));
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(startsWith("SELECT pg_try_advisory_lock"))).thenReturn(lockResult);
+        when(lockResult.next()).thenReturn(true);
+        when(lockResult.getBoolean(1)).thenReturn(acquired);
+    }
+
+    private void runTransactions() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+}
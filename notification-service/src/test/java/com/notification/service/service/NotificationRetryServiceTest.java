@@ -0,0 +1,198 @@
+package com.notification.service.service;
+
+import com.notification.service.config.NotificationProperties;
+import com.notification.service.model.Notification;
+import com.notification.service.model.enums.Channel;
+import com.notification.service.repository.NotificationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class NotificationRetryServiceTest {
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private NotificationStrategyService notificationStrategyService;
+
+    @Mock
+    private ChannelRateLimiter channelRateLimiter;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private NotificationRetryService notificationRetryService;
+
+    private final AtomicBoolean inTransaction = new AtomicBoolean();
+
+    private final AtomicBoolean rollsBack = new AtomicBoolean();
+
+    private final LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @BeforeEach
+    void setUp() {
+        NotificationProperties properties = new NotificationProperties();
+        properties.getRetry().setBatchSize(3);
+
+        notificationRetryService = new NotificationRetryService(notificationRepository, notificationStrategyService,
+                channelRateLimiter, new RetryPolicy(properties), transactionTemplate, properties);
+
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+            inTransaction.set(true);
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                Object result = invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null);
+                if (rollsBack.get()) {
+                    complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+                    throw new TransactionSystemException("Could not commit the claim");
+                }
+                complete(TransactionSynchronization.STATUS_COMMITTED);
+                return result;
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+                inTransaction.set(false);
+            }
+        });
+    }
+
+    @Test
+    void retryNextBatch_RetriesOnlyWithinTheSparePermits() {
+        Notification sms1 = due(1L, Channel.SMS, now.minusMinutes(3));
+        Notification email = due(2L, Channel.EMAIL, now.minusMinutes(2));
+        Notification sms2 = due(3L, Channel.SMS, now.minusMinutes(1));
+        NotificationRetryService.RetryCursor start = NotificationRetryService.RetryCursor.START;
+        when(notificationRepository.lockDueForRetry(now, start.nextAttemptAt(), start.id(), 3))
+                .thenReturn(List.of(1L, 2L, 3L));
+        when(notificationRepository.findWithUserAndMessageByIdIn(List.of(1L, 2L, 3L)))
+                .thenReturn(List.of(sms1, email, sms2));
+        when(channelRateLimiter.tryAcquireUpTo(Channel.SMS, 2)).thenReturn(1);
+        when(channelRateLimiter.tryAcquireUpTo(Channel.EMAIL, 1)).thenReturn(1);
+        when(notificationStrategyService.retryNotifications(List.of(sms1, email))).thenReturn(List.of(email));
+
+        NotificationRetryService.RetryBatch batch = notificationRetryService.retryNextBatch(now, start);
+
+        assertEquals(3, batch.scanned());
+        assertEquals(2, batch.retried());
+        assertEquals(1, batch.sent());
+        assertEquals(new NotificationRetryService.RetryCursor(now.minusMinutes(1), 3L), batch.next());
+    }
+
+    @Test
+    void retryNextBatch_ClaimsTheRetriedNotificationsThenSendsThemOutsideTheTransaction() {
+        Notification sms = due(1L, Channel.SMS, now.minusMinutes(2));
+        Notification email = due(2L, Channel.EMAIL, now.minusMinutes(1));
+        NotificationRetryService.RetryCursor start = NotificationRetryService.RetryCursor.START;
+        when(notificationRepository.lockDueForRetry(now, start.nextAttemptAt(), start.id(), 3))
+                .thenReturn(List.of(1L, 2L));
+        when(notificationRepository.findWithUserAndMessageByIdIn(List.of(1L, 2L))).thenReturn(List.of(sms, email));
+        when(channelRateLimiter.tryAcquireUpTo(Channel.SMS, 1)).thenReturn(1);
+        when(channelRateLimiter.tryAcquireUpTo(Channel.EMAIL, 1)).thenReturn(0);
+        when(notificationStrategyService.retryNotifications(List.of(sms))).thenAnswer(invocation -> {
+            assertFalse(inTransaction.get(), "The provider calls are made after the claim has committed");
+            return List.of(sms);
+        });
+
+        NotificationRetryService.RetryBatch batch = notificationRetryService.retryNextBatch(now, start);
+
+        assertEquals(1, batch.sent());
+        // The claimed notification is leased until its outcome is written, the one without a permit stays due
+        assertTrue(sms.getNextAttemptAt().isAfter(LocalDateTime.now().plusMinutes(5)));
+        assertEquals(now.minusMinutes(1), email.getNextAttemptAt());
+        assertEquals(new NotificationRetryService.RetryCursor(now.minusMinutes(1), 2L), batch.next());
+        InOrder inOrder = inOrder(transactionTemplate, notificationStrategyService);
+        inOrder.verify(transactionTemplate).execute(any());
+        inOrder.verify(notificationStrategyService).retryNotifications(List.of(sms));
+    }
+
+    @Test
+    void retryNextBatch_WhenTheClaimRollsBack_GivesThePermitsBack() {
+        Notification sms1 = due(1L, Channel.SMS, now.minusMinutes(3));
+        Notification sms2 = due(2L, Channel.SMS, now.minusMinutes(2));
+        Notification email = due(3L, Channel.EMAIL, now.minusMinutes(1));
+        NotificationRetryService.RetryCursor start = NotificationRetryService.RetryCursor.START;
+        when(notificationRepository.lockDueForRetry(now, start.nextAttemptAt(), start.id(), 3))
+                .thenReturn(List.of(1L, 2L, 3L));
+        when(notificationRepository.findWithUserAndMessageByIdIn(List.of(1L, 2L, 3L)))
+                .thenReturn(List.of(sms1, sms2, email));
+        when(channelRateLimiter.tryAcquireUpTo(Channel.SMS, 2)).thenReturn(2);
+        when(channelRateLimiter.tryAcquireUpTo(Channel.EMAIL, 1)).thenReturn(0);
+        rollsBack.set(true);
+
+        assertThrows(TransactionSystemException.class, () -> notificationRetryService.retryNextBatch(now, start));
+
+        verify(channelRateLimiter).release(Channel.SMS, 2);
+        verify(channelRateLimiter, never()).release(eq(Channel.EMAIL), anyInt());
+        verifyNoInteractions(notificationStrategyService);
+    }
+
+    @Test
+    void retryNextBatch_WhenTheClaimCommits_KeepsThePermits() {
+        Notification sms = due(1L, Channel.SMS, now.minusMinutes(1));
+        NotificationRetryService.RetryCursor start = NotificationRetryService.RetryCursor.START;
+        when(notificationRepository.lockDueForRetry(now, start.nextAttemptAt(), start.id(), 3)).thenReturn(List.of(1L));
+        when(notificationRepository.findWithUserAndMessageByIdIn(List.of(1L))).thenReturn(List.of(sms));
+        when(channelRateLimiter.tryAcquireUpTo(Channel.SMS, 1)).thenReturn(1);
+        when(notificationStrategyService.retryNotifications(List.of(sms))).thenReturn(List.of(sms));
+
+        notificationRetryService.retryNextBatch(now, start);
+
+        verify(channelRateLimiter, never()).release(any(), anyInt());
+    }
+
+    @Test
+    void retryNextBatch_WithoutSparePermits_SendsNothing() {
+        Notification sms = due(1L, Channel.SMS, now.minusMinutes(1));
+        NotificationRetryService.RetryCursor start = NotificationRetryService.RetryCursor.START;
+        when(notificationRepository.lockDueForRetry(now, start.nextAttemptAt(), start.id(), 3)).thenReturn(List.of(1L));
+        when(notificationRepository.findWithUserAndMessageByIdIn(List.of(1L))).thenReturn(List.of(sms));
+        when(channelRateLimiter.tryAcquireUpTo(Channel.SMS, 1)).thenReturn(0);
+
+        NotificationRetryService.RetryBatch batch = notificationRetryService.retryNextBatch(now, start);
+
+        assertEquals(1, batch.scanned());
+        assertEquals(0, batch.retried());
+        assertEquals(now.minusMinutes(1), sms.getNextAttemptAt());
+        verifyNoInteractions(notificationStrategyService);
+    }
+
+    @Test
+    void retryNextBatch_WithNothingDue_KeepsTheCursor() {
+        NotificationRetryService.RetryCursor after = new NotificationRetryService.RetryCursor(now.minusMinutes(1), 7L);
+        when(notificationRepository.lockDueForRetry(now, after.nextAttemptAt(), 7L, 3)).thenReturn(List.of());
+
+        NotificationRetryService.RetryBatch batch = notificationRetryService.retryNextBatch(now, after);
+
+        assertEquals(0, batch.scanned());
+        assertEquals(after, batch.next());
+        verifyNoInteractions(notificationStrategyService, channelRateLimiter);
+    }
+
+    private static void complete(int status) {
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+
+    private static Notification due(Long id, Channel channel, LocalDateTime nextAttemptAt) {
+        return Notification.builder().id(id).channel(channel).attempts(1).nextAttemptAt(nextAttemptAt).build();
+    }
+}
@@ -0,0 +1,161 @@
+package com.notification.service.service;
+
+import com.notification.service.model.NotificationCounter;
+import com.notification.service.model.enums.Category;
+import com.notification.service.model.enums.Channel;
+import com.notification.service.repository.NotificationCounterRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class NotificationStatisticsTest {
+
+    @Mock
+    private NotificationCounterRepository notificationCounterRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private NotificationStatistics notificationStatistics;
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void record_WithinTransaction_CountsOnlyOnceCommitted() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        notificationStatistics.record(Category.SPORTS, Channel.EMAIL, 1, 0);
+        notificationStatistics.record(Category.SPORTS, Channel.SMS, 0, 1);
+        assertEquals(0, notificationStatistics.snapshot().total());
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        assertEquals(1, synchronizations.size());
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        NotificationStatistics.Snapshot snapshot = notificationStatistics.snapshot();
+        assertEquals(1, snapshot.sent());
+        assertEquals(1, snapshot.failed());
+        assertEquals(new NotificationStatistics.Counts(0, 1), snapshot.byChannel().get(Channel.SMS));
+        assertEquals(new NotificationStatistics.Counts(1, 1), snapshot.byCategory().get(Category.SPORTS));
+        assertNull(TransactionSynchronizationManager.getResource(notificationStatistics));
+    }
+
+    @Test
+    void checkpoint_AddsLocalCountsAndReadsBackAllNodes() {
+        givenTransactions();
+        notificationStatistics.record(Category.FINANCE, Channel.PUSH_NOTIFICATION, 2, 1);
+        when(notificationCounterRepository.addCounts(Category.FINANCE, Channel.PUSH_NOTIFICATION, 2, 1)).thenReturn(1);
+        // Another node's deliveries were checkpointed meanwhile
+        when(notificationCounterRepository.findAll()).thenReturn(List.of(
+                new NotificationCounter(Category.FINANCE, Channel.PUSH_NOTIFICATION, 10, 3)));
+
+        notificationStatistics.checkpoint();
+
+        assertEquals(new NotificationStatistics.Counts(10, 3),
+                notificationStatistics.snapshot().get(Category.FINANCE, Channel.PUSH_NOTIFICATION));
+        verify(notificationCounterRepository, never()).save(any());
+    }
+
+    @Test
+    void checkpoint_WhenCounterDoesNotExist_CreatesIt() {
+        givenTransactions();
+        notificationStatistics.record(Category.MOVIES, Channel.EMAIL, 1, 0);
+        when(notificationCounterRepository.addCounts(Category.MOVIES, Channel.EMAIL, 1, 0)).thenReturn(0);
+
+        notificationStatistics.checkpoint();
+
+        verify(notificationCounterRepository).save(new NotificationCounter(Category.MOVIES, Channel.EMAIL, 1, 0));
+    }
+
+    @Test
+    void checkpoint_WhenWriteFails_KeepsTheCountsForTheNextOne() {
+        when(transactionTemplate.execute(any())).thenThrow(new IllegalStateException("database down"));
+        notificationStatistics.record(Category.SPORTS, Channel.SMS, 1, 0);
+
+        notificationStatistics.checkpoint();
+
+        assertEquals(1, notificationStatistics.snapshot().sent());
+    }
+
+    @Test
+    void rebuild_ReplacesTheCountersWithTheGroupedCounts() {
+        givenTransactions();
+        notificationStatistics.record(Category.SPORTS, Channel.SMS, 5, 0);
+        when(notificationCounterRepository.findAll()).thenReturn(List.of(
+                new NotificationCounter(Category.SPORTS, Channel.SMS, 7, 2)));
+
+        NotificationStatistics.Snapshot rebuilt = notificationStatistics.rebuild();
+
+        assertEquals(9, rebuilt.total());
+        InOrder inOrder = inOrder(notificationCounterRepository);
+        inOrder.verify(notificationCounterRepository).deleteAllInBatch();
+        inOrder.verify(notificationCounterRepository).insertCountsFromNotifications();
+        // The local counts were already committed, so they are in the grouped counts
+        assertEquals(7, notificationStatistics.snapshot().sent());
+        assertEquals(2, notificationStatistics.snapshot().failed());
+    }
+
+    @Test
+    void rebuild_WaitsForTransactionsThatAreCommitting() throws Exception {
+        givenTransactions();
+        when(notificationCounterRepository.findAll()).thenReturn(List.of(
+                new NotificationCounter(Category.SPORTS, Channel.SMS, 6, 0)));
+        TransactionSynchronizationManager.initSynchronization();
+        notificationStatistics.record(Category.SPORTS, Channel.SMS, 1, 0);
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+
+        // The transaction's rows are being committed, but its counts are not pending yet
+        CompletableFuture<Void> rebuild = CompletableFuture.runAsync(notificationStatistics::rebuild);
+        assertThrows(TimeoutException.class, () -> rebuild.get(100, TimeUnit.MILLISECONDS));
+        verify(transactionTemplate, never()).execute(any());
+
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        rebuild.get(5, TimeUnit.SECONDS);
+
+        // The grouped query counted the transaction, its pending count is dropped
+        assertEquals(6, notificationStatistics.snapshot().sent());
+    }
+
+    @Test
+    void rebuild_WhenItFails_KeepsTheCountsForTheNextCheckpoint() {
+        when(transactionTemplate.execute(any())).thenThrow(new IllegalStateException("database down"));
+        notificationStatistics.record(Category.SPORTS, Channel.SMS, 1, 0);
+
+        assertThrows(IllegalStateException.class, notificationStatistics::rebuild);
+
+        assertEquals(1, notificationStatistics.snapshot().sent());
+    }
+
+    private void givenTransactions() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+}
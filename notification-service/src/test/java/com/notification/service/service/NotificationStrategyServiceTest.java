@@ -1,29 +1,57 @@
 package com.notification.service.service;
 
+import com.notification.service.config.NotificationProperties;
 import com.notification.service.model.Message;
 import com.notification.service.model.Notification;
+import com.notification.service.model.Recipient;
 import com.notification.service.model.User;
+import com.notification.service.model.enums.BitMasks;
 import com.notification.service.model.enums.Category;
 import com.notification.service.model.enums.Channel;
+import com.notification.service.repository.MessageRepository;
 import com.notification.service.repository.NotificationRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
 public class NotificationStrategyServiceTest {
 
     @Mock
@@ -38,6 +66,39 @@ public class NotificationStrategyServiceTest {
     @Mock
     private NotificationRepository notificationRepository;
 
+    @Mock
+    private MessageRepository messageRepository;
+
+    @Mock
+    private AudienceReader audienceReader;
+
+    @Mock
+    private NotificationStatistics notificationStatistics;
+
+    @Captor
+    private ArgumentCaptor<List<Notification>> batchCaptor;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private DeliveryMetrics deliveryMetrics = new DeliveryMetrics(meterRegistry);
+
+    @Spy
+    private NotificationProperties notificationProperties = new NotificationProperties();
+
+    // Deliveries run on the calling thread
+    @Spy
+    private ChannelBulkheads channelBulkheads = new ChannelBulkheads(channel -> Runnable::run);
+
+    @Mock
+    private ChannelRateLimiter channelRateLimiter;
+
+    @Spy
+    private RetryPolicy retryPolicy = new RetryPolicy(new NotificationProperties());
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
     @InjectMocks
     private NotificationStrategyService notificationStrategyService;
 
@@ -46,12 +107,21 @@ public class NotificationStrategyServiceTest {
     private User userWithAllChannels;
     private User userWithEmailOnly;
     private User userWithSmsOnly;
-    private User userWithNoSubscriptions;
     private User userWithSportsSubscription;
-    private User userWithFinanceSubscription;
 
     @BeforeEach
-    void setUp() {
+    void setUp() throws InterruptedException {
+        // Provider batches go through the mocked single sends
+        for (NotificationService service : List.of(emailNotificationService, smsNotificationService, pushNotificationService)) {
+            when(service.sendBatch(anyList())).thenAnswer(invocation -> invocation.<List<Notification>>getArgument(0)
+                    .stream()
+                    .map(service::send)
+                    .toList());
+        }
+        
+        // Quotas are available right away
+        when(channelRateLimiter.tryAcquire(any(Channel.class), anyInt(), anyLong(), any(TimeUnit.class))).thenReturn(true);
+        
         // Set up messages
         sportsMessage = Message.builder()
                 .id(1L)
@@ -81,9 +151,6 @@ public class NotificationStrategyServiceTest {
         Set<Category> sportsSubscription = new HashSet<>();
         sportsSubscription.add(Category.SPORTS);
 
-        Set<Category> financeSubscription = new HashSet<>();
-        financeSubscription.add(Category.FINANCE);
-
         Set<Category> allSubscriptions = new HashSet<>();
         allSubscriptions.add(Category.SPORTS);
         allSubscriptions.add(Category.FINANCE);
@@ -115,15 +182,6 @@ public class NotificationStrategyServiceTest {
                 .subscriptions(allSubscriptions)
                 .build();
 
-        userWithNoSubscriptions = User.builder()
-                .id(4L)
-                .name("No Subscriptions User")
-                .email("nosub@example.com")
-                .phoneNumber("+1122334455")
-                .channels(allChannels)
-                .subscriptions(Collections.emptySet())
-                .build();
-
         userWithSportsSubscription = User.builder()
                 .id(5L)
                 .name("Sports Fan")
@@ -133,147 +191,506 @@ public class NotificationStrategyServiceTest {
                 .subscriptions(sportsSubscription)
                 .build();
 
-        userWithFinanceSubscription = User.builder()
-                .id(6L)
-                .name("Finance Fan")
-                .email("finance@example.com")
-                .phoneNumber("+9988776655")
-                .channels(allChannels)
-                .subscriptions(financeSubscription)
-                .build();
-
-        // Set up mock behavior for notification services
-        when(emailNotificationService.canSendToUser(userWithAllChannels)).thenReturn(true);
-        when(emailNotificationService.canSendToUser(userWithEmailOnly)).thenReturn(true);
-        when(emailNotificationService.canSendToUser(userWithSmsOnly)).thenReturn(false);
-        when(emailNotificationService.canSendToUser(userWithSportsSubscription)).thenReturn(true);
-        when(emailNotificationService.canSendToUser(userWithFinanceSubscription)).thenReturn(true);
-
-        when(smsNotificationService.canSendToUser(userWithAllChannels)).thenReturn(true);
-        when(smsNotificationService.canSendToUser(userWithEmailOnly)).thenReturn(false);
-        when(smsNotificationService.canSendToUser(userWithSmsOnly)).thenReturn(true);
-        when(smsNotificationService.canSendToUser(userWithSportsSubscription)).thenReturn(true);
-        when(smsNotificationService.canSendToUser(userWithFinanceSubscription)).thenReturn(true);
-
-        when(pushNotificationService.canSendToUser(userWithAllChannels)).thenReturn(true);
-        when(pushNotificationService.canSendToUser(userWithEmailOnly)).thenReturn(false);
-        when(pushNotificationService.canSendToUser(userWithSmsOnly)).thenReturn(false);
-        when(pushNotificationService.canSendToUser(userWithSportsSubscription)).thenReturn(true);
-        when(pushNotificationService.canSendToUser(userWithFinanceSubscription)).thenReturn(true);
+        // Set up mock behavior for notification services; users are matched by ID, since the fan-out
+        // passes the users rebuilt from its recipients
+        givenCanSendTo(emailNotificationService, userWithAllChannels, userWithEmailOnly, userWithSportsSubscription);
+        givenCanSendTo(smsNotificationService, userWithAllChannels, userWithSmsOnly, userWithSportsSubscription);
+        givenCanSendTo(pushNotificationService, userWithAllChannels, userWithSportsSubscription);
 
         // Set up mock behavior for notification repository
-        when(notificationRepository.save(any(Notification.class))).thenAnswer(invocation -> invocation.getArgument(0));
-    }
-
-    @Test
-    void processNotifications_WithNoUsers_ReturnsEmptyList() {
-        List<Notification> result = notificationStrategyService.processNotifications(sportsMessage, Collections.emptyList());
-        
-        assertTrue(result.isEmpty());
-        verify(notificationRepository, never()).save(any(Notification.class));
+        when(notificationRepository.saveAllAndFlush(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
     }
 
     @Test
-    void processNotifications_WithNullUsers_ReturnsEmptyList() {
-        List<Notification> result = notificationStrategyService.processNotifications(sportsMessage, null);
+    void processRecipients_WithRecipientWithoutChannels_ReturnsEmptyList() {
+        List<Notification> result = notificationStrategyService.processRecipients(sportsMessage,
+                List.of(new Recipient(4L, "nochannel@example.com", "+1122334455", 0)));
         
         assertTrue(result.isEmpty());
-        verify(notificationRepository, never()).save(any(Notification.class));
+        verify(notificationRepository, never()).saveAllAndFlush(anyList());
     }
 
     @Test
-    void processNotifications_WithNoSubscribedUsers_ReturnsEmptyList() {
-        List<Notification> result = notificationStrategyService.processNotifications(
-                sportsMessage, 
-                Collections.singletonList(userWithFinanceSubscription)
-        );
-        
-        assertTrue(result.isEmpty());
-        verify(notificationRepository, never()).save(any(Notification.class));
-    }
-
-    @Test
-    void processNotifications_WithUserWithNoSubscriptions_ReturnsEmptyList() {
-        List<Notification> result = notificationStrategyService.processNotifications(
-                sportsMessage, 
-                Collections.singletonList(userWithNoSubscriptions)
-        );
+    void processRecipients_WithNullRecipients_ReturnsEmptyList() {
+        List<Notification> result = notificationStrategyService.processRecipients(sportsMessage, null);
         
         assertTrue(result.isEmpty());
-        verify(notificationRepository, never()).save(any(Notification.class));
+        verify(notificationRepository, never()).saveAllAndFlush(anyList());
     }
 
     @Test
-    void processNotifications_WithSubscribedUserWithAllChannels_SendsToAllChannels() {
+    void processRecipients_WithSubscribedUserWithAllChannels_SendsToAllChannels() {
         // Set up mock behavior for notification services to return success
         when(emailNotificationService.send(any(Notification.class))).thenReturn(true);
         when(smsNotificationService.send(any(Notification.class))).thenReturn(true);
         when(pushNotificationService.send(any(Notification.class))).thenReturn(true);
         
-        List<Notification> result = notificationStrategyService.processNotifications(
-                sportsMessage, 
-                Collections.singletonList(userWithAllChannels)
+        List<Notification> result = notificationStrategyService.processRecipients(
+                sportsMessage,
+                recipients(userWithAllChannels)
         );
         
         assertEquals(3, result.size());
         verify(emailNotificationService, times(1)).send(any(Notification.class));
         verify(smsNotificationService, times(1)).send(any(Notification.class));
         verify(pushNotificationService, times(1)).send(any(Notification.class));
-        verify(notificationRepository, times(6)).save(any(Notification.class)); // 3 before send + 3 after send
+        // One batched write per channel after sending
+        verify(notificationRepository, times(3)).saveAllAndFlush(anyList());
+        assertEquals(3, written().size());
     }
 
     @Test
-    void processNotifications_WithSubscribedUserWithEmailOnly_SendsToEmailOnly() {
+    void processRecipients_WithSubscribedUserWithEmailOnly_SendsToEmailOnly() {
         // Set up mock behavior for notification services to return success
         when(emailNotificationService.send(any(Notification.class))).thenReturn(true);
         
-        List<Notification> result = notificationStrategyService.processNotifications(
-                sportsMessage, 
-                Collections.singletonList(userWithEmailOnly)
+        List<Notification> result = notificationStrategyService.processRecipients(
+                sportsMessage,
+                recipients(userWithEmailOnly)
         );
         
         assertEquals(1, result.size());
         verify(emailNotificationService, times(1)).send(any(Notification.class));
         verify(smsNotificationService, never()).send(any(Notification.class));
         verify(pushNotificationService, never()).send(any(Notification.class));
-        verify(notificationRepository, times(2)).save(any(Notification.class)); // 1 before send + 1 after send
+        verify(notificationRepository, times(1)).saveAllAndFlush(batchCaptor.capture());
+        assertEquals(1, batchCaptor.getValue().size());
     }
 
     @Test
-    void processNotifications_WithFailedDelivery_DoesNotAddToResult() {
+    void processRecipients_WithFailedDelivery_DoesNotAddToResult() {
         // Set up mock behavior for notification services to return failure
         when(emailNotificationService.send(any(Notification.class))).thenReturn(false);
         when(smsNotificationService.send(any(Notification.class))).thenReturn(true);
         when(pushNotificationService.send(any(Notification.class))).thenReturn(false);
         
-        List<Notification> result = notificationStrategyService.processNotifications(
-                sportsMessage, 
-                Collections.singletonList(userWithAllChannels)
+        List<Notification> result = notificationStrategyService.processRecipients(
+                sportsMessage,
+                recipients(userWithAllChannels)
         );
         
         assertEquals(1, result.size()); // Only SMS succeeded
         verify(emailNotificationService, times(1)).send(any(Notification.class));
         verify(smsNotificationService, times(1)).send(any(Notification.class));
         verify(pushNotificationService, times(1)).send(any(Notification.class));
-        verify(notificationRepository, times(4)).save(any(Notification.class)); // 3 before send + 1 after send (for SMS)
+        // Failed deliveries are still written, with sent = false
+        assertEquals(3, written().size());
+        
+        assertEquals(1, deliveries("sms", "sent"));
+        assertEquals(1, deliveries("email", "failed"));
+        assertEquals(1, deliveries("push_notification", "failed"));
+        assertEquals(0, deliveries("email", "sent"));
+        assertEquals(1, meterRegistry.get("notification.send").tag("channel", "email").timer().count());
+        assertEquals(1, meterRegistry.get("notification.fanout").tag("category", "sports").timer().count());
+        // A chunk is not the message's whole audience, which processAudience records
+        assertEquals(0, audience(Category.SPORTS).count());
     }
 
     @Test
-    void processNotifications_WithMultipleUsers_ProcessesAllUsers() {
+    void processRecipients_WithMultipleRecipients_ProcessesAllRecipients() {
         // Set up mock behavior for notification services to return success
         when(emailNotificationService.send(any(Notification.class))).thenReturn(true);
         when(smsNotificationService.send(any(Notification.class))).thenReturn(true);
         when(pushNotificationService.send(any(Notification.class))).thenReturn(true);
         
-        List<User> users = Arrays.asList(
-                userWithSportsSubscription,
-                userWithFinanceSubscription,
-                userWithNoSubscriptions
+        List<Notification> result = notificationStrategyService.processRecipients(
+                sportsMessage,
+                recipients(userWithSportsSubscription, userWithSmsOnly)
         );
         
-        List<Notification> result = notificationStrategyService.processNotifications(sportsMessage, users);
+        assertEquals(4, result.size()); // 3 channels for the sports fan, SMS for the other
+        verify(notificationRepository, times(3)).saveAllAndFlush(anyList());
+        assertEquals(4, written().size());
+    }
+
+    @Test
+    void processRecipients_WithMoreNotificationsThanWriteBatchSize_WritesInBatches() {
+        notificationProperties.getFanOut().setWriteBatchSize(2);
+        when(emailNotificationService.send(any(Notification.class))).thenReturn(true);
+        when(smsNotificationService.send(any(Notification.class))).thenReturn(true);
+        when(pushNotificationService.send(any(Notification.class))).thenReturn(true);
+
+        List<Notification> result = notificationStrategyService.processRecipients(
+                sportsMessage,
+                recipients(userWithAllChannels, userWithEmailOnly)
+        );
+
+        assertEquals(4, result.size());
+        // SMS and email, then email and push: each batch is written per channel
+        verify(notificationRepository, times(4)).saveAllAndFlush(batchCaptor.capture());
+        assertEquals(List.of(Channel.SMS, Channel.EMAIL, Channel.EMAIL, Channel.PUSH_NOTIFICATION),
+                batchCaptor.getAllValues().stream().map(batch -> batch.get(0).getChannel()).toList());
+    }
+
+    @Test
+    void deliverNotifications_SendsExistingRowsAndSchedulesFailedOnesForRetry() {
+        when(emailNotificationService.send(any(Notification.class))).thenReturn(true);
+        when(smsNotificationService.send(any(Notification.class))).thenReturn(false);
+
+        Notification email = Notification.builder().id(1L).message(sportsMessage).user(userWithAllChannels).channel(Channel.EMAIL).build();
+        Notification sms = Notification.builder().id(2L).message(sportsMessage).user(userWithAllChannels).channel(Channel.SMS).build();
+
+        List<Notification> result = notificationStrategyService.deliverNotifications(Arrays.asList(email, sms));
+
+        assertEquals(Collections.singletonList(email), result);
+        // One update per channel, in the order the channels finish, each in a transaction of its own
+        verify(notificationRepository, times(2)).updateDeliveryOutcomes(batchCaptor.capture());
+        assertEquals(List.of(List.of(sms), List.of(email)), batchCaptor.getAllValues());
+        verify(transactionTemplate, times(2)).executeWithoutResult(any());
+        verify(notificationRepository, never()).saveAllAndFlush(anyList());
+        assertEquals(1, email.getAttempts());
+        assertNull(email.getNextAttemptAt());
+        assertEquals(1, sms.getAttempts());
+        assertNotNull(sms.getNextAttemptAt());
+    }
+
+    @Test
+    void deliverNotifications_AddsTheOutcomesToTheMessageCounters() {
+        when(emailNotificationService.send(any(Notification.class))).thenAnswer(invocation -> {
+            invocation.<Notification>getArgument(0).setSent(true);
+            return true;
+        });
+        when(smsNotificationService.send(any(Notification.class))).thenReturn(false);
+        when(pushNotificationService.send(any(Notification.class))).thenReturn(false);
+
+        // A successful retry moves from failed to sent, a failed retry was already counted
+        Notification retriedEmail = Notification.builder().id(1L).message(sportsMessage).user(userWithAllChannels)
+                .channel(Channel.EMAIL).attempts(1).build();
+        Notification retriedSms = Notification.builder().id(2L).message(sportsMessage).user(userWithAllChannels)
+                .channel(Channel.SMS).attempts(1).build();
+        Notification push = Notification.builder().id(3L).message(financeMessage).user(userWithAllChannels)
+                .channel(Channel.PUSH_NOTIFICATION).build();
+
+        notificationStrategyService.deliverNotifications(List.of(retriedEmail, retriedSms, push));
+
+        verify(messageRepository).addNotificationCounts(1L, 1, -1);
+        verify(messageRepository).addNotificationCounts(2L, 0, 1);
+        verify(notificationStatistics).record(Category.SPORTS, Channel.EMAIL, 1, -1);
+        verify(notificationStatistics).record(Category.FINANCE, Channel.PUSH_NOTIFICATION, 0, 1);
+        verifyNoMoreInteractions(notificationStatistics);
+        assertEquals(1, sportsMessage.getSentCount());
+        assertEquals(-1, sportsMessage.getFailedCount());
+        assertEquals(1, financeMessage.getFailedCount());
+    }
+
+    @Test
+    void retryNotifications_SendsWithoutWaitingForTheQuota() throws InterruptedException {
+        when(smsNotificationService.send(any(Notification.class))).thenReturn(true);
+
+        Notification sms = Notification.builder().id(2L).message(sportsMessage).user(userWithAllChannels)
+                .channel(Channel.SMS).attempts(1).nextAttemptAt(LocalDateTime.now()).build();
+
+        List<Notification> result = notificationStrategyService.retryNotifications(List.of(sms));
+
+        assertEquals(List.of(sms), result);
+        assertEquals(2, sms.getAttempts());
+        assertNull(sms.getNextAttemptAt());
+        verify(channelRateLimiter, never()).tryAcquire(any(Channel.class), anyInt(), anyLong(), any(TimeUnit.class));
+        // The claim has committed: the outcome is written in a transaction of its own
+        verify(notificationRepository, times(1)).updateDeliveryOutcomes(List.of(sms));
+        verify(transactionTemplate, times(1)).executeWithoutResult(any());
+        verify(notificationRepository, never()).saveAllAndFlush(anyList());
+    }
+
+    @Test
+    void retryNotifications_WhenLaneIsFull_GivesBackThePermitsOfTheClaim() {
+        doReturn(CompletableFuture.failedFuture(new RejectedExecutionException("lane full")))
+                .when(channelBulkheads).submit(eq(Channel.SMS), any());
+
+        Notification sms = Notification.builder().id(2L).message(sportsMessage).user(userWithAllChannels)
+                .channel(Channel.SMS).attempts(1).nextAttemptAt(LocalDateTime.now()).build();
+
+        assertTrue(notificationStrategyService.retryNotifications(List.of(sms)).isEmpty());
+
+        assertEquals(1, sms.getAttempts());
+        verify(channelRateLimiter).release(Channel.SMS, 1);
+    }
+
+    @Test
+    void processRecipients_SendsOnlyOnTheRecipientsChannels() {
+        when(emailNotificationService.canSendToUser(any(User.class))).thenReturn(true);
+        when(pushNotificationService.canSendToUser(any(User.class))).thenReturn(true);
+        when(emailNotificationService.send(any(Notification.class))).thenReturn(true);
+        when(pushNotificationService.send(any(Notification.class))).thenReturn(false);
+
+        Recipient recipient = new Recipient(1L, "user1@example.com", null,
+                BitMasks.bit(Channel.EMAIL) | BitMasks.bit(Channel.PUSH_NOTIFICATION));
+
+        List<Notification> result = notificationStrategyService.processRecipients(sportsMessage, List.of(recipient));
+
+        assertEquals(1, result.size());
+        assertEquals(Channel.EMAIL, result.get(0).getChannel());
+        assertEquals(1L, result.get(0).getUser().getId());
+        verify(smsNotificationService, never()).send(any(Notification.class));
+        // Failed deliveries are written too, so they can be retried
+        assertEquals(2, written().size());
+    }
+
+    @Test
+    void processRecipients_GroupsNotificationsByChannelIntoProviderBatches() {
+        notificationProperties.getBulkhead().getDefaults().setBatchSize(2);
+        notificationProperties.getBulkhead().getChannels().put(Channel.SMS, new NotificationProperties.Lane());
+        when(emailNotificationService.send(any(Notification.class))).thenReturn(true);
+        when(smsNotificationService.send(any(Notification.class))).thenReturn(true);
+        when(pushNotificationService.send(any(Notification.class))).thenReturn(true);
+
+        List<Notification> result = notificationStrategyService.processRecipients(
+                sportsMessage,
+                recipients(userWithAllChannels, userWithEmailOnly, userWithSportsSubscription)
+        );
+
+        assertEquals(7, result.size());
+        // 3 emails in batches of 2, both SMS in one batch of the SMS lane's default size, 2 pushes in one batch
+        verify(emailNotificationService, times(2)).sendBatch(anyList());
+        verify(smsNotificationService, times(1)).sendBatch(anyList());
+        verify(pushNotificationService, times(1)).sendBatch(anyList());
+    }
+
+    @Test
+    void processRecipients_WhenServiceReturnsTooFewResults_FailsTheWholeGroup() {
+        when(emailNotificationService.sendBatch(anyList())).thenReturn(List.of(true));
+
+        List<Notification> result = notificationStrategyService.processRecipients(
+                sportsMessage,
+                recipients(userWithAllChannels, userWithEmailOnly)
+        );
+
+        assertTrue(result.stream().noneMatch(notification -> notification.getChannel() == Channel.EMAIL));
+        written().stream()
+                .filter(notification -> notification.getChannel() == Channel.EMAIL)
+                .forEach(notification -> assertNotNull(notification.getNextAttemptAt()));
+        assertEquals(2, deliveries("email", "failed"));
+    }
+
+    @Test
+    void processRecipients_WaitsForChannelQuotaBeforeEachProviderBatch() throws InterruptedException {
+        notificationProperties.getBulkhead().getDefaults().setBatchSize(2);
+        when(emailNotificationService.canSendToUser(any(User.class))).thenReturn(true);
+        when(emailNotificationService.send(any(Notification.class))).thenReturn(true);
+
+        List<Recipient> recipients = List.of(
+                new Recipient(1L, "a@example.com", null, BitMasks.bit(Channel.EMAIL)),
+                new Recipient(2L, "b@example.com", null, BitMasks.bit(Channel.EMAIL)),
+                new Recipient(3L, "c@example.com", null, BitMasks.bit(Channel.EMAIL)));
+
+        notificationStrategyService.processRecipients(sportsMessage, recipients);
+
+        InOrder inOrder = inOrder(channelRateLimiter, emailNotificationService);
+        inOrder.verify(channelRateLimiter).tryAcquire(Channel.EMAIL, 2, 30000, TimeUnit.MILLISECONDS);
+        inOrder.verify(emailNotificationService).sendBatch(anyList());
+        inOrder.verify(channelRateLimiter).tryAcquire(Channel.EMAIL, 1, 30000, TimeUnit.MILLISECONDS);
+        inOrder.verify(emailNotificationService).sendBatch(anyList());
+    }
+
+    @Test
+    void deliverNotifications_WhenDeliveryThrows_CountsAsNotSent() {
+        when(emailNotificationService.send(any(Notification.class))).thenThrow(new IllegalStateException("provider down"));
+
+        Notification email = Notification.builder().id(1L).message(sportsMessage).user(userWithAllChannels).channel(Channel.EMAIL).build();
+
+        assertTrue(notificationStrategyService.deliverNotifications(List.of(email)).isEmpty());
+        // Written back with the attempt counted, so the retry scheduler picks it up
+        verify(notificationRepository, times(1)).updateDeliveryOutcomes(List.of(email));
+        assertEquals(1, email.getAttempts());
+        assertNotNull(email.getNextAttemptAt());
+        assertEquals(1, deliveries("email", "failed"));
+    }
+
+    @Test
+    void processRecipients_WritesEachChannelAsSoonAsItsDeliveriesComplete() throws Exception {
+        when(emailNotificationService.send(any(Notification.class))).thenReturn(true);
+        when(smsNotificationService.send(any(Notification.class))).thenReturn(true);
+        when(pushNotificationService.send(any(Notification.class))).thenReturn(true);
+
+        // The SMS provider only answers once the emails are written
+        CountDownLatch emailsWritten = new CountDownLatch(1);
+        when(notificationRepository.saveAllAndFlush(anyList())).thenAnswer(invocation -> {
+            List<Notification> batch = invocation.getArgument(0);
+            if (batch.get(0).getChannel() == Channel.EMAIL) {
+                emailsWritten.countDown();
+            }
+            return batch;
+        });
+        ExecutorService smsLane = Executors.newSingleThreadExecutor();
+        doAnswer(invocation -> CompletableFuture.supplyAsync(() -> {
+            try {
+                assertTrue(emailsWritten.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return invocation.<Supplier<?>>getArgument(1).get();
+        }, smsLane)).when(channelBulkheads).submit(eq(Channel.SMS), any());
+
+        try {
+            List<Notification> result = notificationStrategyService.processRecipients(
+                    sportsMessage,
+                    recipients(userWithAllChannels)
+            );
+
+            assertEquals(3, result.size());
+            assertEquals(Channel.SMS, written().get(2).getChannel());
+        } finally {
+            smsLane.shutdownNow();
+        }
+    }
+
+    @Test
+    void processRecipients_WhenLaneIsFull_LeavesTheGroupForARetryWithoutAnAttempt() {
+        when(emailNotificationService.send(any(Notification.class))).thenReturn(true);
+        when(pushNotificationService.send(any(Notification.class))).thenReturn(true);
+        doReturn(CompletableFuture.failedFuture(new RejectedExecutionException("lane full")))
+                .when(channelBulkheads).submit(eq(Channel.SMS), any());
+
+        List<Notification> result = notificationStrategyService.processRecipients(
+                sportsMessage,
+                recipients(userWithAllChannels)
+        );
+
+        assertEquals(2, result.size());
+        verify(smsNotificationService, never()).sendBatch(anyList());
+        Notification sms = written().stream()
+                .filter(notification -> notification.getChannel() == Channel.SMS)
+                .findFirst()
+                .orElseThrow();
+        assertFalse(sms.isSent());
+        assertEquals(0, sms.getAttempts());
+        assertNotNull(sms.getNextAttemptAt());
+        // Not counted as failed: the retry counts it once attempted
+        verify(notificationStatistics, never()).record(any(), eq(Channel.SMS), anyInt(), anyInt());
+        assertEquals(0, deliveries("sms", "failed"));
+        // The permits it waited for are given back to the deliveries that can use them
+        verify(channelRateLimiter).release(Channel.SMS, 1);
+    }
+
+    @Test
+    void processRecipients_WithABurstAboveTheRate_WaitsForTheQuotaAndSendsEveryGroup() throws Exception {
+        // 20 SMS per second, one at a time, so each group after the first waits 50 ms
+        ChannelRateLimiter smsRateLimiter = smsRateLimiter(20);
+        notificationProperties.getBulkhead().getChannels().put(Channel.SMS, lane(1));
+        when(smsNotificationService.canSendToUser(any(User.class))).thenReturn(true);
+        when(smsNotificationService.send(any(Notification.class))).thenReturn(true);
+
+        long start = System.nanoTime();
+        List<Notification> result = notificationStrategyService.processRecipients(sportsMessage, smsRecipients(4));
+
+        // Delivered in the same dispatch, none is left for the retry scheduler
+        assertEquals(4, result.size());
+        assertTrue(written().stream().allMatch(notification -> notification.getAttempts() == 1));
+        verify(smsNotificationService, times(4)).sendBatch(anyList());
+        assertEquals(3, smsRateLimiter.getBuckets().get(0).getThrottledAcquires());
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(150));
+        assertEquals(4, deliveries("sms", "sent"));
+    }
+
+    @Test
+    void processRecipients_WhenTheQuotaTakesLongerThanTheMaxWait_ParksTheGroupsForARetry() throws Exception {
+        // One SMS per second, but groups only wait 100 ms
+        ChannelRateLimiter smsRateLimiter = smsRateLimiter(1);
+        notificationProperties.getRateLimit().setMaxWaitMs(100);
+        notificationProperties.getBulkhead().getChannels().put(Channel.SMS, lane(1));
+        when(smsNotificationService.canSendToUser(any(User.class))).thenReturn(true);
+        when(smsNotificationService.send(any(Notification.class))).thenReturn(true);
+
+        List<Notification> result = notificationStrategyService.processRecipients(sportsMessage, smsRecipients(3));
+
+        assertEquals(1, result.size());
+        verify(smsNotificationService, times(1)).sendBatch(anyList());
+        // The others are written unattempted, due for the retry scheduler right away, and take no permits
+        List<Notification> parked = written().stream().filter(notification -> notification.getAttempts() == 0).toList();
+        assertEquals(2, parked.size());
+        assertFalse(parked.get(0).isSent());
+        assertFalse(parked.get(0).getNextAttemptAt().isAfter(LocalDateTime.now()));
+        assertEquals(1, smsRateLimiter.getBuckets().get(0).getAcquiredPermits());
+        verify(channelRateLimiter, never()).release(any(), anyInt());
+        assertEquals(1, deliveries("sms", "sent"));
+        assertEquals(0, deliveries("sms", "failed"));
+    }
+
+    @Test
+    void processRecipients_WithNoRecipients_ReturnsEmptyList() {
+        assertTrue(notificationStrategyService.processRecipients(sportsMessage, Collections.emptyList()).isEmpty());
+        verifyNoInteractions(notificationRepository);
+    }
+
+    @Test
+    void processAudience_ProcessesEveryChunkAndCountsSentNotifications() {
+        when(emailNotificationService.canSendToUser(any(User.class))).thenReturn(true);
+        when(smsNotificationService.canSendToUser(any(User.class))).thenReturn(true);
+        when(pushNotificationService.canSendToUser(any(User.class))).thenReturn(true);
+        when(emailNotificationService.send(any(Notification.class))).thenReturn(true);
+        when(smsNotificationService.send(any(Notification.class))).thenReturn(true);
+        when(pushNotificationService.send(any(Notification.class))).thenReturn(true);
+        int allChannels = BitMasks.bit(Channel.EMAIL) | BitMasks.bit(Channel.SMS) | BitMasks.bit(Channel.PUSH_NOTIFICATION);
+        when(audienceReader.readInChunks(Category.SPORTS)).thenReturn(List.of(
+                List.of(new Recipient(1L, "all@example.com", "+1234567890", allChannels)),
+                List.of(new Recipient(2L, "email@example.com", null, BitMasks.bit(Channel.EMAIL)))
+        ));
+
+        int sent = notificationStrategyService.processAudience(sportsMessage);
+
+        assertEquals(4, sent); // 3 channels for the first recipient, email for the second
+        verify(notificationRepository, times(4)).saveAllAndFlush(anyList());
+        // One audience per message, across its chunks
+        assertEquals(1, audience(Category.SPORTS).count());
+        assertEquals(2, audience(Category.SPORTS).totalAmount());
+        assertEquals(2, meterRegistry.get("notification.fanout").tag("category", "sports").timer().count());
+    }
+
+    private List<Notification> written() {
+        verify(notificationRepository, atLeastOnce()).saveAllAndFlush(batchCaptor.capture());
+        return batchCaptor.getAllValues().stream().flatMap(List::stream).toList();
+    }
+
+    private ChannelRateLimiter smsRateLimiter(double permitsPerSecond) throws InterruptedException {
+        NotificationProperties.Limit limit = new NotificationProperties.Limit();
+        limit.setPermitsPerSecond(permitsPerSecond);
+        limit.setBurst(1);
+        NotificationProperties properties = new NotificationProperties();
+        properties.getRateLimit().getChannels().put(Channel.SMS, limit);
+        ChannelRateLimiter smsRateLimiter = new ChannelRateLimiter(properties);
         
-        assertEquals(3, result.size()); // Only userWithSportsSubscription gets notifications (3 channels)
-        verify(notificationRepository, times(6)).save(any(Notification.class)); // 3 before send + 3 after send
+        when(channelRateLimiter.tryAcquire(eq(Channel.SMS), anyInt(), anyLong(), any(TimeUnit.class)))
+                .thenAnswer(invocation -> smsRateLimiter.tryAcquire(Channel.SMS, invocation.getArgument(1),
+                        invocation.getArgument(2), invocation.getArgument(3)));
+        return smsRateLimiter;
+    }
+
+    private static NotificationProperties.Lane lane(int batchSize) {
+        NotificationProperties.Lane lane = new NotificationProperties.Lane();
+        lane.setBatchSize(batchSize);
+        return lane;
+    }
+
+    private static List<Recipient> smsRecipients(int count) {
+        return LongStream.rangeClosed(1, count)
+                .mapToObj(id -> new Recipient(id, null, "+100000000" + id, BitMasks.bit(Channel.SMS)))
+                .toList();
+    }
+
+    private static List<Recipient> recipients(User... users) {
+        return Arrays.stream(users)
+                .map(user -> new Recipient(user.getId(), user.getEmail(), user.getPhoneNumber(),
+                        BitMasks.toMask(user.getChannels())))
+                .toList();
+    }
+
+    private static void givenCanSendTo(NotificationService service, User... users) {
+        Set<Long> userIds = Arrays.stream(users).map(User::getId).collect(Collectors.toSet());
+        when(service.canSendToUser(any(User.class)))
+                .thenAnswer(invocation -> userIds.contains(invocation.<User>getArgument(0).getId()));
+    }
+
+    private DistributionSummary audience(Category category) {
+        return meterRegistry.get("notification.fanout.audience")
+                .tag("category", category.name().toLowerCase(Locale.ROOT))
+                .summary();
+    }
+
+    private double deliveries(String channel, String outcome) {
+        return meterRegistry.get("notification.deliveries").tag("channel", channel).tag("outcome", outcome).counter().count();
     }
-}
\ No newline at end of file
+}
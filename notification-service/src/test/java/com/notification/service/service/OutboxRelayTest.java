@@ -0,0 +1,59 @@
+package com.notification.service.service;
+
+import com.notification.service.config.NotificationProperties;
+import com.notification.service.model.enums.OutboxStatus;
+import com.notification.service.repository.OutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class OutboxRelayTest {
+
+    @Mock
+    private OutboxRepository outboxRepository;
+
+    @Mock
+    private NotificationDispatcher notificationDispatcher;
+
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        NotificationProperties properties = new NotificationProperties();
+        properties.getOutbox().setBatchSize(5);
+
+        outboxRelay = new OutboxRelay(outboxRepository, notificationDispatcher, properties);
+    }
+
+    @Test
+    void relayPendingEntries_DispatchesPendingEntriesSkippingInFlightOnes() {
+        when(notificationDispatcher.availableCapacity()).thenReturn(3);
+        when(notificationDispatcher.inFlightCount()).thenReturn(1);
+        when(outboxRepository.findIdsByStatus(OutboxStatus.PENDING, PageRequest.of(0, 4)))
+                .thenReturn(List.of(1L, 2L, 3L));
+        when(notificationDispatcher.dispatch(1L)).thenReturn(false);
+        when(notificationDispatcher.dispatch(2L)).thenReturn(true);
+        when(notificationDispatcher.dispatch(3L)).thenReturn(true);
+
+        int dispatched = outboxRelay.relayPendingEntries();
+
+        assertEquals(2, dispatched);
+    }
+
+    @Test
+    void relayPendingEntries_WhenDispatcherIsFull_DoesNotPoll() {
+        when(notificationDispatcher.availableCapacity()).thenReturn(0);
+
+        assertEquals(0, outboxRelay.relayPendingEntries());
+        verifyNoInteractions(outboxRepository);
+    }
+}
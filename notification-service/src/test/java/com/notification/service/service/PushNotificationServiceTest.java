@@ -9,16 +9,24 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 public class PushNotificationServiceTest {
 
+    @Mock
+    private DeliveryAuditSink deliveryAuditSink;
+
+    @Spy
     @InjectMocks
     private PushNotificationService pushNotificationService;
 
@@ -133,6 +141,7 @@ public class PushNotificationServiceTest {
         assertTrue(result);
         assertTrue(validNotification.isSent());
         assertNotNull(validNotification.getSentAt());
+        verify(deliveryAuditSink).record(Channel.PUSH_NOTIFICATION, message.getId(), validUser.getId(), null, true);
     }
 
     @Test
@@ -142,6 +151,7 @@ public class PushNotificationServiceTest {
         assertFalse(result);
         assertFalse(invalidChannelNotification.isSent());
         assertNull(invalidChannelNotification.getSentAt());
+        verify(deliveryAuditSink).record(Channel.PUSH_NOTIFICATION, message.getId(), validUser.getId(), null, false);
     }
 
     @Test
@@ -160,4 +170,71 @@ public class PushNotificationServiceTest {
         assertFalse(notification.isSent());
         assertNull(notification.getSentAt());
     }
-}
\ No newline at end of file
+
+    @Test
+    void sendBatch_ReturnsResultPerNotification() {
+        List<Boolean> results = pushNotificationService.sendBatch(List.of(validNotification, invalidChannelNotification));
+        
+        assertEquals(List.of(true, false), results);
+        assertTrue(validNotification.isSent());
+        assertNotNull(validNotification.getSentAt());
+        assertFalse(invalidChannelNotification.isSent());
+        verify(deliveryAuditSink).record(Channel.PUSH_NOTIFICATION, message.getId(), validUser.getId(), null, true);
+        // The rejected notification is audited as not sent
+        verify(deliveryAuditSink).record(Channel.PUSH_NOTIFICATION, message.getId(), validUser.getId(), null, false);
+    }
+
+    @Test
+    void sendBatch_WithSeveralMessages_SendsOneMulticastPerMessage() {
+        Message otherMessage = Message.builder()
+                .id(2L)
+                .category(Category.MOVIES)
+                .content("Other message content")
+                .build();
+        Notification otherNotification = Notification.builder()
+                .id(4L)
+                .message(otherMessage)
+                .user(validUser)
+                .channel(Channel.PUSH_NOTIFICATION)
+                .sent(false)
+                .build();
+        
+        List<Boolean> results = pushNotificationService.sendBatch(List.of(validNotification, otherNotification));
+        
+        assertEquals(List.of(true, true), results);
+        assertTrue(otherNotification.isSent());
+        verify(pushNotificationService).multicast(List.of(validNotification));
+        verify(pushNotificationService).multicast(List.of(otherNotification));
+        verify(deliveryAuditSink).record(Channel.PUSH_NOTIFICATION, otherMessage.getId(), validUser.getId(), null, true);
+    }
+
+    @Test
+    void send_WithNullUser_ReturnsFalse() {
+        Notification notification = Notification.builder()
+                .id(5L)
+                .message(message)
+                .channel(Channel.PUSH_NOTIFICATION)
+                .sent(false)
+                .build();
+        
+        assertFalse(pushNotificationService.send(notification));
+        assertFalse(notification.isSent());
+        verify(deliveryAuditSink).record(Channel.PUSH_NOTIFICATION, message.getId(), null, null, false);
+    }
+
+    @Test
+    void sendBatch_WithNullUser_ReturnsFalseForIt() {
+        Notification notification = Notification.builder()
+                .id(5L)
+                .message(message)
+                .channel(Channel.PUSH_NOTIFICATION)
+                .sent(false)
+                .build();
+        
+        List<Boolean> results = pushNotificationService.sendBatch(List.of(validNotification, notification));
+        
+        assertEquals(List.of(true, false), results);
+        assertFalse(notification.isSent());
+        verify(deliveryAuditSink).record(Channel.PUSH_NOTIFICATION, message.getId(), null, null, false);
+    }
+}
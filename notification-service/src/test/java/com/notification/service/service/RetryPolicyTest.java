@@ -0,0 +1,59 @@
+package com.notification.service.service;
+
+import com.notification.service.config.NotificationProperties;
+import com.notification.service.model.Notification;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RetryPolicyTest {
+
+    private RetryPolicy retryPolicy;
+
+    @BeforeEach
+    void setUp() {
+        NotificationProperties properties = new NotificationProperties();
+        properties.getRetry().setMaxAttempts(4);
+        properties.getRetry().setInitialBackoffMs(1000);
+        properties.getRetry().setMaxBackoffMs(3000);
+
+        retryPolicy = new RetryPolicy(properties);
+    }
+
+    @Test
+    void recordAttempt_WhenSent_ClearsTheNextAttempt() {
+        Notification notification = Notification.builder().attempts(1).nextAttemptAt(LocalDateTime.now()).build();
+
+        retryPolicy.recordAttempt(notification, true);
+
+        assertEquals(2, notification.getAttempts());
+        assertNull(notification.getNextAttemptAt());
+    }
+
+    @Test
+    void nextAttemptAt_DoublesTheBackoffUpToTheMaximum() {
+        assertDelayBetween(retryPolicy.nextAttemptAt(1), 500, 1000);
+        assertDelayBetween(retryPolicy.nextAttemptAt(2), 1000, 2000);
+        assertDelayBetween(retryPolicy.nextAttemptAt(3), 1500, 3000);
+    }
+
+    @Test
+    void recordAttempt_AfterTheLastAttempt_GivesUp() {
+        Notification notification = Notification.builder().attempts(3).build();
+
+        retryPolicy.recordAttempt(notification, false);
+
+        assertEquals(4, notification.getAttempts());
+        assertNull(notification.getNextAttemptAt());
+    }
+
+    private static void assertDelayBetween(LocalDateTime nextAttemptAt, long minMs, long maxMs) {
+        long delay = Duration.between(LocalDateTime.now(), nextAttemptAt).toMillis();
+        // Allow for the time elapsed since the attempt was scheduled
+        assertTrue(delay >= minMs - 100 && delay <= maxMs, "delay " + delay + "ms");
+    }
+}
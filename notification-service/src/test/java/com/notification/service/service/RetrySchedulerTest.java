@@ -0,0 +1,74 @@
+package com.notification.service.service;
+
+import com.notification.service.config.NotificationProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RetrySchedulerTest {
+
+    @Mock
+    private NotificationRetryService notificationRetryService;
+
+    private NotificationProperties properties;
+    private RetryScheduler retryScheduler;
+
+    private final NotificationRetryService.RetryCursor first =
+            new NotificationRetryService.RetryCursor(LocalDateTime.of(2024, 1, 1, 12, 0), 10L);
+
+    @BeforeEach
+    void setUp() {
+        properties = new NotificationProperties();
+        properties.getRetry().setBatchSize(2);
+
+        retryScheduler = new RetryScheduler(notificationRetryService, properties);
+    }
+
+    @Test
+    void retryDueNotifications_ContinuesAfterFullBatchesUntilTheDueOnesRunOut() {
+        when(notificationRetryService.retryNextBatch(any(LocalDateTime.class), eq(NotificationRetryService.RetryCursor.START)))
+                .thenReturn(new NotificationRetryService.RetryBatch(2, 2, 1, first));
+        when(notificationRetryService.retryNextBatch(any(LocalDateTime.class), eq(first)))
+                .thenReturn(new NotificationRetryService.RetryBatch(1, 1, 1, first));
+
+        assertEquals(2, retryScheduler.retryDueNotifications());
+        verify(notificationRetryService, times(2)).retryNextBatch(any(LocalDateTime.class), any());
+    }
+
+    @Test
+    void retryDueNotifications_StopsWhenNoPermitsAreSpare() {
+        when(notificationRetryService.retryNextBatch(any(LocalDateTime.class), eq(NotificationRetryService.RetryCursor.START)))
+                .thenReturn(new NotificationRetryService.RetryBatch(2, 0, 0, first));
+
+        assertEquals(0, retryScheduler.retryDueNotifications());
+        verify(notificationRetryService, times(1)).retryNextBatch(any(LocalDateTime.class), any());
+    }
+
+    @Test
+    void retryDueNotifications_StopsAfterTheMaximumNumberOfBatches() {
+        properties.getRetry().setMaxBatchesPerRun(3);
+        when(notificationRetryService.retryNextBatch(any(LocalDateTime.class), any()))
+                .thenReturn(new NotificationRetryService.RetryBatch(2, 2, 2, first));
+
+        assertEquals(6, retryScheduler.retryDueNotifications());
+        verify(notificationRetryService, times(3)).retryNextBatch(any(LocalDateTime.class), any());
+    }
+
+    @Test
+    void retryDueNotifications_WhenDisabled_DoesNothing() {
+        properties.getRetry().setEnabled(false);
+
+        assertEquals(0, retryScheduler.retryDueNotifications());
+        verifyNoInteractions(notificationRetryService);
+    }
+}
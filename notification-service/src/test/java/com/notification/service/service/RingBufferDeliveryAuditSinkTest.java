@@ -0,0 +1,122 @@
+package com.notification.service.service;
+
+import com.notification.service.model.enums.Channel;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RingBufferDeliveryAuditSinkTest {
+
+    @Test
+    void drain_WritesRecordsInOrder() {
+        List<DeliveryAuditRecord> written = new ArrayList<>();
+        RingBufferDeliveryAuditSink sink = new RingBufferDeliveryAuditSink(8, written::add);
+
+        sink.record(Channel.EMAIL, 1L, 10L, "user@example.com", true);
+        sink.record(Channel.PUSH_NOTIFICATION, 1L, 11L, null, false);
+
+        assertEquals(2, sink.drain());
+        assertEquals(2, written.size());
+        assertEquals(Channel.EMAIL, written.get(0).channel());
+        assertEquals(10L, written.get(0).userId());
+        assertEquals("user@example.com", written.get(0).recipient());
+        assertTrue(written.get(0).sent());
+        assertEquals(Channel.PUSH_NOTIFICATION, written.get(1).channel());
+        assertNull(written.get(1).recipient());
+        assertFalse(written.get(1).sent());
+        assertTrue(written.get(0).timestamp() > 0);
+
+        assertEquals(0, sink.drain());
+    }
+
+    @Test
+    void record_WithNullIds_WritesThemAsNull() {
+        List<DeliveryAuditRecord> written = new ArrayList<>();
+        RingBufferDeliveryAuditSink sink = new RingBufferDeliveryAuditSink(4, written::add);
+
+        sink.record(Channel.EMAIL, null, null, null, false);
+        sink.record(Channel.EMAIL, 1L, 0L, null, false);
+
+        assertEquals(2, sink.drain());
+        assertNull(written.get(0).messageId());
+        assertNull(written.get(0).userId());
+        assertEquals(1L, written.get(1).messageId());
+        assertEquals(0L, written.get(1).userId());
+    }
+
+    @Test
+    void record_WhenBufferFull_DropsInsteadOfBlocking() {
+        List<DeliveryAuditRecord> written = new ArrayList<>();
+        RingBufferDeliveryAuditSink sink = new RingBufferDeliveryAuditSink(4, written::add);
+
+        for (long userId = 1; userId <= 6; userId++) {
+            sink.record(Channel.SMS, 1L, userId, "+1234567890", true);
+        }
+
+        assertEquals(2, sink.getDroppedRecords());
+        assertEquals(4, sink.drain());
+        assertEquals(List.of(1L, 2L, 3L, 4L), written.stream().map(DeliveryAuditRecord::userId).toList());
+
+        // The slots are reused once read
+        sink.record(Channel.SMS, 1L, 7L, "+1234567890", true);
+        assertEquals(1, sink.drain());
+        assertEquals(7L, written.get(4).userId());
+    }
+
+    @Test
+    void bufferSize_IsRoundedUpToAPowerOfTwo() {
+        RingBufferDeliveryAuditSink sink = new RingBufferDeliveryAuditSink(5, record -> { });
+
+        for (long userId = 1; userId <= 9; userId++) {
+            sink.record(Channel.EMAIL, 1L, userId, null, true);
+        }
+
+        assertEquals(1, sink.getDroppedRecords());
+        assertEquals(8, sink.drain());
+    }
+
+    @Test
+    void record_FromConcurrentProducers_KeepsEveryRecord() throws InterruptedException {
+        List<DeliveryAuditRecord> written = Collections.synchronizedList(new ArrayList<>());
+        RingBufferDeliveryAuditSink sink = new RingBufferDeliveryAuditSink(1 << 16, written::add);
+        int producers = 4;
+        int recordsPerProducer = 10_000;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+
+        for (int p = 0; p < producers; p++) {
+            long messageId = p;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (long userId = 0; userId < recordsPerProducer; userId++) {
+                    sink.record(Channel.EMAIL, messageId, userId, null, true);
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(producers * recordsPerProducer, sink.drain());
+        assertEquals(0, sink.getDroppedRecords());
+
+        // Each producer's records come out in the order it wrote them
+        long[] next = new long[producers];
+        for (DeliveryAuditRecord record : written) {
+            assertEquals(next[record.messageId().intValue()]++, record.userId());
+        }
+    }
+}
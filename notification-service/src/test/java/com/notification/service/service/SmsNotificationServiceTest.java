@@ -9,16 +9,24 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 public class SmsNotificationServiceTest {
 
+    @Mock
+    private DeliveryAuditSink deliveryAuditSink;
+
+    @Spy
     @InjectMocks
     private SmsNotificationService smsNotificationService;
 
@@ -136,6 +144,7 @@ public class SmsNotificationServiceTest {
         assertTrue(result);
         assertTrue(validNotification.isSent());
         assertNotNull(validNotification.getSentAt());
+        verify(deliveryAuditSink).record(Channel.SMS, message.getId(), validUser.getId(), validUser.getPhoneNumber(), true);
     }
 
     @Test
@@ -145,6 +154,7 @@ public class SmsNotificationServiceTest {
         assertFalse(result);
         assertFalse(invalidChannelNotification.isSent());
         assertNull(invalidChannelNotification.getSentAt());
+        verify(deliveryAuditSink).record(Channel.SMS, message.getId(), validUser.getId(), validUser.getPhoneNumber(), false);
     }
 
     @Test
@@ -163,4 +173,74 @@ public class SmsNotificationServiceTest {
         assertFalse(notification.isSent());
         assertNull(notification.getSentAt());
     }
-}
\ No newline at end of file
+
+    @Test
+    void sendBatch_ReturnsResultPerNotification() {
+        List<Boolean> results = smsNotificationService.sendBatch(List.of(validNotification, invalidChannelNotification));
+        
+        assertEquals(List.of(true, false), results);
+        assertTrue(validNotification.isSent());
+        assertNotNull(validNotification.getSentAt());
+        assertFalse(invalidChannelNotification.isSent());
+        verify(deliveryAuditSink).record(Channel.SMS, message.getId(), validUser.getId(), validUser.getPhoneNumber(), true);
+        // The rejected notification is audited as not sent
+        verify(deliveryAuditSink).record(Channel.SMS, message.getId(), validUser.getId(), validUser.getPhoneNumber(), false);
+    }
+
+    @Test
+    void send_WithNullUser_ReturnsFalse() {
+        Notification notification = Notification.builder()
+                .id(5L)
+                .message(message)
+                .channel(Channel.SMS)
+                .sent(false)
+                .build();
+        
+        assertFalse(smsNotificationService.send(notification));
+        assertFalse(notification.isSent());
+        verify(deliveryAuditSink).record(Channel.SMS, message.getId(), null, null, false);
+    }
+
+    @Test
+    void sendBatch_WithNullUser_ReturnsFalseForIt() {
+        Notification notification = Notification.builder()
+                .id(5L)
+                .message(message)
+                .channel(Channel.SMS)
+                .sent(false)
+                .build();
+        
+        List<Boolean> results = smsNotificationService.sendBatch(List.of(validNotification, notification));
+        
+        assertEquals(List.of(true, false), results);
+        assertFalse(notification.isSent());
+        verify(deliveryAuditSink).record(Channel.SMS, message.getId(), null, null, false);
+    }
+
+    @Test
+    void sendBatch_SendsTheBatchInOneProviderCall() {
+        Notification otherNotification = Notification.builder()
+                .id(6L)
+                .message(message)
+                .user(validUser)
+                .channel(Channel.SMS)
+                .sent(false)
+                .build();
+        
+        List<Boolean> results = smsNotificationService.sendBatch(List.of(validNotification, otherNotification));
+        
+        assertEquals(List.of(true, true), results);
+        verify(smsNotificationService).sendBulk(List.of(validNotification, otherNotification));
+    }
+
+    @Test
+    void sendBatch_WhenTheProviderCallFails_ReturnsFalseForTheBatch() {
+        doThrow(new IllegalStateException("Provider unavailable")).when(smsNotificationService).sendBulk(anyList());
+        
+        List<Boolean> results = smsNotificationService.sendBatch(List.of(validNotification));
+        
+        assertEquals(List.of(false), results);
+        assertFalse(validNotification.isSent());
+        verify(deliveryAuditSink).record(Channel.SMS, message.getId(), validUser.getId(), validUser.getPhoneNumber(), false);
+    }
+}
@@ -0,0 +1,232 @@
+package com.notification.service.service;
+
+import com.notification.service.config.NotificationProperties;
+import com.notification.service.model.Recipient;
+import com.notification.service.model.enums.BitMasks;
+import com.notification.service.model.enums.Category;
+import com.notification.service.model.enums.Channel;
+import com.notification.service.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SubscriptionIndexTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private SubscriptionIndex subscriptionIndex;
+
+    @BeforeEach
+    void setUp() {
+        NotificationProperties properties = new NotificationProperties();
+        properties.getSubscriptionIndex().setEnabled(true);
+
+        subscriptionIndex = new SubscriptionIndex(userRepository, transactionTemplate, properties);
+    }
+
+    @Test
+    void rebuild_LoadsSubscribersChannelsAndContacts() {
+        givenDatabase();
+
+        subscriptionIndex.rebuild();
+
+        assertTrue(subscriptionIndex.isReady());
+        assertEquals(2, subscriptionIndex.countSubscribers(Category.SPORTS));
+        assertEquals(0, subscriptionIndex.countSubscribers(Category.MOVIES));
+
+        List<Recipient> recipients = subscriptionIndex.readChunk(Category.SPORTS, 0L, 10);
+        assertEquals(List.of(
+                new Recipient(1L, "user1@example.com", "+1", BitMasks.bit(Channel.EMAIL) | BitMasks.bit(Channel.SMS)),
+                new Recipient(3L, "user3@example.com", null, 0)), recipients);
+    }
+
+    @Test
+    void readChunk_SeeksPastLastUserAndStopsAtLimit() {
+        givenDatabase();
+        subscriptionIndex.rebuild();
+
+        assertEquals(1, subscriptionIndex.readChunk(Category.SPORTS, 0L, 1).size());
+        assertEquals(3L, subscriptionIndex.readChunk(Category.SPORTS, 1L, 10).get(0).userId());
+        assertTrue(subscriptionIndex.readChunk(Category.SPORTS, 3L, 10).isEmpty());
+    }
+
+    @Test
+    void update_MovesUserBetweenCategoriesAndGrowsArrays() {
+        givenDatabase();
+        subscriptionIndex.rebuild();
+
+        subscriptionIndex.update(new Recipient(1L, "new@example.com", null, BitMasks.bit(Channel.PUSH_NOTIFICATION)),
+                EnumSet.of(Category.MOVIES));
+        subscriptionIndex.update(new Recipient(5000L, "late@example.com", null, BitMasks.bit(Channel.EMAIL)),
+                EnumSet.of(Category.SPORTS));
+
+        assertEquals(List.of(new Recipient(1L, "new@example.com", null, BitMasks.bit(Channel.PUSH_NOTIFICATION))),
+                subscriptionIndex.readChunk(Category.MOVIES, 0L, 10));
+        assertEquals(List.of(3L, 5000L), subscriptionIndex.readChunk(Category.SPORTS, 0L, 10).stream()
+                .map(Recipient::userId).toList());
+    }
+
+    @Test
+    void remove_DropsUserFromEveryCategory() {
+        givenDatabase();
+        subscriptionIndex.rebuild();
+
+        subscriptionIndex.remove(1L);
+
+        assertEquals(1, subscriptionIndex.countSubscribers(Category.SPORTS));
+        assertEquals(0, subscriptionIndex.countSubscribers(Category.FINANCE));
+    }
+
+    @Test
+    void rebuild_ReplaysChangesMadeWhileReadingTheTable() {
+        givenDatabase();
+        Stream<UserRepository.SubscriberRow> rows = Stream.of(
+                subscriberRow(1L, "user1@example.com", "+1", BitMasks.bit(Channel.EMAIL), BitMasks.bit(Category.SPORTS)));
+        when(userRepository.streamAllSubscriberRows()).thenAnswer(invocation -> {
+            // Committed by other transactions while the table is read, after the rows were read
+            subscriptionIndex.update(new Recipient(7L, "user7@example.com", null, BitMasks.bit(Channel.EMAIL)),
+                    EnumSet.of(Category.MOVIES));
+            subscriptionIndex.remove(1L);
+            return rows;
+        });
+
+        subscriptionIndex.rebuild();
+
+        assertEquals(List.of(new Recipient(7L, "user7@example.com", null, BitMasks.bit(Channel.EMAIL))),
+                subscriptionIndex.readChunk(Category.MOVIES, 0L, 10));
+        assertEquals(0, subscriptionIndex.countSubscribers(Category.SPORTS));
+    }
+
+    @Test
+    void checkConsistency_WhenCountsDiffer_RebuildsIndex() {
+        givenDatabase();
+        subscriptionIndex.rebuild();
+        when(userRepository.checksumUsersBySubscriptions()).thenReturn(List.of(
+                checksum(BitMasks.bit(Category.SPORTS) | BitMasks.bit(Category.FINANCE), 2L, 4L, 0L)));
+
+        assertFalse(subscriptionIndex.checkConsistency());
+
+        verify(userRepository, times(2)).streamAllSubscriberRows();
+    }
+
+    @Test
+    void checkConsistency_WhenSubscriptionsMovedBetweenUsers_RebuildsIndex() {
+        givenDatabase();
+        subscriptionIndex.rebuild();
+        // Same number of subscribers per category, but users 1 and 3 swapped their subscriptions
+        when(userRepository.checksumUsersBySubscriptions()).thenReturn(List.of(
+                checksum(BitMasks.bit(Category.SPORTS) | BitMasks.bit(Category.FINANCE), 1L, 3L, 0L),
+                checksum(BitMasks.bit(Category.SPORTS), 1L, 1L, BitMasks.bit(Channel.EMAIL) | BitMasks.bit(Channel.SMS))));
+
+        assertFalse(subscriptionIndex.checkConsistency());
+
+        verify(userRepository, times(2)).streamAllSubscriberRows();
+    }
+
+    @Test
+    void checkConsistency_WhenChannelsChanged_RebuildsIndex() {
+        givenDatabase();
+        subscriptionIndex.rebuild();
+        when(userRepository.checksumUsersBySubscriptions()).thenReturn(List.of(
+                checksum(BitMasks.bit(Category.SPORTS) | BitMasks.bit(Category.FINANCE), 1L, 1L, BitMasks.bit(Channel.EMAIL)),
+                checksum(BitMasks.bit(Category.SPORTS), 1L, 3L, 0L)));
+
+        assertFalse(subscriptionIndex.checkConsistency());
+    }
+
+    @Test
+    void checkConsistency_WhenChecksumsMatch_KeepsIndex() {
+        givenDatabase();
+        subscriptionIndex.rebuild();
+        when(userRepository.checksumUsersBySubscriptions()).thenReturn(List.of(
+                checksum(BitMasks.bit(Category.SPORTS) | BitMasks.bit(Category.FINANCE), 1L, 1L,
+                        BitMasks.bit(Channel.EMAIL) | BitMasks.bit(Channel.SMS)),
+                checksum(BitMasks.bit(Category.SPORTS), 1L, 3L, 0L)));
+
+        assertTrue(subscriptionIndex.checkConsistency());
+
+        verify(userRepository, times(1)).streamAllSubscriberRows();
+    }
+
+    private void givenDatabase() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        // Streams can only be consumed once, so hand out a fresh one per rebuild
+        when(userRepository.streamAllSubscriberRows()).thenAnswer(invocation -> Stream.of(
+                subscriberRow(1L, "user1@example.com", "+1", BitMasks.bit(Channel.EMAIL) | BitMasks.bit(Channel.SMS),
+                        BitMasks.bit(Category.SPORTS) | BitMasks.bit(Category.FINANCE)),
+                subscriberRow(3L, "user3@example.com", null, 0, BitMasks.bit(Category.SPORTS))));
+    }
+
+    private static UserRepository.SubscriberRow subscriberRow(Long userId, String email, String phoneNumber,
+                                                              int channels, int subscriptions) {
+        return new UserRepository.SubscriberRow() {
+            @Override
+            public Long getUserId() {
+                return userId;
+            }
+
+            @Override
+            public String getEmail() {
+                return email;
+            }
+
+            @Override
+            public String getPhoneNumber() {
+                return phoneNumber;
+            }
+
+            @Override
+            public int getChannels() {
+                return channels;
+            }
+
+            @Override
+            public int getSubscriptions() {
+                return subscriptions;
+            }
+        };
+    }
+
+    private static UserRepository.SubscriptionsChecksum checksum(int subscriptions, long users, long userIdSum,
+                                                                 long channelSum) {
+        return new UserRepository.SubscriptionsChecksum() {
+            @Override
+            public int getSubscriptions() {
+                return subscriptions;
+            }
+
+            @Override
+            public long getUsers() {
+                return users;
+            }
+
+            @Override
+            public long getUserIdSum() {
+                return userIdSum;
+            }
+
+            @Override
+            public long getChannelSum() {
+                return channelSum;
+            }
+        };
+    }
+}
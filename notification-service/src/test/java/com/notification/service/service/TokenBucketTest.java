@@ -0,0 +1,86 @@
+package com.notification.service.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenBucketTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private TokenBucket tokenBucket;
+
+    @BeforeEach
+    void setUp() {
+        // 10 permits per second, bursts of up to 5
+        tokenBucket = new TokenBucket("sms", 10, 5, clock::get);
+    }
+
+    @Test
+    void reserve_WithinCapacity_DoesNotWait() {
+        assertEquals(0, tokenBucket.reserve(5));
+        assertEquals(0, tokenBucket.availablePermits());
+        assertEquals(0, tokenBucket.getThrottledAcquires());
+    }
+
+    @Test
+    void reserve_BeyondAvailablePermits_WaitsForRefill() {
+        tokenBucket.reserve(5);
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(300), tokenBucket.reserve(3));
+        // The next caller queues behind the reservation
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(400), tokenBucket.reserve(1));
+        assertEquals(2, tokenBucket.getThrottledAcquires());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(700), tokenBucket.getWaitNanos());
+    }
+
+    @Test
+    void reserve_LargerThanCapacity_GoesThroughAfterWaiting() {
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1500), tokenBucket.reserve(20));
+        assertEquals(20, tokenBucket.getAcquiredPermits());
+    }
+
+    @Test
+    void availablePermits_RefillsOverTimeUpToCapacity() {
+        tokenBucket.reserve(5);
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(200));
+        assertEquals(2, tokenBucket.availablePermits());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertEquals(5, tokenBucket.availablePermits());
+    }
+
+    @Test
+    void tryAcquire_TakesPermitsOnlyIfAvailable() {
+        assertTrue(tokenBucket.tryAcquire(4));
+        assertFalse(tokenBucket.tryAcquire(2));
+        assertTrue(tokenBucket.tryAcquire(1));
+        assertEquals(5, tokenBucket.getAcquiredPermits());
+    }
+
+    @Test
+    void reserve_BeyondTheMaxWait_ReservesNothing() {
+        tokenBucket.reserve(5);
+
+        assertEquals(-1, tokenBucket.reserve(3, TimeUnit.MILLISECONDS.toNanos(200)));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(300), tokenBucket.reserve(3, TimeUnit.MILLISECONDS.toNanos(300)));
+        assertEquals(8, tokenBucket.getAcquiredPermits());
+        assertEquals(1, tokenBucket.getThrottledAcquires());
+    }
+
+    @Test
+    void acquire_SleepsForTheReservedTime() throws InterruptedException {
+        TokenBucket realTime = new TokenBucket("push", 100, 1);
+        realTime.acquire(1);
+
+        long start = System.nanoTime();
+        long waited = realTime.acquire(5);
+
+        assertTrue(waited > 0);
+        assertTrue(System.nanoTime() - start >= waited);
+    }
+}
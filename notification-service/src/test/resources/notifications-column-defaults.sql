@@ -0,0 +1,4 @@
+-- Column defaults the Flyway migrations give the notifications table and the schema generated from the
+-- entities lacks; the set-based fan-out inserts rows without an ID or attempt count
+ALTER TABLE notifications ALTER COLUMN id SET DEFAULT NEXT VALUE FOR notifications_id_seq;
+ALTER TABLE notifications ALTER COLUMN attempts SET DEFAULT 0;